@@ -0,0 +1,42 @@
+package myrecipes.app;
+
+import android.app.Application;
+import android.os.Bundle;
+
+import androidx.test.runner.AndroidJUnitRunner;
+
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.FirebaseDatabase;
+
+/**
+ * Test runner that points the app's default Firebase Database and Auth instances at the
+ * local emulators when the firebaseEmulator argument is given, e.g.
+ * -Pandroid.testInstrumentationRunnerArguments.firebaseEmulator=10.0.2.2
+ * This has to happen before the Application starts its components, which use the
+ * default instances; without the argument the runner behaves like AndroidJUnitRunner.
+ */
+public class EmulatorTestRunner extends AndroidJUnitRunner {
+    static final String ARG_EMULATOR_HOST = "firebaseEmulator";
+    static final int DATABASE_PORT = 9000;
+    static final int AUTH_PORT = 9099;
+
+    private String emulatorHost;
+
+    @Override
+    public void onCreate(Bundle arguments) {
+        emulatorHost = arguments != null ? arguments.getString(ARG_EMULATOR_HOST) : null;
+        super.onCreate(arguments);
+    }
+
+    @Override
+    public void callApplicationOnCreate(Application app) {
+        if (emulatorHost != null) {
+            // Returns the default app the init provider already created
+            FirebaseApp.initializeApp(app);
+            FirebaseDatabase.getInstance().useEmulator(emulatorHost, DATABASE_PORT);
+            FirebaseAuth.getInstance().useEmulator(emulatorHost, AUTH_PORT);
+        }
+        super.callApplicationOnCreate(app);
+    }
+}
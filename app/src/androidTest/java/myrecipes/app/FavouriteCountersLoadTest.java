@@ -0,0 +1,216 @@
+package myrecipes.app;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.FirebaseDatabase;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import myrecipes.app.datasources.DatabaseReadObserver;
+import myrecipes.app.repositories.FavouriteCounters;
+import myrecipes.app.repositories.FavouriteJournal;
+import myrecipes.app.repositories.FavouriteStore;
+import myrecipes.app.workers.PopularityWorker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Concurrent favourite toggles against the Firebase Realtime Database emulator, written by
+ * the app's own FavouriteStore. Every user has a store, spread over several clients with
+ * their own connection; the stores favourite and unfavourite the same recipe at once, and
+ * some replay journaled toggles as after a restart. Afterwards the sharded counter must match
+ * the number of users that have the recipe as a favourite, and the PopularityWorker ranking
+ * built from the counters must hold the top recipes with those counts.
+ *
+ * Start the emulator with "firebase emulators:start --only database" and run with
+ * -Pandroid.testInstrumentationRunnerArguments.firebaseEmulator=10.0.2.2
+ * The test is skipped without that argument.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FavouriteCountersLoadTest {
+    private static final int EMULATOR_PORT = 9000;
+    private static final int CLIENTS = 4;
+    private static final int USERS = 200;
+    private static final String RECIPE_ID = "load-test-recipe";
+    // Other recipes, with counts 1 to FILLERS, so the ranking has more recipes than it keeps
+    private static final int FILLERS = PopularityWorker.TOP_N + 10;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private final List<FirebaseDatabase> databases = new ArrayList<>();
+    private final List<FirebaseApp> apps = new ArrayList<>();
+    // Store of each user, indexed by user
+    private final FavouriteStore[] stores = new FavouriteStore[USERS];
+    // Journal entries of earlier runs belong to other users
+    private final String runId = Long.toString(System.currentTimeMillis());
+
+    @Before
+    public void setUp() throws Exception {
+        String host = InstrumentationRegistry.getArguments().getString("firebaseEmulator");
+        Assume.assumeTrue("Firebase emulator host not given", host != null);
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        FirebaseApp defaultApp = FirebaseApp.initializeApp(context);
+        for (int i = 0; i < CLIENTS; i++) {
+            FirebaseApp app = FirebaseApp.initializeApp(context, defaultApp.getOptions(), "load-test-" + i);
+            FirebaseDatabase database = FirebaseDatabase.getInstance(app);
+            database.useEmulator(host, EMULATOR_PORT);
+            apps.add(app);
+            databases.add(database);
+        }
+        Tasks.await(databases.get(0).getReference().setValue(null), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @After
+    public void tearDown() {
+        onMain(() -> {
+            for (FavouriteStore store : stores) {
+                if (store != null) {
+                    store.setUser(null);
+                }
+            }
+        });
+        for (FirebaseApp app : apps) {
+            app.delete();
+        }
+    }
+
+    @Test
+    public void concurrentTogglesKeepCounterAndRankingExact() throws Exception {
+        // Every user favourites the recipe; the stores flush concurrently
+        signIn(0, USERS);
+        setFavourite(0, USERS, true);
+        awaitConfirmed(0, USERS);
+        assertEquals(USERS, readCount());
+
+        // A third of them remove it while the others restart with a journaled favourite that
+        // already reached the server: replaying it must not count it again
+        int removed = USERS / 3;
+        onMain(() -> {
+            for (int user = removed; user < USERS; user++) {
+                stores[user].setUser(null);
+                FavouriteJournal.getInstance().append(userId(user), RECIPE_ID, true);
+            }
+        });
+        setFavourite(0, removed, false);
+        signIn(removed, USERS);
+        awaitConfirmed(0, USERS);
+
+        assertEquals(USERS - removed, readCount());
+        long favourites = Tasks.await(databases.get(0).getReference("userFavorites").get(),
+                TIMEOUT_SECONDS, TimeUnit.SECONDS).getChildrenCount();
+        assertEquals(USERS - removed, favourites);
+        for (int user = 0; user < USERS; user++) {
+            assertTrue(FavouriteJournal.getInstance().getPending(userId(user)).isEmpty());
+        }
+
+        // The ranking keeps the TOP_N recipes with the highest counts
+        seedFillerCounters();
+        assertTrue(PopularityWorker.updateRanking(databases.get(0)));
+        // Another client running the job in the same interval finds it claimed
+        assertFalse(PopularityWorker.updateRanking(databases.get(1)));
+        DataSnapshot top = Tasks.await(databases.get(0).getReference(PopularityWorker.RANKING_PATH).child("top").get(),
+                TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(PopularityWorker.TOP_N, top.getChildrenCount());
+        assertEquals(Long.valueOf(USERS - removed), top.child(RECIPE_ID).getValue(Long.class));
+        // The load test recipe has the highest count, so TOP_N - 1 fillers fit
+        long lowestKept = FILLERS - (PopularityWorker.TOP_N - 1) + 1;
+        for (int count = 1; count <= FILLERS; count++) {
+            DataSnapshot filler = top.child(fillerId(count));
+            if (count >= lowestKept) {
+                assertEquals(Long.valueOf(count), filler.getValue(Long.class));
+            } else {
+                assertFalse(fillerId(count) + " should not be in the top", filler.exists());
+            }
+        }
+    }
+
+    private String userId(int user) {
+        return "load-" + runId + "-" + user;
+    }
+
+    private static String fillerId(int count) {
+        return "filler-" + count;
+    }
+
+    /**
+     * Gives users [from, to) a new store signed in to them, spread over the clients.
+     * A new store replays the user's journaled toggles, like the app after a restart.
+     */
+    private void signIn(int from, int to) {
+        onMain(() -> {
+            for (int user = from; user < to; user++) {
+                stores[user] = new FavouriteStore(databases.get(user % CLIENTS), DatabaseReadObserver.NONE);
+                stores[user].setUser(userId(user));
+            }
+        });
+    }
+
+    private void setFavourite(int from, int to, boolean favourite) {
+        onMain(() -> {
+            for (int user = from; user < to; user++) {
+                stores[user].setFavourite(RECIPE_ID, favourite);
+            }
+        });
+    }
+
+    /**
+     * Waits until the server confirmed every toggle of users [from, to).
+     */
+    private void awaitConfirmed(int from, int to) throws InterruptedException {
+        long deadline = SystemClock.uptimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        AtomicBoolean confirmed = new AtomicBoolean();
+        while (true) {
+            onMain(() -> {
+                confirmed.set(true);
+                for (int user = from; user < to && confirmed.get(); user++) {
+                    confirmed.set(stores[user].getUnconfirmed(userId(user)).isEmpty());
+                }
+            });
+            if (confirmed.get()) {
+                return;
+            }
+            assertTrue("Favourite writes not confirmed in time", SystemClock.uptimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Counters of recipes nobody in the test favourites, written directly into one shard.
+     */
+    private void seedFillerCounters() throws Exception {
+        List<Task<Void>> writes = new ArrayList<>();
+        for (int count = 1; count <= FILLERS; count++) {
+            writes.add(databases.get(0).getReference(FavouriteCounters.COUNTS_PATH)
+                    .child(fillerId(count)).child("0").setValue(count));
+        }
+        Tasks.await(Tasks.whenAll(writes), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private long readCount() throws Exception {
+        DataSnapshot counter = Tasks.await(databases.get(0)
+                .getReference(FavouriteCounters.COUNTS_PATH).child(RECIPE_ID).get(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        return FavouriteCounters.sum(counter);
+    }
+
+    private static void onMain(Runnable action) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(action);
+    }
+}
@@ -0,0 +1,134 @@
+package myrecipes.app;
+
+import android.util.Log;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import myrecipes.app.datasources.DatabaseReadObserver;
+import myrecipes.app.parsers.JsonWriter;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * What the Firebase data sources read while a flow runs, measured at the database layer:
+ * one read per get() result or listener event, sized from the snapshot the client returned,
+ * and the listeners attached. A test resets it before a flow and checks the cost after.
+ * The app keeps the database disk cache on, so a listener may be answered from the cache
+ * without any download. The client doesn't say which reads it served that way, so reads
+ * made while the test holds the client offline ({@link #offline}) are counted as cache hits,
+ * and every other read as a download.
+ */
+final class FlowMeter implements DatabaseReadObserver {
+    private static final String TAG = "FlowMeter";
+
+    private final AtomicInteger reads = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicInteger listeners = new AtomicInteger();
+    private final AtomicInteger cacheReads = new AtomicInteger();
+    private final AtomicLong cacheBytes = new AtomicLong();
+    private volatile boolean offline;
+
+    @Override
+    public void onRead(String path, DataSnapshot snapshot) {
+        if (offline) {
+            cacheReads.incrementAndGet();
+            cacheBytes.addAndGet(sizeOf(snapshot));
+        } else {
+            reads.incrementAndGet();
+            bytes.addAndGet(sizeOf(snapshot));
+        }
+    }
+
+    @Override
+    public void onListenerAttached(String path) {
+        listeners.incrementAndGet();
+    }
+
+    void reset() {
+        reads.set(0);
+        bytes.set(0);
+        listeners.set(0);
+        cacheReads.set(0);
+        cacheBytes.set(0);
+    }
+
+    /**
+     * Takes the database client offline, or back online. While it is offline nothing can be
+     * downloaded, so every read is answered from the cache and counted as a cache hit.
+     */
+    void offline(FirebaseDatabase database, boolean offline) {
+        if (offline) {
+            database.goOffline();
+        } else {
+            database.goOnline();
+        }
+        this.offline = offline;
+    }
+
+    Cost cost(String flow) {
+        Cost cost = new Cost(flow, reads.get(), bytes.get(), listeners.get(), cacheReads.get(), cacheBytes.get());
+        Log.i(TAG, cost.toString());
+        return cost;
+    }
+
+    /**
+     * Compact JSON size of the value the snapshot holds, 0 for a missing node.
+     * Close to what the server sends, without the protocol framing.
+     */
+    private static long sizeOf(DataSnapshot snapshot) {
+        Object value = snapshot.getValue();
+        return value != null ? JsonWriter.write(value, false).getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+
+    /**
+     * Cost of one flow, with the assertion the budget tests use.
+     */
+    static final class Cost {
+        final String flow;
+        final int reads;
+        final long bytes;
+        final int listeners;
+        final int cacheReads;
+        final long cacheBytes;
+
+        Cost(String flow, int reads, long bytes, int listeners, int cacheReads, long cacheBytes) {
+            this.flow = flow;
+            this.reads = reads;
+            this.bytes = bytes;
+            this.listeners = listeners;
+            this.cacheReads = cacheReads;
+            this.cacheBytes = cacheBytes;
+        }
+
+        /**
+         * Fails when the flow downloaded more than its budget allows. Cache hits don't count.
+         */
+        void assertWithin(int maxReads, long maxBytes, int maxListeners) {
+            String budget = " (budget: " + maxReads + " reads, " + maxBytes + " bytes, "
+                    + maxListeners + " listeners)";
+            assertTrue(this + budget, reads <= maxReads);
+            assertTrue(this + budget, bytes <= maxBytes);
+            assertTrue(this + budget, listeners <= maxListeners);
+        }
+
+        /**
+         * Fails when the flow read more from the cache than expected.
+         */
+        void assertCacheWithin(int maxReads, long maxBytes) {
+            String budget = " (cache budget: " + maxReads + " reads, " + maxBytes + " bytes)";
+            assertTrue(this + budget, cacheReads <= maxReads);
+            assertTrue(this + budget, cacheBytes <= maxBytes);
+        }
+
+        @Override
+        public String toString() {
+            return flow + ": " + reads + " reads, " + bytes + " bytes, " + listeners + " listeners, "
+                    + cacheReads + " cache reads, " + cacheBytes + " cache bytes";
+        }
+    }
+}
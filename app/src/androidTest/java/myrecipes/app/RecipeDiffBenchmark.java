@@ -0,0 +1,181 @@
+package myrecipes.app;
+
+import androidx.annotation.Nullable;
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import myrecipes.app.adapters.RecipeDiffCallback;
+import myrecipes.app.generator.CatalogGenerator;
+import myrecipes.app.generator.SeedCatalog;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.parsers.CatalogJsonParser;
+import myrecipes.app.parsers.JsonReader;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Cost of the diff RecipeAdapter computes on its background thread for every submitted list,
+ * at 10k rows, with the app's RecipeDiffCallback wrapped the way AsyncListDiffer does it
+ * (DiffUtil.calculateDiff with move detection).
+ * The catalog is the same synthetic one the JVM benchmarks use (seed 42), generated from the
+ * checked-in recipes.json. It doesn't need the Firebase emulator. Run on a device with:
+ * ./gradlew :app:connectedDebugAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=myrecipes.app.RecipeDiffBenchmark
+ * -Pandroid.testInstrumentationRunnerArguments.androidx.benchmark.suppressErrors=DEBUGGABLE
+ * The app module is debuggable, so the results are pessimistic; compare them with each other,
+ * not with release timings.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RecipeDiffBenchmark {
+    private static final int CATALOG_SIZE = 10_000;
+    private static final long CATALOG_SEED = 42;
+
+    private static List<RecipeSummary> current;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @BeforeClass
+    public static void generateCatalog() throws Exception {
+        StringBuilder json = new StringBuilder();
+        new CatalogGenerator(SeedCatalog.learn(readSeedCatalog()), CATALOG_SEED)
+                .writeRecipes(CATALOG_SIZE, json, false, 0, null);
+        current = CatalogJsonParser.parseSummaries(new JsonReader(json.toString()));
+    }
+
+    /**
+     * A live update that changed nothing visible: every row is a new instance with the same
+     * content, as the repository delivers after a sync.
+     */
+    @Test
+    public void unchanged() {
+        List<RecipeSummary> next = new ArrayList<>(current.size());
+        for (RecipeSummary summary : current) {
+            next.add(copy(summary, summary.getTitle()));
+        }
+        measure(current, next);
+    }
+
+    /**
+     * A sync that edited 1% of the titles, added ten recipes and removed ten.
+     */
+    @Test
+    public void onePercentChanged() {
+        Random random = new Random(CATALOG_SEED);
+        List<RecipeSummary> next = new ArrayList<>(current);
+        for (int i = 0; i < CATALOG_SIZE / 100; i++) {
+            int index = random.nextInt(next.size());
+            RecipeSummary summary = next.get(index);
+            next.set(index, copy(summary, summary.getTitle() + " (editada)"));
+        }
+        for (int i = 0; i < 10; i++) {
+            next.remove(random.nextInt(next.size()));
+            RecipeSummary template = current.get(random.nextInt(current.size()));
+            next.add(random.nextInt(next.size()), new RecipeSummary("added_" + i, template.getTitle(),
+                    template.getCalories(), template.getThumbnailUrl(), template.getFacets(),
+                    template.getIngredientCount(), template.getStepCount()));
+        }
+        measure(current, next);
+    }
+
+    /**
+     * Switching the sort order: every row moves, the worst case for the diff.
+     */
+    @Test
+    public void reordered() {
+        List<RecipeSummary> next = new ArrayList<>(current);
+        Collections.sort(next, new Comparator<RecipeSummary>() {
+            @Override
+            public int compare(RecipeSummary a, RecipeSummary b) {
+                return Integer.compare(a.getCalories(), b.getCalories());
+            }
+        });
+        measure(current, next);
+    }
+
+    private void measure(List<RecipeSummary> oldList, List<RecipeSummary> newList) {
+        ListCallback callback = new ListCallback(oldList, newList, new RecipeDiffCallback());
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            DiffUtil.calculateDiff(callback);
+        }
+    }
+
+    private static RecipeSummary copy(RecipeSummary summary, String title) {
+        return new RecipeSummary(summary.getId(), title, summary.getCalories(),
+                summary.getThumbnailUrl(), summary.getFacets(), summary.getIngredientCount(),
+                summary.getStepCount());
+    }
+
+    /**
+     * The seed catalog, copied from utils/recipes.json into the test assets.
+     */
+    private static String readSeedCatalog() throws Exception {
+        try (InputStream in = InstrumentationRegistry.getInstrumentation().getContext().getAssets().open("recipes.json")) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Same adaptation of an ItemCallback to two lists as AsyncListDiffer's.
+     */
+    private static final class ListCallback extends DiffUtil.Callback {
+        private final List<RecipeSummary> oldList;
+        private final List<RecipeSummary> newList;
+        private final DiffUtil.ItemCallback<RecipeSummary> itemCallback;
+
+        ListCallback(List<RecipeSummary> oldList, List<RecipeSummary> newList,
+                     DiffUtil.ItemCallback<RecipeSummary> itemCallback) {
+            this.oldList = oldList;
+            this.newList = newList;
+            this.itemCallback = itemCallback;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldList.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newList.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return itemCallback.areItemsTheSame(oldList.get(oldItemPosition), newList.get(newItemPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return itemCallback.areContentsTheSame(oldList.get(oldItemPosition), newList.get(newItemPosition));
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            return itemCallback.getChangePayload(oldList.get(oldItemPosition), newList.get(newItemPosition));
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package myrecipes.app;
+
+import android.content.Context;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import myrecipes.app.datasources.FirebaseFavouriteDataSource;
+import myrecipes.app.datasources.FirebaseRecipeDataSource;
+import myrecipes.app.datasources.FirebaseUserDataSource;
+import myrecipes.app.generator.CatalogGenerator;
+import myrecipes.app.generator.SeedCatalog;
+import myrecipes.app.models.FavouritePage;
+import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.parsers.JsonWriter;
+import myrecipes.app.repositories.CatalogStore;
+import myrecipes.app.repositories.DashboardRepository;
+import myrecipes.app.repositories.FavouriteRepository;
+import myrecipes.app.repositories.FavouriteStore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Read budgets of the screens' flows, run against the Firebase Database and Auth emulators.
+ * The emulator is seeded with a synthetic catalog; the repositories run on the real Firebase
+ * data sources, which report every snapshot they read to a {@link FlowMeter}, and each test
+ * fails when its flow reads more than its budget. The budgets come from the seeded data, the
+ * costs from the snapshots the client returned. The database disk cache stays on as in the
+ * app, and reads it answered while the client was held offline are counted apart from the
+ * downloads. The cost of every flow is logged with the FlowMeter tag.
+ *
+ * Start the emulators with "firebase emulators:start --only database,auth" and run with
+ * -Pandroid.testInstrumentationRunnerArguments.firebaseEmulator=10.0.2.2
+ * The tests are skipped without that argument.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RepositoryReadBudgetTest {
+    private static final int CATALOG_SIZE = 2000;
+    private static final long CATALOG_SEED = 42;
+    private static final int FAVOURITES = 30;
+    private static final int PAGE_SIZE = 20;
+    private static final int EDITED_RECIPES = 5;
+    private static final long TIMEOUT_SECONDS = 60;
+    // Allowance for the small nodes every flow reads (version, ranking, favourite keys)
+    private static final long SMALL_READ_BYTES = 4096;
+
+    private static FirebaseApp seedApp;
+    private static DatabaseReference seedRoot;
+    private static String userId;
+    private static long catalogVersion;
+    private static List<String> recipeIds;
+    // Recipe ID -> compact JSON size of the recipe node, updated when a test edits recipes
+    private static final Map<String, Integer> recipeBytes = new ConcurrentHashMap<>();
+    private static final Map<String, String> hashes = new ConcurrentHashMap<>();
+
+    private final FlowMeter meter = new FlowMeter();
+    private DashboardRepository dashboardRepository;
+    private FavouriteRepository favouriteRepository;
+
+    /**
+     * Seeds the catalog and the favourites of a test user, through a separate client so the
+     * app's database cache starts without them.
+     */
+    @BeforeClass
+    public static void seedEmulator() throws Exception {
+        String host = InstrumentationRegistry.getArguments().getString(EmulatorTestRunner.ARG_EMULATOR_HOST);
+        Assume.assumeTrue("Firebase emulator host not given", host != null);
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        userId = Tasks.await(FirebaseAuth.getInstance().signInAnonymously(), TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .getUser().getUid();
+
+        seedApp = FirebaseApp.initializeApp(context, FirebaseApp.getInstance().getOptions(), "emulator-seed");
+        FirebaseDatabase seedDatabase = FirebaseDatabase.getInstance(seedApp);
+        seedDatabase.useEmulator(host, EmulatorTestRunner.DATABASE_PORT);
+        seedRoot = seedDatabase.getReference();
+
+        CatalogGenerator generator = new CatalogGenerator(SeedCatalog.learn(readSeedCatalog()), CATALOG_SEED);
+        Map<String, Map<String, Object>> recipes = generator.recipes(CATALOG_SIZE);
+        for (Map.Entry<String, Map<String, Object>> recipe : recipes.entrySet()) {
+            track(recipe.getKey(), recipe.getValue());
+        }
+        recipeIds = new ArrayList<>(recipes.keySet());
+        Collections.sort(recipeIds, CatalogStore.KEY_ORDER);
+        catalogVersion = 1;
+
+        Map<String, Object> favourites = new HashMap<>();
+        for (int i = 0; i < FAVOURITES; i++) {
+            favourites.put(recipeIds.get(i * (CATALOG_SIZE / FAVOURITES)), Boolean.TRUE);
+        }
+        Map<String, Object> root = new HashMap<>();
+        root.put("recipes", recipes);
+        root.put("catalog_meta", catalogMeta());
+        root.put("userFavorites", Collections.singletonMap(userId, favourites));
+        Tasks.await(seedRoot.setValue(root), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (seedApp != null) {
+            seedApp.delete();
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        FirebaseDatabase database = FirebaseDatabase.getInstance();
+        FirebaseRecipeDataSource recipes = new FirebaseRecipeDataSource(database, CatalogStore.getExecutor(), meter);
+        dashboardRepository = new DashboardRepository(recipes, CatalogStore.getInstance());
+        // A store of its own, so every test attaches and pays for the favourites listener
+        FavouriteStore store = new FavouriteStore(database, meter);
+        favouriteRepository = new FavouriteRepository(
+                new FirebaseFavouriteDataSource(database, store, meter),
+                recipes,
+                new FirebaseUserDataSource(FirebaseAuth.getInstance(), FirebaseFirestore.getInstance()),
+                CatalogStore.getInstance());
+        // Every test starts from a device that never synced the catalog
+        CatalogStore.getInstance().replaceAll(CatalogStore.NO_VERSION,
+                Collections.<String, String>emptyMap(), Collections.<RecipeSummary>emptyList());
+    }
+
+    @Test
+    public void dashboardColdStartDownloadsTheCatalogOnce() throws Exception {
+        meter.reset();
+        assertEquals(CATALOG_SIZE, loadDashboard().size());
+        // catalog_meta version and hashes, the recipes node and the ranking
+        meter.cost("dashboard, cold start").assertWithin(4, catalogBytes() + hashesBytes() + SMALL_READ_BYTES, 1);
+    }
+
+    @Test
+    public void dashboardWithCurrentCatalogReadsOnlyTheVersion() throws Exception {
+        loadDashboard();
+        meter.reset();
+        assertEquals(CATALOG_SIZE, loadDashboard().size());
+        meter.cost("dashboard, catalog current").assertWithin(2, SMALL_READ_BYTES, 1);
+    }
+
+    @Test
+    public void dashboardAfterAnEditReadsOnlyTheChangedRecipes() throws Exception {
+        loadDashboard();
+        long changedBytes = editRecipes(EDITED_RECIPES);
+        meter.reset();
+        assertEquals(CATALOG_SIZE, loadDashboard().size());
+        meter.cost("dashboard, " + EDITED_RECIPES + " recipes changed")
+                .assertWithin(3 + EDITED_RECIPES, hashesBytes() + changedBytes + SMALL_READ_BYTES, 1);
+    }
+
+    @Test
+    public void detailFromTheDashboardDownloadsNothing() throws Exception {
+        String recipeId = loadDashboard().get(CATALOG_SIZE / 2).getId();
+        meter.reset();
+        // The dashboard's download of the recipes node filled the disk cache; offline, the
+        // detail can only open if it is answered from there
+        FirebaseDatabase database = FirebaseDatabase.getInstance();
+        meter.offline(database, true);
+        try {
+            Captured<Recipe> recipe = new Captured<>();
+            dashboardRepository.getSingleRecipe(recipeId, recipe);
+            assertEquals(recipeId, recipe.await().getId());
+        } finally {
+            meter.offline(database, false);
+        }
+        FlowMeter.Cost cost = meter.cost("detail from dashboard");
+        cost.assertWithin(0, 0, 1);
+        // Its own node and nothing else
+        cost.assertCacheWithin(1, recipeBytes.get(recipeId));
+    }
+
+    @Test
+    public void randomRecipeIsOneRead() throws Exception {
+        meter.reset();
+        Captured<Recipe> recipe = new Captured<>();
+        dashboardRepository.getRandomRecipe(recipe);
+        assertNotNull(recipe.await());
+        // One read, but of the whole recipes node: the pick happens on the client
+        meter.cost("random recipe").assertWithin(1, catalogBytes(), 1);
+    }
+
+    @Test
+    public void favouritesPageResolvesRecipesFromTheStoredCatalog() throws Exception {
+        loadDashboard();
+        meter.reset();
+        FavouritePage page = loadFavouritesPage();
+        assertEquals(PAGE_SIZE, page.getRecipes().size());
+        observeStatuses(page);
+        // The favourite keys; the recipes come from the catalog store and the statuses share
+        // one listener, which delivers one event per favourite of the user
+        meter.cost("favourites, catalog stored").assertWithin(1 + FAVOURITES, SMALL_READ_BYTES, 1);
+    }
+
+    @Test
+    public void favouritesPageWithoutCatalogReadsOnlyItsRecipes() throws Exception {
+        meter.reset();
+        FavouritePage page = loadFavouritesPage();
+        assertEquals(PAGE_SIZE, page.getRecipes().size());
+        long pageBytes = 0;
+        for (RecipeSummary summary : page.getRecipes()) {
+            pageBytes += recipeBytes.get(summary.getId());
+        }
+        meter.cost("favourites, no catalog").assertWithin(1 + PAGE_SIZE, pageBytes + SMALL_READ_BYTES, 0);
+    }
+
+    /**
+     * What the dashboard screen loads: the summaries and the popularity ranking.
+     */
+    private List<RecipeSummary> loadDashboard() throws Exception {
+        Captured<List<RecipeSummary>> summaries = new Captured<>();
+        Captured<Map<String, Integer>> popularity = new Captured<>();
+        dashboardRepository.getRecipeSummaries(summaries);
+        dashboardRepository.getPopularRecipes(popularity);
+        popularity.await();
+        return summaries.await();
+    }
+
+    private FavouritePage loadFavouritesPage() throws Exception {
+        Captured<FavouritePage> page = new Captured<>();
+        favouriteRepository.getFavouritesPage(null, PAGE_SIZE, page);
+        FavouritePage loaded = page.await();
+        assertNotNull("Favourites page failed to load", loaded);
+        return loaded;
+    }
+
+    /**
+     * Observes the status of every recipe of a page, like the favourites list rows do,
+     * and waits until the listener delivered all of them.
+     */
+    private void observeStatuses(FavouritePage page) throws Exception {
+        CountDownLatch known = new CountDownLatch(page.getRecipes().size());
+        List<LiveData<Boolean>> statuses = new ArrayList<>();
+        Observer<Boolean> observer = status -> {
+            if (status != null) {
+                known.countDown();
+            }
+        };
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            for (RecipeSummary summary : page.getRecipes()) {
+                LiveData<Boolean> status = favouriteRepository.observeFavorite(summary.getId());
+                statuses.add(status);
+                status.observeForever(observer);
+            }
+        });
+        try {
+            if (!known.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new AssertionError("Favourite statuses not delivered within " + TIMEOUT_SECONDS + " s");
+            }
+        } finally {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+                for (LiveData<Boolean> status : statuses) {
+                    status.removeObserver(observer);
+                }
+            });
+        }
+    }
+
+    /**
+     * Changes the title of some recipes and publishes them as a new catalog version,
+     * as the catalog tooling would.
+     *
+     * @return JSON size of the changed recipes
+     */
+    @SuppressWarnings("unchecked")
+    private static long editRecipes(int count) throws Exception {
+        catalogVersion++;
+        Map<String, Object> updates = new HashMap<>();
+        long size = 0;
+        for (int i = 0; i < count; i++) {
+            String id = recipeIds.get(i * 7 + 1);
+            Map<String, Object> recipe = (Map<String, Object>) Tasks.await(
+                    seedRoot.child("recipes").child(id).get(), TIMEOUT_SECONDS, TimeUnit.SECONDS).getValue();
+            recipe.put("title", recipe.get("title") + " v" + catalogVersion);
+            track(id, recipe);
+            updates.put("recipes/" + id, recipe);
+            updates.put("catalog_meta/hashes/" + id, hashes.get(id));
+            size += recipeBytes.get(id);
+        }
+        updates.put("catalog_meta/version", catalogVersion);
+        Tasks.await(seedRoot.updateChildren(updates), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        return size;
+    }
+
+    private static void track(String id, Map<String, Object> recipe) {
+        recipeBytes.put(id, JsonWriter.write(recipe, false).getBytes(StandardCharsets.UTF_8).length);
+        hashes.put(id, JsonWriter.hash(recipe));
+    }
+
+    private static Map<String, Object> catalogMeta() {
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("version", catalogVersion);
+        meta.put("hashes", new HashMap<>(hashes));
+        return meta;
+    }
+
+    /**
+     * Compact JSON size of the recipes node: the braces, and per recipe its quoted key,
+     * the colon, the recipe and a separating comma.
+     */
+    private static long catalogBytes() {
+        long size = 2 + Math.max(0, recipeBytes.size() - 1);
+        for (Map.Entry<String, Integer> recipe : recipeBytes.entrySet()) {
+            size += recipe.getKey().length() + 3 + recipe.getValue();
+        }
+        return size;
+    }
+
+    private static long hashesBytes() {
+        return JsonWriter.write(new HashMap<>(hashes), false).length();
+    }
+
+    /**
+     * The seed catalog, copied from utils/recipes.json into the test assets.
+     */
+    private static String readSeedCatalog() throws Exception {
+        try (InputStream in = InstrumentationRegistry.getInstrumentation().getContext().getAssets().open("recipes.json")) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * LiveData the repositories post to, holding on to the first value for the test thread.
+     */
+    private static final class Captured<T> extends MutableLiveData<T> {
+        private final CountDownLatch posted = new CountDownLatch(1);
+        private volatile T first;
+
+        @Override
+        public void postValue(T value) {
+            if (posted.getCount() > 0) {
+                first = value;
+                posted.countDown();
+            }
+            super.postValue(value);
+        }
+
+        T await() throws InterruptedException {
+            if (!posted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new AssertionError("No value posted within " + TIMEOUT_SECONDS + " s");
+            }
+            return first;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Application class, created before any activity.
+ * Starts the initialization of the app's components in the background, so the first
+ * screen doesn't pay for Firebase and Glide setup on the main thread.
+ */
+package myrecipes.app;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.ProcessLifecycleOwner;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import myrecipes.app.repositories.CatalogIndexCache;
+import myrecipes.app.repositories.CatalogStore;
+import myrecipes.app.repositories.CatalogSyncEngine;
+import myrecipes.app.repositories.FavouriteJournal;
+import myrecipes.app.repositories.FavouriteStore;
+import myrecipes.app.startup.AppComponents;
+import myrecipes.app.startup.StartupOrchestrator;
+
+public class RecipesApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Only set the file locations; the files are read by the startup components
+        CatalogStore.init(this);
+        CatalogIndexCache.init(this);
+        FavouriteJournal.init(this);
+        StartupOrchestrator orchestrator = StartupOrchestrator.start(this, AppComponents.all());
+        registerActivityLifecycleCallbacks(new FirstFrameCallbacks(orchestrator));
+        ProcessLifecycleOwner.get().getLifecycle().addObserver(new ForegroundSync(orchestrator));
+    }
+
+    /**
+     * Keeps the catalog live while any activity is visible, and stops listening in the background,
+     * where the catalog changes not written to disk yet are saved.
+     * Coming to the foreground also resumes the favourite writes of the signed in user.
+     */
+    private static final class ForegroundSync implements DefaultLifecycleObserver {
+        private final StartupOrchestrator orchestrator;
+
+        ForegroundSync(StartupOrchestrator orchestrator) {
+            this.orchestrator = orchestrator;
+        }
+
+        @Override
+        public void onStart(@NonNull LifecycleOwner owner) {
+            // The sync needs the database disk cache, enabled by the database component
+            orchestrator.whenReady(AppComponents.DATABASE, () -> {
+                if (ProcessLifecycleOwner.get().getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) {
+                    CatalogSyncEngine.getInstance().start();
+                }
+                // Queues the favourite changes a previous process left in the journal
+                FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+                if (user != null) {
+                    FavouriteStore.getInstance().setUser(user.getUid());
+                }
+            });
+        }
+
+        @Override
+        public void onStop(@NonNull LifecycleOwner owner) {
+            CatalogSyncEngine.getInstance().stop();
+            // The process may be stopped in the background before a delayed save would run
+            CatalogStore.getExecutor().execute(() -> CatalogStore.getInstance().flush());
+        }
+    }
+
+    /**
+     * Starts the deferred components right after the first activity drew its first frame.
+     */
+    private final class FirstFrameCallbacks implements ActivityLifecycleCallbacks {
+        private final StartupOrchestrator orchestrator;
+
+        FirstFrameCallbacks(StartupOrchestrator orchestrator) {
+            this.orchestrator = orchestrator;
+        }
+
+        @Override
+        public void onActivityResumed(@NonNull Activity activity) {
+            unregisterActivityLifecycleCallbacks(this);
+            // The frame callback runs while the first frame is produced; posting from it
+            // runs the work once that frame is done
+            Handler handler = new Handler(Looper.getMainLooper());
+            Choreographer.getInstance().postFrameCallback(
+                    frameTimeNanos -> handler.post(orchestrator::startDeferred));
+        }
+
+        @Override
+        public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(@NonNull Activity activity) {
+        }
+    }
+}
@@ -1,48 +1,99 @@
 package myrecipes.app.adapters;
 
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
 import myrecipes.app.R;
-import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.utils.ImageVariants;
+import myrecipes.app.utils.RecipesGlideModule;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * This adapter class handles the display of Recipe items in a RecyclerView.
+ * This adapter class handles the display of RecipeSummary items in a RecyclerView.
  * It follows the Adapter pattern to efficiently recycle and reuse views as the user scrolls.
+ * List updates are diffed on a background thread by {@link RecipeDiffCallback},
+ * so only the rows that actually changed are re-bound.
+ * The adapter is also the model provider for thumbnail preloading: preload and bind requests
+ * are built by the same method, so preloaded thumbnails hit Glide's memory cache.
  */
 
-public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeViewHolder> {
-    // List of recipes to display
-    private List<Recipe> recipes;
+public class RecipeAdapter extends ListAdapter<RecipeSummary, RecipeAdapter.RecipeViewHolder>
+        implements ListPreloader.PreloadModelProvider<RecipeSummary> {
     // Interface for handling recipe click events
-    private OnRecipeClickListener clickListener;
+    private final OnRecipeClickListener clickListener;
+    // Glide request manager tied to the hosting fragment's lifecycle
+    private final RequestManager glide;
+    private final ImageVariants imageVariants;
+    // Thumbnail size in pixels, used both to bind and to preload
+    private final int thumbnailSizePx;
+    // Stable numeric IDs assigned to recipe keys, kept for the adapter's lifetime
+    private final Map<String, Long> stableIds = new HashMap<>();
 
     /**
      * Interface definition for recipe click callbacks.
      * Activities/Fragments can implement this to handle recipe selection.
      */
     public interface OnRecipeClickListener {
-        void onRecipeClick(Recipe recipe);
+        void onRecipeClick(RecipeSummary recipe);
     }
 
     /**
      * Constructor for the adapter.
+     * The list itself is supplied later through {@link #submitList(List)}.
      *
-     * @param recipes Initial list of recipes to display
+     * @param fragment Fragment hosting the list; image loads follow its lifecycle
      * @param listener Callback for recipe click events
      */
-    public RecipeAdapter(List<Recipe> recipes, OnRecipeClickListener listener) {
-        this.recipes = recipes;
+    public RecipeAdapter(Fragment fragment, OnRecipeClickListener listener) {
+        // AsyncDifferConfig runs the diff on a background executor by default
+        super(new AsyncDifferConfig.Builder<>(new RecipeDiffCallback()).build());
         this.clickListener = listener;
+        this.glide = Glide.with(fragment);
+        this.imageVariants = ImageVariants.getInstance(fragment.requireContext());
+        this.thumbnailSizePx = fragment.getResources()
+                .getDimensionPixelSize(R.dimen.recipe_thumbnail_size);
+        setHasStableIds(true);
+    }
+
+    /**
+     * Creates a scroll listener that loads the thumbnails of the rows about to appear.
+     * Glide's preloader follows the scroll direction, decodes at exactly the bound size,
+     * and reuses a fixed pool of targets, so preloads that fall behind during a fling are cancelled.
+     *
+     * @param maxPreload Number of rows to preload ahead, typically one screenful
+     * @return The listener to add to the RecyclerView
+     */
+    public RecyclerViewPreloader<RecipeSummary> createPreloader(int maxPreload) {
+        return new RecyclerViewPreloader<>(glide, this,
+                new FixedPreloadSizeProvider<>(thumbnailSizePx, thumbnailSizePx), maxPreload);
+    }
+
+    public int getThumbnailSizePx() {
+        return thumbnailSizePx;
     }
 
     /**
      * Creates new ViewHolder instances when needed by the RecyclerView.
-     * This is called when RecyclerView needs a new ViewHolder to represent an item.
+     * The click listener is attached once here instead of on every bind.
      *
      * @param parent The ViewGroup into which the new View will be added
      * @param viewType The view type of the new View (not used in this implementation)
@@ -54,7 +105,16 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
         // Inflate the layout for a recipe item
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_recipe, parent, false);
-        return new RecipeViewHolder(view);
+        RecipeViewHolder holder = new RecipeViewHolder(view);
+
+        // Resolve the recipe at click time so recycled holders always report the right item
+        holder.itemView.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (clickListener != null && position != RecyclerView.NO_POSITION) {
+                clickListener.onRecipeClick(getItem(position));
+            }
+        });
+        return holder;
     }
 
     /**
@@ -66,26 +126,105 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
      */
     @Override
     public void onBindViewHolder(@NonNull RecipeViewHolder holder, int position) {
-        Recipe recipe = recipes.get(position);
+        RecipeSummary recipe = getItem(position);
         // Set the recipe title
         holder.titleTextView.setText(recipe.getTitle());
+        bindThumbnail(holder, recipe);
+    }
 
-        // Set up click listener for the entire item view
-        holder.itemView.setOnClickListener(v -> {
-            if (clickListener != null) {
-                clickListener.onRecipeClick(recipe);
-            }
-        });
+    /**
+     * Partial bind used when the diff reported a payload.
+     * Only the views named by the payloads are updated; an empty payload list means a full bind.
+     *
+     * @param holder The ViewHolder to update
+     * @param position The position of the item in the data set
+     * @param payloads Payloads produced by {@link RecipeDiffCallback#getChangePayload}
+     */
+    @Override
+    public void onBindViewHolder(@NonNull RecipeViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        RecipeSummary recipe = getItem(position);
+        if (payloads.contains(RecipeDiffCallback.PAYLOAD_TITLE)) {
+            holder.titleTextView.setText(recipe.getTitle());
+        }
+        if (payloads.contains(RecipeDiffCallback.PAYLOAD_THUMBNAIL)) {
+            bindThumbnail(holder, recipe);
+        }
+    }
+
+    /**
+     * Cancels the thumbnail request of a row that scrolled off screen.
+     */
+    @Override
+    public void onViewRecycled(@NonNull RecipeViewHolder holder) {
+        super.onViewRecycled(holder);
+        glide.clear(holder.thumbnailImageView);
+    }
+
+    private void bindThumbnail(RecipeViewHolder holder, RecipeSummary recipe) {
+        RequestBuilder<Drawable> request = thumbnailRequest(recipe);
+        if (request != null) {
+            request.into(holder.thumbnailImageView);
+        } else {
+            glide.clear(holder.thumbnailImageView);
+            holder.thumbnailImageView.setImageDrawable(null);
+        }
+    }
+
+    /**
+     * Builds the thumbnail request of a recipe. Used for both binding and preloading,
+     * so both produce the same cache key.
+     */
+    @Nullable
+    private RequestBuilder<Drawable> thumbnailRequest(RecipeSummary recipe) {
+        if (recipe.getThumbnailUrl() == null) {
+            return null;
+        }
+        return glide.load(imageVariants.urlFor(recipe.getThumbnailUrl(), thumbnailSizePx))
+                .apply(RecipesGlideModule.thumbnailOptions())
+                .override(thumbnailSizePx)
+                .centerCrop();
     }
 
     /**
-     * Returns the total number of items in the data set.
+     * Items to preload for an adapter position: the recipe shown at that position.
+     */
+    @NonNull
+    @Override
+    public List<RecipeSummary> getPreloadItems(int position) {
+        if (position < 0 || position >= getItemCount()) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(getItem(position));
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull RecipeSummary item) {
+        return thumbnailRequest(item);
+    }
+
+    /**
+     * Returns a stable ID for the recipe at the given position.
+     * Each Firebase key is mapped to a sequential number the first time it is seen,
+     * which avoids the collisions a plain String hash could produce.
      *
-     * @return The total number of recipes
+     * @param position The position of the item in the data set
+     * @return The stable ID of the recipe
      */
     @Override
-    public int getItemCount() {
-        return recipes.size();
+    public long getItemId(int position) {
+        String recipeId = getItem(position).getId();
+        Long stableId = stableIds.get(recipeId);
+        if (stableId == null) {
+            stableId = (long) stableIds.size();
+            stableIds.put(recipeId, stableId);
+        }
+        return stableId;
     }
 
     /**
@@ -94,22 +233,13 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
      */
     static class RecipeViewHolder extends RecyclerView.ViewHolder {
         TextView titleTextView;
+        ImageView thumbnailImageView;
 
         RecipeViewHolder(@NonNull View itemView) {
             super(itemView);
             // Cache references to views
             titleTextView = itemView.findViewById(R.id.recipeTitleTextView);
+            thumbnailImageView = itemView.findViewById(R.id.recipeThumbnailImageView);
         }
     }
-
-    /**
-     * Updates the recipe list and refreshes the display.
-     * Note: In a production app, you might want to use DiffUtil for more efficient updates.
-     *
-     * @param newRecipes New list of recipes to display
-     */
-    public void updateRecipes(List<Recipe> newRecipes) {
-        this.recipes = newRecipes;
-        notifyDataSetChanged();
-    }
-}
\ No newline at end of file
+}
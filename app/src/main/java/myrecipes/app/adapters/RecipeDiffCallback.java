@@ -0,0 +1,53 @@
+package myrecipes.app.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import java.util.Objects;
+import myrecipes.app.models.RecipeSummary;
+
+/**
+ * DiffUtil callback used by {@link RecipeAdapter} to compute list updates.
+ * Items are matched by their Firebase key, so a recipe whose fields change
+ * keeps its row (and its position/animations) instead of being re-created.
+ */
+public class RecipeDiffCallback extends DiffUtil.ItemCallback<RecipeSummary> {
+    // Payload sent when only the visible title of a row changed
+    public static final String PAYLOAD_TITLE = "payload_title";
+    // Payload sent when the row thumbnail changed
+    public static final String PAYLOAD_THUMBNAIL = "payload_thumbnail";
+
+    /**
+     * Two items represent the same recipe when they share the same ID.
+     */
+    @Override
+    public boolean areItemsTheSame(@NonNull RecipeSummary oldItem, @NonNull RecipeSummary newItem) {
+        return Objects.equals(oldItem.getId(), newItem.getId());
+    }
+
+    /**
+     * Compares only the fields shown in a list row.
+     * Other summary fields don't require re-binding the row.
+     */
+    @Override
+    public boolean areContentsTheSame(@NonNull RecipeSummary oldItem, @NonNull RecipeSummary newItem) {
+        return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                && Objects.equals(oldItem.getThumbnailUrl(), newItem.getThumbnailUrl());
+    }
+
+    /**
+     * Returns a payload describing what changed so the adapter can do a partial bind
+     * instead of re-binding the whole row.
+     */
+    @Nullable
+    @Override
+    public Object getChangePayload(@NonNull RecipeSummary oldItem, @NonNull RecipeSummary newItem) {
+        boolean titleChanged = !Objects.equals(oldItem.getTitle(), newItem.getTitle());
+        boolean thumbnailChanged = !Objects.equals(oldItem.getThumbnailUrl(), newItem.getThumbnailUrl());
+        if (titleChanged && thumbnailChanged) {
+            // Both views change, a full bind is as cheap
+            return null;
+        }
+        return titleChanged ? PAYLOAD_TITLE : thumbnailChanged ? PAYLOAD_THUMBNAIL : null;
+    }
+}
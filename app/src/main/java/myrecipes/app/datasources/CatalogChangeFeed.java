@@ -0,0 +1,22 @@
+package myrecipes.app.datasources;
+
+import myrecipes.app.models.CatalogChangeSet;
+
+/**
+ * Catalog changes made while a screen shows the catalog, so it can patch its list and index
+ * instead of loading the catalog again.
+ * In the app it is the {@link myrecipes.app.repositories.CatalogSyncEngine}, which follows the
+ * published catalog version while the app is in the foreground.
+ */
+public interface CatalogChangeFeed {
+    /**
+     * Receives the catalog changes, on the main thread.
+     */
+    interface Listener {
+        void onCatalogChanged(CatalogChangeSet changes);
+    }
+
+    void addListener(Listener listener);
+
+    void removeListener(Listener listener);
+}
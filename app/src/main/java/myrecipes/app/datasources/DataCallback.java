@@ -0,0 +1,12 @@
+package myrecipes.app.datasources;
+
+/**
+ * Result of an asynchronous data source call.
+ * Exactly one of the methods is called, on any thread: the repositories move the result
+ * to their own executor or post it to LiveData, so implementations don't need the main thread.
+ */
+public interface DataCallback<T> {
+    void onSuccess(T result);
+
+    void onFailure(Exception e);
+}
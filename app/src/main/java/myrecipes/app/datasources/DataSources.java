@@ -0,0 +1,87 @@
+package myrecipes.app.datasources;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.firestore.FirebaseFirestore;
+import myrecipes.app.repositories.CatalogIndexCache;
+import myrecipes.app.repositories.CatalogStore;
+import myrecipes.app.repositories.CatalogSyncEngine;
+
+/**
+ * The data sources the repositories are built with, the local catalog store they cache the
+ * catalog in, and what the dashboard keeps next to it: the sort permutation cache and the
+ * feed of live catalog changes.
+ * The app uses the Firebase ones, the file-backed store and cache and the live sync, created
+ * on first use; tests and benchmarks install other implementations with {@link #install}
+ * before any ViewModel is created, e.g. the in-memory ones with {@link CatalogStore#inMemory()},
+ * {@link CatalogIndexCache#inMemory()} and an {@link InMemoryCatalogChangeFeed}.
+ */
+public final class DataSources {
+    private static volatile DataSources instance;
+
+    private final RecipeDataSource recipes;
+    private final FavouriteDataSource favourites;
+    private final UserDataSource users;
+    private final CatalogStore catalog;
+    private final CatalogIndexCache indexCache;
+    private final CatalogChangeFeed changeFeed;
+
+    public DataSources(RecipeDataSource recipes, FavouriteDataSource favourites, UserDataSource users,
+                       CatalogStore catalog, CatalogIndexCache indexCache, CatalogChangeFeed changeFeed) {
+        this.recipes = recipes;
+        this.favourites = favourites;
+        this.users = users;
+        this.catalog = catalog;
+        this.indexCache = indexCache;
+        this.changeFeed = changeFeed;
+    }
+
+    public static DataSources get() {
+        if (instance == null) {
+            synchronized (DataSources.class) {
+                if (instance == null) {
+                    FirebaseDatabase database = FirebaseDatabase.getInstance();
+                    instance = new DataSources(
+                            new FirebaseRecipeDataSource(database, CatalogStore.getExecutor()),
+                            new FirebaseFavouriteDataSource(database),
+                            new FirebaseUserDataSource(FirebaseAuth.getInstance(), FirebaseFirestore.getInstance()),
+                            CatalogStore.getInstance(),
+                            CatalogIndexCache.getInstance(),
+                            CatalogSyncEngine.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Replaces the data sources used from now on.
+     */
+    public static void install(DataSources dataSources) {
+        instance = dataSources;
+    }
+
+    public RecipeDataSource getRecipes() {
+        return recipes;
+    }
+
+    public FavouriteDataSource getFavourites() {
+        return favourites;
+    }
+
+    public UserDataSource getUsers() {
+        return users;
+    }
+
+    public CatalogStore getCatalog() {
+        return catalog;
+    }
+
+    public CatalogIndexCache getIndexCache() {
+        return indexCache;
+    }
+
+    public CatalogChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+}
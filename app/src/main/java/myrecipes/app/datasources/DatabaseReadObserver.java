@@ -0,0 +1,34 @@
+package myrecipes.app.datasources;
+
+import com.google.firebase.database.DataSnapshot;
+
+/**
+ * Told about every read the Firebase data sources make, at the database layer: one call per
+ * get() result and per event delivered to a listener, with the snapshot the client returned.
+ * The read budget tests use it to measure what the flows really download; the app uses
+ * {@link #NONE}. Called on the thread the Firebase client delivers on.
+ */
+public interface DatabaseReadObserver {
+    DatabaseReadObserver NONE = new DatabaseReadObserver() {
+        @Override
+        public void onRead(String path, DataSnapshot snapshot) {
+        }
+
+        @Override
+        public void onListenerAttached(String path) {
+        }
+    };
+
+    /**
+     * A get() completed or a listener received an event.
+     *
+     * @param path Path the read was made on, relative to the database root
+     * @param snapshot What the client delivered; for child events, only the child
+     */
+    void onRead(String path, DataSnapshot snapshot);
+
+    /**
+     * A value or child listener was attached, which keeps a query open on the server.
+     */
+    void onListenerAttached(String path);
+}
@@ -0,0 +1,47 @@
+package myrecipes.app.datasources;
+
+import androidx.lifecycle.LiveData;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * Favourites of each user, independent of where they are stored.
+ * Status reads and toggles are synchronous and must be made on the main thread,
+ * like the {@link myrecipes.app.repositories.FavouriteStore} the Firebase implementation uses.
+ */
+public interface FavouriteDataSource {
+    /**
+     * Favourite keys of a user in key order, starting after a key.
+     *
+     * @param userId User whose favourites are read
+     * @param afterKey Key to start after, or null to start at the first one
+     * @param limit Maximum number of keys
+     * @param callback Receives recipe ID -> stored status, in key order
+     */
+    void getFavouriteKeys(String userId, String afterKey, int limit,
+                          DataCallback<LinkedHashMap<String, Boolean>> callback);
+
+    void setFavourite(String userId, String recipeId, boolean favourite);
+
+    /**
+     * Status of a recipe, null until it is known, updated on every change.
+     */
+    LiveData<Boolean> observe(String userId, String recipeId);
+
+    /**
+     * Current status of a recipe, without waiting for a read.
+     */
+    boolean isFavourite(String userId, String recipeId);
+
+    /**
+     * Recipes the user toggled whose change the stored favourites don't reflect yet, so a page
+     * of keys read now may disagree with {@link #isFavourite} for them. Empty when every
+     * toggle is stored.
+     */
+    Set<String> getUnconfirmed(String userId);
+
+    /**
+     * Number that changes whenever the favourites change, to tell if a loaded list is outdated.
+     */
+    int getRevision();
+}
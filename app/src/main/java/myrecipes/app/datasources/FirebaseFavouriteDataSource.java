@@ -0,0 +1,83 @@
+package myrecipes.app.datasources;
+
+import androidx.lifecycle.LiveData;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import myrecipes.app.repositories.FavouriteStore;
+
+/**
+ * Favourites in the Firebase Realtime Database under userFavorites/{uid}.
+ * Pages are read with get(), so they reflect the server; status and toggles go through
+ * {@link FavouriteStore}, which keeps one listener per user and coalesces the writes.
+ * Pages are reported to the {@link DatabaseReadObserver}; the store reports its own reads.
+ */
+public class FirebaseFavouriteDataSource implements FavouriteDataSource {
+    private final DatabaseReference favouriteRef;
+    private final FavouriteStore store;
+    private final DatabaseReadObserver readObserver;
+
+    public FirebaseFavouriteDataSource(FirebaseDatabase database) {
+        this(database, FavouriteStore.getInstance(), DatabaseReadObserver.NONE);
+    }
+
+    public FirebaseFavouriteDataSource(FirebaseDatabase database, FavouriteStore store,
+                                       DatabaseReadObserver readObserver) {
+        favouriteRef = database.getReference("userFavorites");
+        this.store = store;
+        this.readObserver = readObserver;
+    }
+
+    @Override
+    public void getFavouriteKeys(String userId, String afterKey, int limit,
+                                 DataCallback<LinkedHashMap<String, Boolean>> callback) {
+        Query query = favouriteRef.child(userId).orderByKey();
+        if (afterKey != null) {
+            query = query.startAfter(afterKey);
+        }
+        query.limitToFirst(limit).get()
+                .addOnSuccessListener(snapshot -> {
+                    readObserver.onRead("userFavorites/" + userId, snapshot);
+                    LinkedHashMap<String, Boolean> keys = new LinkedHashMap<>();
+                    for (DataSnapshot favourite : snapshot.getChildren()) {
+                        keys.put(favourite.getKey(), Boolean.TRUE.equals(favourite.getValue(Boolean.class)));
+                    }
+                    callback.onSuccess(keys);
+                })
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    @Override
+    public void setFavourite(String userId, String recipeId, boolean favourite) {
+        store.setUser(userId);
+        store.setFavourite(recipeId, favourite);
+    }
+
+    @Override
+    public LiveData<Boolean> observe(String userId, String recipeId) {
+        store.setUser(userId);
+        return store.observe(recipeId);
+    }
+
+    @Override
+    public boolean isFavourite(String userId, String recipeId) {
+        store.setUser(userId);
+        return store.isFavourite(recipeId);
+    }
+
+    /**
+     * Doesn't switch the store to the user: a user the store isn't set to has no toggles.
+     */
+    @Override
+    public Set<String> getUnconfirmed(String userId) {
+        return store.getUnconfirmed(userId);
+    }
+
+    @Override
+    public int getRevision() {
+        return store.getRevision();
+    }
+}
@@ -0,0 +1,188 @@
+package myrecipes.app.datasources;
+
+import androidx.annotation.NonNull;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.repositories.RecipeSnapshotParser;
+
+/**
+ * Catalog reads from the Firebase Realtime Database.
+ * Catalog reads use get(), which asks the server first, so versions are compared with the
+ * published state; single recipes and the ranking may be answered from the disk cache.
+ * Snapshots are parsed on the given executor, never on the main thread.
+ * Every snapshot read is reported to the {@link DatabaseReadObserver} before it is parsed.
+ */
+public class FirebaseRecipeDataSource implements RecipeDataSource {
+    private static final String RECIPES = "recipes";
+    private static final String CATALOG_META = "catalog_meta";
+    private static final String POPULARITY = "popularRecipes/top";
+
+    private final DatabaseReference recipeRef;
+    // Catalog version and per-recipe hashes, maintained by the catalog tooling
+    private final DatabaseReference metaRef;
+    private final DatabaseReference popularityRef;
+    private final Executor parseExecutor;
+    private final DatabaseReadObserver readObserver;
+
+    public FirebaseRecipeDataSource(FirebaseDatabase database, Executor parseExecutor) {
+        this(database, parseExecutor, DatabaseReadObserver.NONE);
+    }
+
+    public FirebaseRecipeDataSource(FirebaseDatabase database, Executor parseExecutor,
+                                    DatabaseReadObserver readObserver) {
+        recipeRef = database.getReference(RECIPES);
+        metaRef = database.getReference(CATALOG_META);
+        popularityRef = database.getReference(POPULARITY);
+        this.parseExecutor = parseExecutor;
+        this.readObserver = readObserver;
+    }
+
+    @Override
+    public void getCatalogVersion(DataCallback<Long> callback) {
+        metaRef.child("version").get()
+                .addOnSuccessListener(snapshot -> {
+                    readObserver.onRead(CATALOG_META + "/version", snapshot);
+                    callback.onSuccess(snapshot.getValue(Long.class));
+                })
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    @Override
+    public void getCatalogHashes(DataCallback<Map<String, String>> callback) {
+        metaRef.child("hashes").get()
+                .addOnSuccessListener(parseExecutor, snapshot -> {
+                    readObserver.onRead(CATALOG_META + "/hashes", snapshot);
+                    Map<String, String> hashes = new HashMap<>();
+                    for (DataSnapshot hash : snapshot.getChildren()) {
+                        hashes.put(hash.getKey(), hash.getValue(String.class));
+                    }
+                    callback.onSuccess(hashes);
+                })
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    @Override
+    public void getAllSummaries(DataCallback<List<RecipeSummary>> callback) {
+        recipeRef.get()
+                .addOnSuccessListener(parseExecutor, snapshot -> {
+                    readObserver.onRead(RECIPES, snapshot);
+                    List<RecipeSummary> summaries = new ArrayList<>((int) snapshot.getChildrenCount());
+                    for (DataSnapshot recipeSnapshot : snapshot.getChildren()) {
+                        RecipeSummary summary = RecipeSnapshotParser.parseSummary(recipeSnapshot);
+                        if (summary != null) {
+                            summaries.add(summary);
+                        }
+                    }
+                    callback.onSuccess(summaries);
+                })
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    /**
+     * One read per recipe; the reads run in parallel over the same connection.
+     */
+    @Override
+    public void getSummaries(List<String> recipeIds, DataCallback<List<RecipeSummary>> callback) {
+        List<Task<DataSnapshot>> reads = new ArrayList<>(recipeIds.size());
+        for (String id : recipeIds) {
+            reads.add(recipeRef.child(id).get());
+        }
+        Tasks.whenAllSuccess(reads)
+                .addOnSuccessListener(parseExecutor, snapshots -> {
+                    List<RecipeSummary> summaries = new ArrayList<>(snapshots.size());
+                    for (Object snapshot : snapshots) {
+                        DataSnapshot recipeSnapshot = (DataSnapshot) snapshot;
+                        readObserver.onRead(RECIPES + "/" + recipeSnapshot.getKey(), recipeSnapshot);
+                        RecipeSummary summary = RecipeSnapshotParser.parseSummary(recipeSnapshot);
+                        if (summary != null) {
+                            summaries.add(summary);
+                        }
+                    }
+                    callback.onSuccess(summaries);
+                })
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    @Override
+    public void getRecipe(String recipeId, DataCallback<Recipe> callback) {
+        readObserver.onListenerAttached(RECIPES + "/" + recipeId);
+        recipeRef.child(recipeId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                readObserver.onRead(RECIPES + "/" + recipeId, snapshot);
+                callback.onSuccess(snapshot.exists() ? RecipeSnapshotParser.parseRecipe(snapshot) : null);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onFailure(error.toException());
+            }
+        });
+    }
+
+    @Override
+    public void getRandomRecipe(DataCallback<Recipe> callback) {
+        readObserver.onListenerAttached(RECIPES);
+        recipeRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                readObserver.onRead(RECIPES, snapshot);
+                // Pick the random child first so only one recipe is fully decoded
+                int count = (int) snapshot.getChildrenCount();
+                Recipe recipe = null;
+                if (count > 0) {
+                    int randomIndex = new Random().nextInt(count);
+                    for (DataSnapshot recipeSnapshot : snapshot.getChildren()) {
+                        if (randomIndex-- == 0) {
+                            recipe = RecipeSnapshotParser.parseRecipe(recipeSnapshot);
+                            break;
+                        }
+                    }
+                }
+                callback.onSuccess(recipe);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onFailure(error.toException());
+            }
+        });
+    }
+
+    @Override
+    public void getPopularity(DataCallback<Map<String, Integer>> callback) {
+        readObserver.onListenerAttached(POPULARITY);
+        popularityRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                readObserver.onRead(POPULARITY, snapshot);
+                Map<String, Integer> counts = new HashMap<>();
+                for (DataSnapshot entry : snapshot.getChildren()) {
+                    Integer count = entry.getValue(Integer.class);
+                    if (count != null) {
+                        counts.put(entry.getKey(), count);
+                    }
+                }
+                callback.onSuccess(counts);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onFailure(error.toException());
+            }
+        });
+    }
+}
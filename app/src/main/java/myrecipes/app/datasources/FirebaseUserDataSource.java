@@ -0,0 +1,55 @@
+package myrecipes.app.datasources;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.FirebaseFirestore;
+import java.util.Map;
+
+/**
+ * Users in Firebase Authentication, with their profiles in the Firestore users collection.
+ * Failures carry the Firebase exceptions, so callers can tell e.g. a weak password apart.
+ */
+public class FirebaseUserDataSource implements UserDataSource {
+    private final FirebaseAuth auth;
+    private final FirebaseFirestore db;
+
+    public FirebaseUserDataSource(FirebaseAuth auth, FirebaseFirestore db) {
+        this.auth = auth;
+        this.db = db;
+    }
+
+    @Override
+    public void register(String email, String password, DataCallback<String> callback) {
+        auth.createUserWithEmailAndPassword(email, password)
+                .addOnSuccessListener(result -> callback.onSuccess(uid(result.getUser())))
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    @Override
+    public void login(String email, String password, DataCallback<String> callback) {
+        auth.signInWithEmailAndPassword(email, password)
+                .addOnSuccessListener(result -> callback.onSuccess(uid(result.getUser())))
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    @Override
+    public void saveUserData(String userId, Map<String, Object> userData, DataCallback<Void> callback) {
+        db.collection("users").document(userId).set(userData)
+                .addOnSuccessListener(callback::onSuccess)
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    @Override
+    public String getCurrentUserId() {
+        return uid(auth.getCurrentUser());
+    }
+
+    @Override
+    public void logout() {
+        auth.signOut();
+    }
+
+    private static String uid(FirebaseUser user) {
+        return user != null ? user.getUid() : null;
+    }
+}
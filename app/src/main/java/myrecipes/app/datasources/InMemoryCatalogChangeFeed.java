@@ -0,0 +1,32 @@
+package myrecipes.app.datasources;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import myrecipes.app.models.CatalogChangeSet;
+
+/**
+ * Change feed for running the ViewModels on the JVM: changes are published by hand, and
+ * delivered synchronously on the calling thread.
+ */
+public class InMemoryCatalogChangeFeed implements CatalogChangeFeed {
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Delivers a change set to every listener, as the live sync does after applying it.
+     */
+    public void publish(CatalogChangeSet changes) {
+        for (Listener listener : listeners) {
+            listener.onCatalogChanged(changes);
+        }
+    }
+}
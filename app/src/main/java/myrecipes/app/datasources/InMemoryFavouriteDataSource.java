@@ -0,0 +1,90 @@
+package myrecipes.app.datasources;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Favourites held in memory, for running the repositories on the JVM.
+ * Toggles apply immediately; there is no write queue to coalesce.
+ * The status LiveData are set on the calling thread, which must be the main thread
+ * (or a test rule that makes LiveData run synchronously).
+ */
+public class InMemoryFavouriteDataSource implements FavouriteDataSource {
+    // User ID -> favourite recipe IDs, in key order; guarded by this
+    private final Map<String, TreeSet<String>> favourites = new HashMap<>();
+    private final Map<String, MutableLiveData<Boolean>> statusLiveData = new HashMap<>();
+    private int revision;
+
+    @Override
+    public void getFavouriteKeys(String userId, String afterKey, int limit,
+                                 DataCallback<LinkedHashMap<String, Boolean>> callback) {
+        LinkedHashMap<String, Boolean> keys = new LinkedHashMap<>();
+        synchronized (this) {
+            TreeSet<String> ids = favouritesOf(userId);
+            for (String id : afterKey != null ? ids.tailSet(afterKey, false) : ids) {
+                if (keys.size() == limit) {
+                    break;
+                }
+                keys.put(id, Boolean.TRUE);
+            }
+        }
+        callback.onSuccess(keys);
+    }
+
+    @Override
+    public void setFavourite(String userId, String recipeId, boolean favourite) {
+        synchronized (this) {
+            if (favourite ? favouritesOf(userId).add(recipeId) : favouritesOf(userId).remove(recipeId)) {
+                revision++;
+            }
+        }
+        MutableLiveData<Boolean> status = statusLiveData.get(userId + "/" + recipeId);
+        if (status != null) {
+            status.setValue(favourite);
+        }
+    }
+
+    @Override
+    public LiveData<Boolean> observe(String userId, String recipeId) {
+        String key = userId + "/" + recipeId;
+        MutableLiveData<Boolean> status = statusLiveData.get(key);
+        if (status == null) {
+            status = new MutableLiveData<>(isFavourite(userId, recipeId));
+            statusLiveData.put(key, status);
+        }
+        return status;
+    }
+
+    @Override
+    public synchronized boolean isFavourite(String userId, String recipeId) {
+        return favouritesOf(userId).contains(recipeId);
+    }
+
+    /**
+     * Toggles are stored as they are made, so nothing is ever unconfirmed.
+     */
+    @Override
+    public Set<String> getUnconfirmed(String userId) {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public synchronized int getRevision() {
+        return revision;
+    }
+
+    private TreeSet<String> favouritesOf(String userId) {
+        TreeSet<String> ids = favourites.get(userId);
+        if (ids == null) {
+            ids = new TreeSet<>();
+            favourites.put(userId, ids);
+        }
+        return ids;
+    }
+}
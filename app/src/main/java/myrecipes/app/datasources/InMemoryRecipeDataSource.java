@@ -0,0 +1,162 @@
+package myrecipes.app.datasources;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
+
+/**
+ * Catalog held in memory, for running the repositories on the JVM at any catalog size.
+ * Callbacks run synchronously on the calling thread and never fail.
+ * Every change of the catalog bumps its version, and each recipe's hash is the revision
+ * of its last change, so the repositories see the same versions and diffs as with Firebase.
+ */
+public class InMemoryRecipeDataSource implements RecipeDataSource {
+    // Guarded by this
+    private final TreeMap<String, Recipe> recipes = new TreeMap<>();
+    private final Map<String, String> hashes = new HashMap<>();
+    private final Map<String, Integer> popularity = new HashMap<>();
+    private final Random random;
+    private long version;
+    private long revision;
+    private long reads;
+
+    public InMemoryRecipeDataSource() {
+        this(new Random());
+    }
+
+    /**
+     * @param random Source of the random recipe, seeded for reproducible runs
+     */
+    public InMemoryRecipeDataSource(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Adds or replaces recipes as one new catalog version.
+     */
+    public synchronized void putRecipes(Collection<Recipe> changed) {
+        version++;
+        for (Recipe recipe : changed) {
+            recipes.put(recipe.getId(), recipe);
+            hashes.put(recipe.getId(), Long.toString(++revision));
+        }
+    }
+
+    /**
+     * Removes recipes as one new catalog version.
+     */
+    public synchronized void removeRecipes(Collection<String> recipeIds) {
+        version++;
+        for (String id : recipeIds) {
+            recipes.remove(id);
+            hashes.remove(id);
+        }
+    }
+
+    public synchronized void setPopularity(Map<String, Integer> counts) {
+        popularity.clear();
+        popularity.putAll(counts);
+    }
+
+    /**
+     * Number of calls answered so far, to compare how much different code paths read.
+     */
+    public synchronized long getReadCount() {
+        return reads;
+    }
+
+    @Override
+    public void getCatalogVersion(DataCallback<Long> callback) {
+        Long current;
+        synchronized (this) {
+            reads++;
+            current = recipes.isEmpty() ? null : version;
+        }
+        callback.onSuccess(current);
+    }
+
+    @Override
+    public void getCatalogHashes(DataCallback<Map<String, String>> callback) {
+        Map<String, String> copy;
+        synchronized (this) {
+            reads++;
+            copy = new HashMap<>(hashes);
+        }
+        callback.onSuccess(copy);
+    }
+
+    @Override
+    public void getAllSummaries(DataCallback<List<RecipeSummary>> callback) {
+        List<RecipeSummary> summaries;
+        synchronized (this) {
+            reads++;
+            summaries = new ArrayList<>(recipes.size());
+            for (Recipe recipe : recipes.values()) {
+                if (recipe.getTitle() != null) {
+                    summaries.add(RecipeSummary.of(recipe));
+                }
+            }
+        }
+        callback.onSuccess(summaries);
+    }
+
+    @Override
+    public void getSummaries(List<String> recipeIds, DataCallback<List<RecipeSummary>> callback) {
+        List<RecipeSummary> summaries = new ArrayList<>(recipeIds.size());
+        synchronized (this) {
+            reads += recipeIds.size();
+            for (String id : recipeIds) {
+                Recipe recipe = recipes.get(id);
+                // Skipped like a recipe node without a title
+                if (recipe != null && recipe.getTitle() != null) {
+                    summaries.add(RecipeSummary.of(recipe));
+                }
+            }
+        }
+        callback.onSuccess(summaries);
+    }
+
+    @Override
+    public void getRecipe(String recipeId, DataCallback<Recipe> callback) {
+        Recipe recipe;
+        synchronized (this) {
+            reads++;
+            recipe = recipes.get(recipeId);
+        }
+        callback.onSuccess(recipe);
+    }
+
+    @Override
+    public void getRandomRecipe(DataCallback<Recipe> callback) {
+        Recipe recipe = null;
+        synchronized (this) {
+            reads++;
+            if (!recipes.isEmpty()) {
+                int index = random.nextInt(recipes.size());
+                for (Recipe candidate : recipes.values()) {
+                    if (index-- == 0) {
+                        recipe = candidate;
+                        break;
+                    }
+                }
+            }
+        }
+        callback.onSuccess(recipe);
+    }
+
+    @Override
+    public void getPopularity(DataCallback<Map<String, Integer>> callback) {
+        Map<String, Integer> copy;
+        synchronized (this) {
+            reads++;
+            copy = new HashMap<>(popularity);
+        }
+        callback.onSuccess(copy);
+    }
+}
@@ -0,0 +1,79 @@
+package myrecipes.app.datasources;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Users held in memory, for running the repositories on the JVM.
+ * The user ID is derived from the email; a fixed user can be signed in with {@link #signIn}.
+ */
+public class InMemoryUserDataSource implements UserDataSource {
+    // Email -> password; guarded by this
+    private final Map<String, String> passwords = new HashMap<>();
+    private final Map<String, Map<String, Object>> profiles = new HashMap<>();
+    private String currentUserId;
+
+    /**
+     * Signs a user in without a password, e.g. before driving the favourites.
+     */
+    public synchronized void signIn(String userId) {
+        currentUserId = userId;
+    }
+
+    public synchronized Map<String, Object> getUserData(String userId) {
+        return profiles.get(userId);
+    }
+
+    @Override
+    public void register(String email, String password, DataCallback<String> callback) {
+        String userId;
+        synchronized (this) {
+            if (passwords.containsKey(email)) {
+                userId = null;
+            } else {
+                passwords.put(email, password);
+                userId = currentUserId = idOf(email);
+            }
+        }
+        if (userId != null) {
+            callback.onSuccess(userId);
+        } else {
+            callback.onFailure(new IllegalStateException("Email already in use"));
+        }
+    }
+
+    @Override
+    public void login(String email, String password, DataCallback<String> callback) {
+        String userId;
+        synchronized (this) {
+            userId = password.equals(passwords.get(email)) ? currentUserId = idOf(email) : null;
+        }
+        if (userId != null) {
+            callback.onSuccess(userId);
+        } else {
+            callback.onFailure(new IllegalArgumentException("Wrong email or password"));
+        }
+    }
+
+    @Override
+    public void saveUserData(String userId, Map<String, Object> userData, DataCallback<Void> callback) {
+        synchronized (this) {
+            profiles.put(userId, new HashMap<>(userData));
+        }
+        callback.onSuccess(null);
+    }
+
+    @Override
+    public synchronized String getCurrentUserId() {
+        return currentUserId;
+    }
+
+    @Override
+    public synchronized void logout() {
+        currentUserId = null;
+    }
+
+    private static String idOf(String email) {
+        return "user-" + Integer.toHexString(email.hashCode());
+    }
+}
@@ -0,0 +1,48 @@
+package myrecipes.app.datasources;
+
+import java.util.List;
+import java.util.Map;
+import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
+
+/**
+ * Read access to the recipe catalog, independent of where it is stored.
+ * The repositories keep the caching, diffing and indexing logic; a data source only answers
+ * the reads, so that logic can run against Firebase in the app and against memory on the JVM.
+ */
+public interface RecipeDataSource {
+    /**
+     * Published catalog version, null when none is published.
+     */
+    void getCatalogVersion(DataCallback<Long> callback);
+
+    /**
+     * Recipe ID -> content hash of every recipe of the published version.
+     */
+    void getCatalogHashes(DataCallback<Map<String, String>> callback);
+
+    /**
+     * Summaries of the whole catalog, in key order.
+     */
+    void getAllSummaries(DataCallback<List<RecipeSummary>> callback);
+
+    /**
+     * Summaries of the given recipes; recipes that don't exist are left out.
+     */
+    void getSummaries(List<String> recipeIds, DataCallback<List<RecipeSummary>> callback);
+
+    /**
+     * Full recipe, null when it doesn't exist.
+     */
+    void getRecipe(String recipeId, DataCallback<Recipe> callback);
+
+    /**
+     * A recipe picked at random, null when the catalog is empty.
+     */
+    void getRandomRecipe(DataCallback<Recipe> callback);
+
+    /**
+     * Recipe ID -> favourite count of the most popular recipes; empty when there is no ranking.
+     */
+    void getPopularity(DataCallback<Map<String, Integer>> callback);
+}
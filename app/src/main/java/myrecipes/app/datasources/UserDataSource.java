@@ -0,0 +1,22 @@
+package myrecipes.app.datasources;
+
+import java.util.Map;
+
+/**
+ * Authentication and user profiles, independent of the provider.
+ * Successful sign ups and sign ins report the ID of the signed in user.
+ */
+public interface UserDataSource {
+    void register(String email, String password, DataCallback<String> callback);
+
+    void login(String email, String password, DataCallback<String> callback);
+
+    void saveUserData(String userId, Map<String, Object> userData, DataCallback<Void> callback);
+
+    /**
+     * ID of the signed in user, or null if nobody is signed in.
+     */
+    String getCurrentUserId();
+
+    void logout();
+}
@@ -0,0 +1,193 @@
+/**
+ * Sort permutations of the stored catalog, kept in a file so a cold start doesn't sort again.
+ * The background sync prepares them right after updating the {@link CatalogStore}; the dashboard
+ * restores them when the summaries it loads are the ones the file was written for, and only
+ * builds (and writes) the index itself otherwise.
+ * The app uses the file-backed cache from {@link #getInstance()}; JVM tests build one with
+ * {@link #inMemory()}, which keeps the last permutations in memory instead.
+ */
+package myrecipes.app.repositories;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import myrecipes.app.models.CatalogIndex;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.models.SortOrder;
+
+public final class CatalogIndexCache {
+    private static final String FILE_NAME = "catalog_index.bin";
+    // Changed whenever the file layout or the order of a permutation changes; older files are ignored
+    private static final int FORMAT = 3;
+    private static volatile CatalogIndexCache instance;
+
+    // Null for a cache kept only in memory
+    private final File file;
+    // What the in-memory cache holds, in place of the file
+    private long memoryFingerprint;
+    private Map<SortOrder, int[]> memoryPermutations;
+
+    private CatalogIndexCache(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets up the cache. Called once from the Application, next to {@link CatalogStore#init}.
+     */
+    public static void init(Context context) {
+        if (instance == null) {
+            instance = new CatalogIndexCache(new File(context.getApplicationContext().getNoBackupFilesDir(), FILE_NAME));
+        }
+    }
+
+    /**
+     * A cache without a file, starting empty.
+     */
+    public static CatalogIndexCache inMemory() {
+        return new CatalogIndexCache(null);
+    }
+
+    public static CatalogIndexCache getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("CatalogIndexCache not initialized");
+        }
+        return instance;
+    }
+
+    /**
+     * Identifies a list of summaries: any change to a field, the order or the size changes it.
+     */
+    static long fingerprint(List<RecipeSummary> summaries) {
+        long hash = summaries.size();
+        for (RecipeSummary summary : summaries) {
+            hash = hash * 1_000_003L + summary.hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * True if the file holds the permutations of exactly these summaries. Does disk I/O.
+     */
+    public synchronized boolean isCurrent(List<RecipeSummary> summaries) {
+        return readFingerprint() == fingerprint(summaries);
+    }
+
+    /**
+     * Restores the index of these summaries from the file. Does disk I/O.
+     *
+     * @param version Version to give the index
+     * @param summaries Summaries in catalog order
+     * @return The restored index, or null if the file is missing or belongs to other summaries
+     */
+    public synchronized CatalogIndex load(int version, List<RecipeSummary> summaries) {
+        if (file == null) {
+            if (memoryPermutations == null || memoryFingerprint != fingerprint(summaries)) {
+                return null;
+            }
+            Map<SortOrder, int[]> permutations = new EnumMap<>(SortOrder.class);
+            for (Map.Entry<SortOrder, int[]> entry : memoryPermutations.entrySet()) {
+                permutations.put(entry.getKey(), entry.getValue().clone());
+            }
+            return CatalogIndex.restore(version, summaries, permutations);
+        }
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT || in.readLong() != fingerprint(summaries)) {
+                return null;
+            }
+            int orders = in.readInt();
+            Map<SortOrder, int[]> permutations = new EnumMap<>(SortOrder.class);
+            for (int i = 0; i < orders; i++) {
+                String name = in.readUTF();
+                int[] permutation = new int[in.readInt()];
+                for (int j = 0; j < permutation.length; j++) {
+                    permutation[j] = in.readInt();
+                }
+                try {
+                    permutations.put(SortOrder.valueOf(name), permutation);
+                } catch (IllegalArgumentException e) {
+                    // Order removed since the file was written
+                }
+            }
+            // Null if an order was added since, or the data is damaged
+            return CatalogIndex.restore(version, summaries, permutations);
+        } catch (IOException e) {
+            Log.e("CatalogIndexCache", "Error reading catalog index: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the permutations of an index unless the file already holds them. Does disk I/O.
+     *
+     * @param summaries Summaries the index was built from
+     * @param index Index to keep
+     * @return true if the file was written
+     */
+    public synchronized boolean save(List<RecipeSummary> summaries, CatalogIndex index) {
+        long fingerprint = fingerprint(summaries);
+        if (readFingerprint() == fingerprint) {
+            return false;
+        }
+        if (file == null) {
+            memoryPermutations = new EnumMap<>(SortOrder.class);
+            for (SortOrder order : SortOrder.values()) {
+                memoryPermutations.put(order, index.getPermutation(order).clone());
+            }
+            memoryFingerprint = fingerprint;
+            return true;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(FORMAT);
+            out.writeLong(fingerprint);
+            out.writeInt(SortOrder.values().length);
+            for (SortOrder order : SortOrder.values()) {
+                int[] permutation = index.getPermutation(order);
+                out.writeUTF(order.name());
+                out.writeInt(permutation.length);
+                for (int row : permutation) {
+                    out.writeInt(row);
+                }
+            }
+        } catch (IOException e) {
+            Log.e("CatalogIndexCache", "Error writing catalog index: " + e.getMessage());
+            temp.delete();
+            return false;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Fingerprint of the summaries the file was written for, or 0 if there is no usable file.
+     */
+    private long readFingerprint() {
+        if (file == null) {
+            return memoryFingerprint;
+        }
+        if (!file.isFile()) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == FORMAT ? in.readLong() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/**
+ * Loads the dashboard catalog while the splash screen is showing, so the first screen
+ * can display it without another round trip.
+ * Demonstrates handing data from one screen's startup to another screen's ViewModel.
+ */
+package myrecipes.app.repositories;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+import com.google.firebase.database.DatabaseException;
+import com.google.firebase.database.FirebaseDatabase;
+import java.util.ArrayList;
+import java.util.List;
+import myrecipes.app.R;
+import myrecipes.app.datasources.DataSources;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.utils.ImageVariants;
+import myrecipes.app.utils.RecipesGlideModule;
+
+public final class CatalogPrefetcher {
+    private static final CatalogPrefetcher INSTANCE = new CatalogPrefetcher();
+    // Thumbnails warmed for the first screenful of dashboard rows
+    private static final int FIRST_PAGE_ROWS = 10;
+    // A prefetch no ViewModel claimed by then is dropped, e.g. when the app opened elsewhere
+    private static final long UNCLAIMED_TIMEOUT_MS = 30_000;
+
+    private static boolean persistenceEnabled;
+
+    private final Observer<List<RecipeSummary>> deliveryObserver = this::onLoaded;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable dropUnclaimed = this::reset;
+    // Prefetch state; only touched on the main thread
+    private MutableLiveData<List<RecipeSummary>> summaries;
+    private List<RecipeSummary> loaded;
+    private MutableLiveData<List<RecipeSummary>> waitingTarget;
+    private Runnable onLoadedCallback;
+    private Context appContext;
+    private boolean started;
+    private boolean consumed;
+    // Thumbnails of the first rows still loading; onLoaded callbacks wait for them
+    private int thumbnailsPending;
+    // Changed on every start and reset, so Glide callbacks of a dropped prefetch are ignored
+    private int generation;
+
+    private CatalogPrefetcher() {
+    }
+
+    public static CatalogPrefetcher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Turns on the Realtime Database disk cache, so the catalog of the previous session
+     * is available right away on the next cold start.
+     * Must run before the database is used for the first time; later calls are ignored.
+     */
+    public static synchronized void enableDiskCache() {
+        if (persistenceEnabled) {
+            return;
+        }
+        persistenceEnabled = true;
+        try {
+            // The catalog itself is kept up to date through catalog_meta, see CatalogStore
+            FirebaseDatabase.getInstance().setPersistenceEnabled(true);
+        } catch (DatabaseException e) {
+            // The database was already used in this process
+            Log.e("CatalogPrefetcher", "Disk cache not enabled: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts loading the catalog summaries. Must be called on the main thread.
+     *
+     * @param context Used to warm the thumbnails of the first rows
+     * @param onLoaded Called on the main thread once the summaries arrived and the thumbnails
+     *                 of the first rows finished loading (or failed), may be null
+     */
+    public void start(Context context, Runnable onLoaded) {
+        if (started) {
+            if (loaded != null && thumbnailsPending == 0 && onLoaded != null) {
+                onLoaded.run();
+            } else {
+                onLoadedCallback = onLoaded;
+            }
+            return;
+        }
+        started = true;
+        consumed = false;
+        loaded = null;
+        thumbnailsPending = 0;
+        generation++;
+        onLoadedCallback = onLoaded;
+        appContext = context.getApplicationContext();
+        summaries = new MutableLiveData<>();
+        summaries.observeForever(deliveryObserver);
+        DataSources sources = DataSources.get();
+        new DashboardRepository(sources.getRecipes(), sources.getCatalog()).getRecipeSummaries(summaries);
+    }
+
+    /**
+     * Drops the prefetch, e.g. when nobody is signed in and the catalog can't be read.
+     */
+    public void cancel() {
+        Runnable callback = onLoadedCallback;
+        reset();
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    /**
+     * Hands the prefetched summaries to a ViewModel, at most once per prefetch.
+     * If the load is still running, the target receives the list when it arrives.
+     *
+     * @param target LiveData of the ViewModel
+     * @return true if the target was or will be filled, false if the caller must load itself
+     */
+    public boolean deliverTo(MutableLiveData<List<RecipeSummary>> target) {
+        if (!started || consumed) {
+            return false;
+        }
+        consumed = true;
+        if (loaded != null) {
+            List<RecipeSummary> list = loaded;
+            reset();
+            target.setValue(list);
+        } else {
+            waitingTarget = target;
+        }
+        return true;
+    }
+
+    private void onLoaded(List<RecipeSummary> list) {
+        summaries.removeObserver(deliveryObserver);
+        loaded = list;
+        mainHandler.postDelayed(dropUnclaimed, UNCLAIMED_TIMEOUT_MS);
+        preloadThumbnails(list);
+        if (waitingTarget != null) {
+            MutableLiveData<List<RecipeSummary>> target = waitingTarget;
+            reset();
+            target.setValue(list);
+        }
+    }
+
+    /**
+     * Forgets the prefetch, so the next ViewModel loads fresh data.
+     */
+    private void reset() {
+        mainHandler.removeCallbacks(dropUnclaimed);
+        if (summaries != null) {
+            summaries.removeObserver(deliveryObserver);
+        }
+        summaries = null;
+        loaded = null;
+        waitingTarget = null;
+        onLoadedCallback = null;
+        thumbnailsPending = 0;
+        generation++;
+        started = false;
+    }
+
+    /**
+     * Loads the first screenful of thumbnails into Glide's memory cache with the same
+     * options the dashboard rows use, so the first frame of the list has its images.
+     * The onLoaded callback runs once every one of them finished, successfully or not.
+     */
+    private void preloadThumbnails(List<RecipeSummary> list) {
+        List<String> urls = new ArrayList<>(FIRST_PAGE_ROWS);
+        for (int i = 0; list != null && i < Math.min(FIRST_PAGE_ROWS, list.size()); i++) {
+            if (list.get(i).getThumbnailUrl() != null) {
+                urls.add(list.get(i).getThumbnailUrl());
+            }
+        }
+        // Counted up front: a memory cache hit calls the listener from inside preload()
+        thumbnailsPending = urls.size();
+        if (urls.isEmpty()) {
+            onThumbnailsLoaded();
+            return;
+        }
+        RequestManager glide = Glide.with(appContext);
+        ImageVariants variants = ImageVariants.getInstance(appContext);
+        int sizePx = appContext.getResources().getDimensionPixelSize(R.dimen.recipe_thumbnail_size);
+        ThumbnailListener listener = new ThumbnailListener(generation);
+        for (String url : urls) {
+            glide.load(variants.urlFor(url, sizePx))
+                    .apply(RecipesGlideModule.thumbnailOptions())
+                    .override(sizePx)
+                    .centerCrop()
+                    .listener(listener)
+                    .preload(sizePx, sizePx);
+        }
+    }
+
+    private void onThumbnailLoaded(int requestGeneration) {
+        if (requestGeneration != generation || thumbnailsPending == 0) {
+            return;
+        }
+        thumbnailsPending--;
+        if (thumbnailsPending == 0) {
+            onThumbnailsLoaded();
+        }
+    }
+
+    private void onThumbnailsLoaded() {
+        Runnable callback = onLoadedCallback;
+        onLoadedCallback = null;
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    /**
+     * Counts the thumbnail requests of one prefetch as they finish. Glide calls it on the
+     * main thread.
+     */
+    private final class ThumbnailListener implements RequestListener<Drawable> {
+        private final int requestGeneration;
+
+        ThumbnailListener(int requestGeneration) {
+            this.requestGeneration = requestGeneration;
+        }
+
+        @Override
+        public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Drawable> target,
+                                    boolean isFirstResource) {
+            onThumbnailLoaded(requestGeneration);
+            return false;
+        }
+
+        @Override
+        public boolean onResourceReady(Drawable resource, Object model, Target<Drawable> target,
+                                       DataSource dataSource, boolean isFirstResource) {
+            onThumbnailLoaded(requestGeneration);
+            return false;
+        }
+    }
+}
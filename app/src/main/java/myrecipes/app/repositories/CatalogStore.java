@@ -0,0 +1,405 @@
+/**
+ * Local copy of the recipe catalog summaries, kept in a file between sessions.
+ * Together with the catalog version and per-recipe hashes of the catalog_meta node, it lets
+ * the repository skip the catalog download when nothing changed, and fetch only the
+ * recipes that did change otherwise.
+ * The app uses the file-backed store from {@link #getInstance()}; JVM tests and benchmarks
+ * build one with {@link #inMemory()}, which never touches the disk.
+ * The file holds the whole catalog, so deltas aren't written one by one: a full download is
+ * written right away, smaller changes at most every {@link #SAVE_DELAY_MS} ms and when the app
+ * goes to the background ({@link #flush()}).
+ */
+package myrecipes.app.repositories;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import myrecipes.app.models.CatalogChangeSet;
+import myrecipes.app.models.CatalogDiff;
+import myrecipes.app.models.RecipeSummary;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+public final class CatalogStore {
+    private static final String FILE_NAME = "catalog_store.json";
+    // Version stored before the first successful sync
+    public static final long NO_VERSION = -1;
+    private static volatile CatalogStore instance;
+    // Reads and writes of the store, in order, off the main thread
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor();
+    // Changes applied within this delay are written to the file together
+    public static final long SAVE_DELAY_MS = 30_000;
+
+    /**
+     * Firebase's key order: keys that are 32-bit integers first, numerically, then the others
+     * as strings. The store keeps summaries in this order so lists match a full read.
+     */
+    public static final Comparator<String> KEY_ORDER = (a, b) -> {
+        Integer intA = parseIntKey(a);
+        Integer intB = parseIntKey(b);
+        if (intA != null && intB != null) {
+            return intA.compareTo(intB);
+        }
+        if (intA != null || intB != null) {
+            return intA != null ? -1 : 1;
+        }
+        return a.compareTo(b);
+    };
+
+    // Null for a store kept only in memory
+    private final File file;
+    private boolean loaded;
+    private long version = NO_VERSION;
+    // Hash of every published recipe synced, including the ones skipped because they don't
+    // decode (no title): without a summary, the hash alone marks them as already fetched
+    private final Map<String, String> hashes = new HashMap<>();
+    private final TreeMap<String, RecipeSummary> summaries = new TreeMap<>(KEY_ORDER);
+    // Whether memory holds changes the file doesn't have yet, and whether a save is scheduled
+    private boolean dirty;
+    private boolean saveScheduled;
+
+    private CatalogStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets up the store. Called once from the Application; the file is read on first access.
+     */
+    public static void init(Context context) {
+        if (instance == null) {
+            instance = new CatalogStore(new File(context.getApplicationContext().getNoBackupFilesDir(), FILE_NAME));
+        }
+    }
+
+    /**
+     * A store without a file, starting empty. Nothing is read or written, so it needs
+     * neither a Context nor the JSON classes of the platform.
+     */
+    public static CatalogStore inMemory() {
+        return new CatalogStore(null);
+    }
+
+    public static CatalogStore getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("CatalogStore not initialized");
+        }
+        return instance;
+    }
+
+    /**
+     * Single background thread on which store updates are made, so they apply in order.
+     */
+    public static ExecutorService getExecutor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * Reads the file if that hasn't happened yet. Does disk I/O; call it off the main thread.
+     */
+    public synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (file == null || !file.isFile()) {
+            return;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] data = new byte[(int) file.length()];
+            int offset = 0;
+            int read;
+            while (offset < data.length && (read = in.read(data, offset, data.length - offset)) != -1) {
+                offset += read;
+            }
+            JSONObject root = new JSONObject(new String(data, 0, offset, StandardCharsets.UTF_8));
+            JSONObject storedHashes = root.getJSONObject("hashes");
+            JSONArray storedRecipes = root.getJSONArray("recipes");
+            for (int i = 0; i < storedRecipes.length(); i++) {
+                RecipeSummary summary = fromJson(storedRecipes.getJSONObject(i));
+                summaries.put(summary.getId(), summary);
+            }
+            for (Iterator<String> ids = storedHashes.keys(); ids.hasNext(); ) {
+                String id = ids.next();
+                hashes.put(id, storedHashes.getString(id));
+            }
+            version = root.getLong("version");
+        } catch (IOException | JSONException e) {
+            // A damaged file is dropped; the next sync downloads the catalog again
+            Log.e("CatalogStore", "Error reading catalog store: " + e.getMessage());
+            version = NO_VERSION;
+            hashes.clear();
+            summaries.clear();
+        }
+    }
+
+    /**
+     * Whether the file was already read, i.e. whether the next read is served from memory.
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized long getVersion() {
+        load();
+        return version;
+    }
+
+    public synchronized boolean isEmpty() {
+        load();
+        return summaries.isEmpty();
+    }
+
+    public synchronized int size() {
+        load();
+        return summaries.size();
+    }
+
+    /**
+     * Hash of a stored recipe, or null if the recipe isn't stored.
+     */
+    public synchronized String getHash(String recipeId) {
+        load();
+        return hashes.get(recipeId);
+    }
+
+    /**
+     * Stored summary of a recipe, or null if the recipe isn't stored.
+     */
+    public synchronized RecipeSummary getSummary(String recipeId) {
+        load();
+        return summaries.get(recipeId);
+    }
+
+    /**
+     * Compares published hashes with the stored ones.
+     *
+     * @param remoteHashes Hash of every recipe, from catalog_meta
+     * @return The recipes to fetch and the ones to drop
+     */
+    public synchronized CatalogDiff diff(Map<String, String> remoteHashes) {
+        load();
+        // Skipped recipes count as stored, so they are dropped once they are unpublished
+        Set<String> storedIds = new HashSet<>(hashes.keySet());
+        storedIds.addAll(summaries.keySet());
+        return CatalogDiff.compute(storedIds, hashes, remoteHashes);
+    }
+
+    public synchronized List<String> getRecipeIds() {
+        load();
+        return new ArrayList<>(summaries.keySet());
+    }
+
+    /**
+     * Stored summaries in catalog order.
+     */
+    public synchronized List<RecipeSummary> getSummaries() {
+        load();
+        return Collections.unmodifiableList(new ArrayList<>(summaries.values()));
+    }
+
+    /**
+     * Replaces the whole catalog, e.g. after a full download, and writes the file right away.
+     *
+     * @param newVersion Version of catalog_meta the summaries belong to
+     * @param newHashes Hash of every published recipe, including the ones that didn't decode
+     * @param newSummaries Every recipe that decoded
+     * @return The summaries added, changed and removed compared with the stored catalog
+     */
+    public synchronized CatalogChangeSet replaceAll(long newVersion, Map<String, String> newHashes,
+                                                    Collection<RecipeSummary> newSummaries) {
+        load();
+        Map<String, RecipeSummary> previous = new HashMap<>(summaries);
+        summaries.clear();
+        hashes.clear();
+        hashes.putAll(newHashes);
+        List<RecipeSummary> added = new ArrayList<>();
+        List<RecipeSummary> changed = new ArrayList<>();
+        for (RecipeSummary summary : newSummaries) {
+            summaries.put(summary.getId(), summary);
+            RecipeSummary old = previous.remove(summary.getId());
+            if (old == null) {
+                added.add(summary);
+            } else if (!old.equals(summary)) {
+                changed.add(summary);
+            }
+        }
+        version = newVersion;
+        dirty = true;
+        flush();
+        return new CatalogChangeSet(added, changed, new ArrayList<>(previous.keySet()));
+    }
+
+    /**
+     * Applies a delta: changed or added recipes are replaced, removed ones dropped.
+     * A fetched recipe that didn't decode keeps only its hash, so it isn't fetched again
+     * until it changes, and its previous summary is dropped as a full download would.
+     * The file is written later, together with the changes that follow.
+     *
+     * @param newVersion Version of catalog_meta after the change
+     * @param fetchedIds IDs of the changed or added recipes that were fetched
+     * @param changed Summaries of the fetched recipes that decoded
+     * @param changedHashes Hashes of the fetched recipes
+     * @param removed IDs of recipes that no longer exist
+     * @return The summaries added, changed and removed; a fetched recipe that no longer
+     *         decodes counts as removed
+     */
+    public synchronized CatalogChangeSet applyChanges(long newVersion, Collection<String> fetchedIds,
+                                                      Collection<RecipeSummary> changed,
+                                                      Map<String, String> changedHashes,
+                                                      Collection<String> removed) {
+        load();
+        Map<String, RecipeSummary> previous = new HashMap<>();
+        for (String id : fetchedIds) {
+            RecipeSummary old = summaries.remove(id);
+            if (old != null) {
+                previous.put(id, old);
+            }
+            hashes.put(id, changedHashes.get(id));
+        }
+        List<RecipeSummary> addedSummaries = new ArrayList<>();
+        List<RecipeSummary> changedSummaries = new ArrayList<>();
+        for (RecipeSummary summary : changed) {
+            summaries.put(summary.getId(), summary);
+            RecipeSummary old = previous.remove(summary.getId());
+            if (old == null) {
+                addedSummaries.add(summary);
+            } else if (!old.equals(summary)) {
+                changedSummaries.add(summary);
+            }
+        }
+        // Whatever is left had a summary and no longer decodes
+        List<String> removedIds = new ArrayList<>(previous.keySet());
+        for (String id : removed) {
+            if (summaries.remove(id) != null) {
+                removedIds.add(id);
+            }
+            hashes.remove(id);
+        }
+        version = newVersion;
+        scheduleSave();
+        return new CatalogChangeSet(addedSummaries, changedSummaries, removedIds);
+    }
+
+    /**
+     * Writes pending changes to the file now, e.g. when the app goes to the background or a
+     * background job ends. Does disk I/O; call it off the main thread.
+     */
+    public synchronized void flush() {
+        if (!dirty || file == null) {
+            return;
+        }
+        try {
+            save();
+            dirty = false;
+        } catch (IOException e) {
+            // Kept dirty: the next save tries again. The file still holds an older, complete catalog
+            Log.e("CatalogStore", "Error saving catalog store: " + e.getMessage());
+        }
+    }
+
+    private void scheduleSave() {
+        dirty = true;
+        if (file == null || saveScheduled) {
+            return;
+        }
+        saveScheduled = true;
+        EXECUTOR.schedule(() -> {
+            synchronized (this) {
+                saveScheduled = false;
+                flush();
+            }
+        }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the store to a temporary file and renames it, so a crash never leaves
+     * a half written catalog behind.
+     */
+    private void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        JSONObject root = new JSONObject();
+        try {
+            JSONObject storedHashes = new JSONObject();
+            JSONArray storedRecipes = new JSONArray();
+            for (RecipeSummary summary : summaries.values()) {
+                storedRecipes.put(toJson(summary));
+            }
+            for (Map.Entry<String, String> hash : hashes.entrySet()) {
+                storedHashes.put(hash.getKey(), hash.getValue());
+            }
+            root.put("version", version);
+            root.put("hashes", storedHashes);
+            root.put("recipes", storedRecipes);
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(root.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+
+    private static JSONObject toJson(RecipeSummary summary) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("id", summary.getId());
+        json.put("title", summary.getTitle());
+        json.put("calories", summary.getCalories());
+        json.put("thumbnailUrl", summary.getThumbnailUrl());
+        json.put("facets", summary.getFacets());
+        json.put("ingredientCount", summary.getIngredientCount());
+        json.put("stepCount", summary.getStepCount());
+        return json;
+    }
+
+    private static RecipeSummary fromJson(JSONObject json) throws JSONException {
+        return new RecipeSummary(
+                json.getString("id"),
+                json.optString("title", null),
+                json.optInt("calories"),
+                json.optString("thumbnailUrl", null),
+                json.optLong("facets"),
+                json.optInt("ingredientCount"),
+                json.optInt("stepCount"));
+    }
+
+    private static Integer parseIntKey(String key) {
+        if (key.isEmpty() || key.length() > 11) {
+            return null;
+        }
+        try {
+            int value = Integer.parseInt(key);
+            // "007" or "+7" are string keys for Firebase
+            return Integer.toString(value).equals(key) ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
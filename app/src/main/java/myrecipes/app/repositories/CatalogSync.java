@@ -0,0 +1,270 @@
+/**
+ * Brings a {@link CatalogStore} to the published catalog version, reading through a {@link RecipeDataSource}.
+ * The only implementation of the catalog sync: the dashboard runs it on every load and the
+ * background job runs it with {@link #syncBlocking}, so both read and store the catalog the same way.
+ * The catalog_meta version is read first:
+ * - same version as the store: the stored summaries are used, nothing else is read
+ * - different version: the per-recipe hashes are compared and only changed recipes are fetched
+ * - empty store, or most recipes changed: the whole catalog is downloaded once
+ * Store reads and updates run on the store executor, in order with every other store access,
+ * and the result is delivered there too. The bytes of a {@link Result} are estimated from what
+ * the data source returned, the same way {@link RepositoryMetrics} estimates payloads.
+ */
+package myrecipes.app.repositories;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import myrecipes.app.datasources.DataCallback;
+import myrecipes.app.datasources.RecipeDataSource;
+import myrecipes.app.models.CatalogChangeSet;
+import myrecipes.app.models.CatalogDiff;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.repositories.RepositoryMetrics.Source;
+
+public final class CatalogSync {
+    // Reads and writes of the local catalog store, in order, off the main thread
+    private static final ExecutorService STORE_EXECUTOR = CatalogStore.getExecutor();
+    // Approximate JSON size of the version number
+    private static final long VERSION_BYTES = 16;
+    private static final CatalogChangeSet NO_CHANGES = new CatalogChangeSet(
+            Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+    private final RecipeDataSource dataSource;
+    private final CatalogStore store;
+
+    public CatalogSync(RecipeDataSource dataSource, CatalogStore store) {
+        this.dataSource = dataSource;
+        this.store = store;
+    }
+
+    /**
+     * Syncs the store and reports what was read and changed.
+     * A failed read leaves the store as it was and is passed to the callback.
+     *
+     * @param downloadUnversioned Whether to download the catalog when no catalog_meta is published.
+     *                            It can't be stored without a version, so only a caller that shows
+     *                            the result wants it; the others get the stored summaries.
+     * @param callback Called on the store executor
+     */
+    public void sync(boolean downloadUnversioned, DataCallback<Result> callback) {
+        // The Firebase source asks the server first, unlike single value listeners that answer from the disk cache
+        dataSource.getCatalogVersion(new DataCallback<Long>() {
+            @Override
+            public void onSuccess(Long remoteVersion) {
+                STORE_EXECUTOR.execute(() -> syncVersion(remoteVersion, downloadUnversioned, VERSION_BYTES, callback));
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Syncs the store to a version the caller already knows, e.g. from a listener on
+     * catalog_meta/version, without reading it again.
+     *
+     * @param callback Called on the store executor
+     */
+    public void syncTo(long remoteVersion, DataCallback<Result> callback) {
+        STORE_EXECUTOR.execute(() -> syncVersion(remoteVersion, false, 0, callback));
+    }
+
+    /**
+     * Runs on the store executor.
+     *
+     * @param bytes What was read to learn the version
+     */
+    private void syncVersion(Long remoteVersion, boolean downloadUnversioned, long bytes,
+                             DataCallback<Result> callback) {
+        // Checked before the store is first read below
+        Source storedSource = store.isLoaded() ? Source.MEMORY : Source.DISK;
+        if (remoteVersion == null && !downloadUnversioned) {
+            // No catalog_meta published: there is no version to store the catalog under
+            callback.onSuccess(new Result(storedSource, store.getSummaries(), bytes, NO_CHANGES, false, false));
+        } else if (remoteVersion == null) {
+            downloadCatalog(null, null, bytes, callback);
+        } else if (!store.isEmpty() && remoteVersion == store.getVersion()) {
+            callback.onSuccess(new Result(storedSource, store.getSummaries(), bytes, NO_CHANGES, false, true));
+        } else {
+            syncChangedRecipes(remoteVersion, bytes, callback);
+        }
+    }
+
+    /**
+     * Runs {@link #sync} and waits for its result, for background jobs.
+     * Never call it on the store executor or the main thread, which the sync needs.
+     *
+     * @throws TimeoutException if the sync didn't finish in time; it may still complete later
+     * @throws Exception the failure of a read
+     */
+    public Result syncBlocking(boolean downloadUnversioned, long timeout, TimeUnit unit) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Result> result = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        sync(downloadUnversioned, new DataCallback<Result>() {
+            @Override
+            public void onSuccess(Result synced) {
+                result.set(synced);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                error.set(e);
+                done.countDown();
+            }
+        });
+        if (!done.await(timeout, unit)) {
+            throw new TimeoutException("Catalog sync didn't finish in " + timeout + " " + unit);
+        }
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return result.get();
+    }
+
+    /**
+     * Compares the published hashes with the stored ones and fetches only the recipes that differ.
+     */
+    private void syncChangedRecipes(long remoteVersion, long versionBytes, DataCallback<Result> callback) {
+        dataSource.getCatalogHashes(new DataCallback<Map<String, String>>() {
+            @Override
+            public void onSuccess(Map<String, String> remoteHashes) {
+                STORE_EXECUTOR.execute(() -> {
+                    long bytes = versionBytes + RepositoryMetrics.estimateBytes(remoteHashes);
+                    CatalogDiff diff = store.diff(remoteHashes);
+                    if (diff.shouldDownloadAll()) {
+                        downloadCatalog(remoteVersion, remoteHashes, bytes, callback);
+                    } else {
+                        fetchRecipes(remoteVersion, remoteHashes, bytes, diff, callback);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Fetches the changed recipes and applies them to the store together with the removals.
+     */
+    private void fetchRecipes(long remoteVersion, Map<String, String> remoteHashes, long bytes,
+                              CatalogDiff diff, DataCallback<Result> callback) {
+        dataSource.getSummaries(diff.getChangedIds(), new DataCallback<List<RecipeSummary>>() {
+            @Override
+            public void onSuccess(List<RecipeSummary> changed) {
+                STORE_EXECUTOR.execute(() -> {
+                    CatalogChangeSet changes = store.applyChanges(remoteVersion, diff.getChangedIds(), changed,
+                            remoteHashes, diff.getRemovedIds());
+                    callback.onSuccess(new Result(Source.NETWORK, store.getSummaries(),
+                            bytes + RepositoryMetrics.estimateBytes(changed), changes, false, true));
+                });
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Downloads every recipe and replaces the stored catalog.
+     *
+     * @param remoteVersion Published version, or null if there is no catalog_meta
+     *                      (the result is shown but not stored then)
+     */
+    private void downloadCatalog(Long remoteVersion, Map<String, String> remoteHashes, long bytes,
+                                 DataCallback<Result> callback) {
+        dataSource.getAllSummaries(new DataCallback<List<RecipeSummary>>() {
+            @Override
+            public void onSuccess(List<RecipeSummary> summaries) {
+                STORE_EXECUTOR.execute(() -> {
+                    CatalogChangeSet changes = remoteVersion != null
+                            ? store.replaceAll(remoteVersion, remoteHashes, summaries) : NO_CHANGES;
+                    callback.onSuccess(new Result(Source.NETWORK, summaries,
+                            bytes + RepositoryMetrics.estimateBytes(summaries), changes, true, remoteVersion != null));
+                });
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * What one sync read and changed.
+     */
+    public static final class Result {
+        private final Source source;
+        private final List<RecipeSummary> summaries;
+        private final long bytes;
+        private final CatalogChangeSet changes;
+        private final boolean fullDownload;
+        private final boolean stored;
+
+        Result(Source source, List<RecipeSummary> summaries, long bytes, CatalogChangeSet changes,
+               boolean fullDownload, boolean stored) {
+            this.source = source;
+            this.summaries = summaries;
+            this.bytes = bytes;
+            this.changes = changes;
+            this.fullDownload = fullDownload;
+            this.stored = stored;
+        }
+
+        /**
+         * Where the summaries came from: the store when the version matched, the network otherwise.
+         */
+        public Source getSource() {
+            return source;
+        }
+
+        /**
+         * The synced catalog, in catalog order.
+         */
+        public List<RecipeSummary> getSummaries() {
+            return summaries;
+        }
+
+        /**
+         * Estimated size of everything read from the data source, catalog_meta included.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Summaries the sync added, changed or removed in the store; empty if nothing was stored.
+         * A recipe that no longer decodes counts as removed.
+         */
+        public CatalogChangeSet getChanges() {
+            return changes;
+        }
+
+        public boolean isFullDownload() {
+            return fullDownload;
+        }
+
+        /**
+         * False when no catalog_meta is published: the summaries weren't stored.
+         */
+        public boolean isStored() {
+            return stored;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Keeps the local catalog in sync with the published one while the app is in the foreground.
+ * One value listener is attached to catalog_meta/version while the app is foregrounded and
+ * someone is signed in: a few bytes per event, whatever the size of the catalog. When the
+ * version differs from the {@link CatalogStore}'s, the dashboard's {@link CatalogSync} fetches
+ * only the recipes whose hash changed, parsing them on the store executor, and the summaries
+ * that really differ are published to the {@link CatalogChangeFeed} listeners. A recipe that
+ * no longer decodes is published as removed.
+ * Versions published while a sync runs are caught up by one more sync once it ends.
+ * If the server cancels the listener (e.g. rules changed or a token expired), it is attached
+ * again with exponential backoff, or right away on the next sign-in change.
+ */
+package myrecipes.app.repositories;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import myrecipes.app.datasources.CatalogChangeFeed;
+import myrecipes.app.datasources.DataCallback;
+import myrecipes.app.datasources.DataSources;
+import myrecipes.app.models.CatalogChangeSet;
+
+public final class CatalogSyncEngine implements CatalogChangeFeed {
+    private static final String TAG = "CatalogSyncEngine";
+    private static final CatalogSyncEngine INSTANCE = new CatalogSyncEngine();
+    // Delay before attaching again after a cancel, doubled on each cancel in a row
+    private static final long INITIAL_RETRY_MS = 5_000;
+    private static final long MAX_RETRY_MS = 5 * 60_000;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Runnable retry = this::updateAttachment;
+    private final FirebaseAuth.AuthStateListener authStateListener = auth -> updateAttachment();
+    private final ValueEventListener versionListener = new VersionListener();
+    private DatabaseReference versionRef;
+    private boolean foreground;
+    private boolean attached;
+    // Latest published version seen, and whether a sync runs; only touched on the main thread
+    private Long publishedVersion;
+    private boolean syncing;
+    // Next retry delay; back to the initial one once the listener delivers data
+    private long retryDelayMs = INITIAL_RETRY_MS;
+
+    private CatalogSyncEngine() {
+    }
+
+    public static CatalogSyncEngine getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Called when the app comes to the foreground. Attaches as soon as someone is signed in.
+     */
+    public void start() {
+        if (foreground) {
+            return;
+        }
+        foreground = true;
+        // The listener is called right away with the current state
+        FirebaseAuth.getInstance().addAuthStateListener(authStateListener);
+    }
+
+    /**
+     * Called when the app goes to the background. A running sync still completes.
+     */
+    public void stop() {
+        if (!foreground) {
+            return;
+        }
+        foreground = false;
+        FirebaseAuth.getInstance().removeAuthStateListener(authStateListener);
+        mainHandler.removeCallbacks(retry);
+        retryDelayMs = INITIAL_RETRY_MS;
+        detach();
+    }
+
+    private void updateAttachment() {
+        boolean signedIn = FirebaseAuth.getInstance().getCurrentUser() != null;
+        if (foreground && signedIn && !attached) {
+            // A sign-in change attaches before a pending retry would
+            mainHandler.removeCallbacks(retry);
+            versionRef = FirebaseDatabase.getInstance().getReference("catalog_meta").child("version");
+            versionRef.addValueEventListener(versionListener);
+            attached = true;
+        } else if (!signedIn && attached) {
+            detach();
+        }
+    }
+
+    private void detach() {
+        if (!attached) {
+            return;
+        }
+        versionRef.removeEventListener(versionListener);
+        attached = false;
+    }
+
+    /**
+     * Starts a sync to the latest published version unless one is running.
+     */
+    private void syncIfBehind() {
+        if (syncing || publishedVersion == null) {
+            return;
+        }
+        long version = publishedVersion;
+        syncing = true;
+        DataSources sources = DataSources.get();
+        CatalogStore store = sources.getCatalog();
+        CatalogStore.getExecutor().execute(() -> {
+            if (store.isEmpty() || store.getVersion() == version) {
+                // Nothing synced yet, the dashboard's first load fills the store; or already current
+                mainHandler.post(() -> onSyncDone(version));
+                return;
+            }
+            new CatalogSync(sources.getRecipes(), store).syncTo(version, new DataCallback<CatalogSync.Result>() {
+                @Override
+                public void onSuccess(CatalogSync.Result result) {
+                    CatalogChangeSet changes = result.getChanges();
+                    mainHandler.post(() -> {
+                        if (!changes.isEmpty()) {
+                            for (Listener listener : listeners) {
+                                listener.onCatalogChanged(changes);
+                            }
+                        }
+                        onSyncDone(version);
+                    });
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    // Tried again on the next published version or foreground
+                    Log.e(TAG, "Error syncing catalog version " + version + ": " + e.getMessage());
+                    mainHandler.post(() -> {
+                        syncing = false;
+                    });
+                }
+            });
+        });
+    }
+
+    private void onSyncDone(long version) {
+        syncing = false;
+        if (publishedVersion != null && publishedVersion != version) {
+            syncIfBehind();
+        }
+    }
+
+    /**
+     * Follows the published catalog version.
+     */
+    private final class VersionListener implements ValueEventListener {
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            // The listener is working again
+            retryDelayMs = INITIAL_RETRY_MS;
+            publishedVersion = snapshot.getValue(Long.class);
+            syncIfBehind();
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.e(TAG, "Catalog sync cancelled, retrying in " + retryDelayMs + " ms: " + error.getMessage());
+            // The SDK has already removed the listener
+            attached = false;
+            mainHandler.removeCallbacks(retry);
+            mainHandler.postDelayed(retry, retryDelayMs);
+            retryDelayMs = Math.min(retryDelayMs * 2, MAX_RETRY_MS);
+        }
+    }
+}
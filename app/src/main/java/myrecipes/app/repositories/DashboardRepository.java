@@ -1,104 +1,144 @@
 /**
- * This class handles all data operations related to recipes in the Firebase Realtime Database.
+ * This class handles all data operations related to recipes, read through a {@link RecipeDataSource}
+ * (the Firebase Realtime Database in the app).
  * It acts as a single source of truth for recipe data in the application.
  */
 package myrecipes.app.repositories;
 
 import android.util.Log;
-import androidx.annotation.NonNull;
 import androidx.lifecycle.MutableLiveData;
-import com.google.firebase.database.*;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
+import myrecipes.app.datasources.DataCallback;
+import myrecipes.app.datasources.RecipeDataSource;
 import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.repositories.RepositoryMetrics.Outcome;
+import myrecipes.app.repositories.RepositoryMetrics.Source;
 
 public class DashboardRepository {
-    // Database references for different nodes in Firebase
-    private final DatabaseReference recipeRef;
-    private final DatabaseReference favouriteRef;
+    // Where the catalog is read from: Firebase in the app, memory in benchmarks
+    private final RecipeDataSource dataSource;
+    // Local copy of the catalog the summaries are served from
+    private final CatalogStore store;
+    // Brings the store to the published catalog version
+    private final CatalogSync catalogSync;
+    // Reads and writes of the local catalog store, in order, off the main thread
+    private static final ExecutorService STORE_EXECUTOR = CatalogStore.getExecutor();
+    // Latency, payload and source of every call below
+    private static final RepositoryMetrics METRICS = RepositoryMetrics.getInstance();
 
     /**
-     * Constructor initializes Firebase database references.
-     * These references point to specific nodes in the Firebase Realtime Database:
+     * Constructor takes the data source to read the catalog from.
+     * With the Firebase one, these nodes of the Firebase Realtime Database are read:
      * - recipes: stores all recipe data
-     * - favourites: stores user favorite relationships
+     * - catalog_meta: catalog version and per-recipe hashes
+     * - popularRecipes: the most popular ranking
+     * The store keeps the catalog between sessions: the file-backed one in the app.
      */
-    public DashboardRepository() {
-        recipeRef = FirebaseDatabase.getInstance().getReference("recipes");
-        favouriteRef = FirebaseDatabase.getInstance().getReference("favourites");
+    public DashboardRepository(RecipeDataSource dataSource, CatalogStore store) {
+        this.dataSource = dataSource;
+        this.store = store;
+        catalogSync = new CatalogSync(dataSource, store);
     }
 
     /**
-     * Retrieves all recipes from Firebase and updates the provided LiveData object.
-     * Uses Firebase's ValueEventListener for one-time data fetch.
+     * Retrieves summaries of all recipes and updates the provided LiveData object.
+     * Only the fields shown in list rows are decoded; the full recipe is loaded
+     * on demand by {@link #getSingleRecipe(String, MutableLiveData)}.
+     * The local {@link CatalogStore} is brought to the published version by the {@link CatalogSync}
+     * first, which reads nothing but the catalog_meta version when the store is current.
+     * Without a connection the stored summaries are used as they are.
+     * Recorded as "dashboard.summaries", with the source the list finally came from.
      *
-     * @param recipeLiveData LiveData object that will be updated with the recipe list
+     * @param summaryLiveData LiveData object that will be updated with the summary list
      */
-    public void getRecipe(MutableLiveData<List<Recipe>> recipeLiveData) {
-        DatabaseReference ref = FirebaseDatabase.getInstance().getReference("recipes");
-        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+    public void getRecipeSummaries(MutableLiveData<List<RecipeSummary>> summaryLiveData) {
+        RepositoryMetrics.Call call = METRICS.start("dashboard.summaries");
+        // A catalog without catalog_meta is still shown, just not stored
+        catalogSync.sync(true, new DataCallback<CatalogSync.Result>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                List<Recipe> recipes = new ArrayList<>();
-                // Iterate through all recipes in the snapshot
-                for (DataSnapshot recipeSnapshot : snapshot.getChildren()) {
-                    try {
-                        // Convert Firebase data to Recipe object
-                        Recipe recipe = recipeSnapshot.getValue(Recipe.class);
-                        if (recipe != null) {
-                            // Set the Firebase key as recipe ID
-                            recipe.setId(recipeSnapshot.getKey());
-                            recipes.add(recipe);
-                        }
-                    } catch (Exception e) {
-                        Log.e("DashboardRepository", "Error parsing recipe: " + e.getMessage());
-                    }
-                }
-                // Update LiveData with the new list
-                recipeLiveData.setValue(recipes);
+            public void onSuccess(CatalogSync.Result result) {
+                List<RecipeSummary> summaries = result.getSummaries();
+                summaryLiveData.postValue(summaries);
+                call.finish(result.getSource(), Outcome.SUCCESS, result.getSource() == Source.NETWORK
+                        ? result.getBytes() : RepositoryMetrics.estimateBytes(summaries));
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("DashboardRepository", "Error loading recipes: " + error.getMessage());
-                // Return empty list in case of error
-                recipeLiveData.postValue(new ArrayList<>());
+            public void onFailure(Exception e) {
+                Log.e("DashboardRepository", "Error syncing catalog: " + e.getMessage());
+                postStoredSummaries(summaryLiveData, call);
             }
         });
     }
 
+    /**
+     * Falls back to the stored catalog, which is empty if nothing was ever synced.
+     */
+    private void postStoredSummaries(MutableLiveData<List<RecipeSummary>> summaryLiveData,
+                                            RepositoryMetrics.Call call) {
+        STORE_EXECUTOR.execute(() -> {
+            Source storedSource = store.isLoaded() ? Source.MEMORY : Source.DISK;
+            List<RecipeSummary> summaries = store.getSummaries();
+            summaryLiveData.postValue(summaries);
+            call.finish(storedSource, summaries.isEmpty() ? Outcome.FAILURE : Outcome.STALE,
+                    RepositoryMetrics.estimateBytes(summaries));
+        });
+    }
+
     /**
      * Retrieves a single recipe by its ID.
-     * Includes detailed logging for debugging purposes.
+     * Recorded as "dashboard.recipe"; the timings replace the per-recipe debug log.
      *
      * @param recipeId ID of the recipe to retrieve
      * @param recipeLiveData LiveData object that will be updated with the single recipe
      */
     public void getSingleRecipe(String recipeId, MutableLiveData<Recipe> recipeLiveData) {
-        recipeRef.child(recipeId).addListenerForSingleValueEvent(new ValueEventListener() {
+        RepositoryMetrics.Call call = METRICS.start("dashboard.recipe");
+        dataSource.getRecipe(recipeId, new DataCallback<Recipe>() {
             @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                // Debug logging of raw data
-                Log.d("DashboardRepository", "Raw data: " + snapshot.getValue());
-                Log.d("DashboardRepository", "Calories field: " +
-                        snapshot.child("calorias_totales").getValue());
-
-                Recipe recipe = snapshot.getValue(Recipe.class);
+            public void onSuccess(Recipe recipe) {
                 if (recipe != null) {
-                    recipe.setId(snapshot.getKey());
-                    Log.d("DashboardRepository", "Parsed Recipe - Title: " + recipe.getTitle()
-                            + ", Calories: " + recipe.getCalories());
-                    recipeLiveData.setValue(recipe);
+                    call.finish(Source.NETWORK, Outcome.SUCCESS, RepositoryMetrics.estimateBytes(recipe));
+                    recipeLiveData.postValue(recipe);
                 } else {
-                    Log.e("DashboardRepository", "Failed to parse recipe");
+                    call.finish(Source.NETWORK, Outcome.NOT_FOUND, 0);
+                    Log.e("DashboardRepository", "Failed to parse recipe " + recipeId);
                 }
             }
 
             @Override
-            public void onCancelled(DatabaseError error) {
-                Log.e("DashboardRepository", "Error loading recipe: " + error.getMessage());
+            public void onFailure(Exception e) {
+                call.fail();
+                Log.e("DashboardRepository", "Error loading recipe: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Retrieves the "most popular" ranking aggregated by the PopularityWorker.
+     * Reads the single popularRecipes/top node, a few dozen entries, instead of the
+     * favourite counters of every recipe. An empty map is posted when there is no ranking yet.
+     *
+     * @param popularityLiveData LiveData object that will be updated with recipe ID -> favourite count
+     */
+    public void getPopularRecipes(MutableLiveData<Map<String, Integer>> popularityLiveData) {
+        RepositoryMetrics.Call call = METRICS.start("dashboard.popularity");
+        dataSource.getPopularity(new DataCallback<Map<String, Integer>>() {
+            @Override
+            public void onSuccess(Map<String, Integer> counts) {
+                call.finish(Source.NETWORK, counts.isEmpty() ? Outcome.NOT_FOUND : Outcome.SUCCESS,
+                        RepositoryMetrics.estimateBytes(counts));
+                popularityLiveData.postValue(counts);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                call.fail();
+                Log.e("DashboardRepository", "Error loading popular recipes: " + e.getMessage());
             }
         });
     }
@@ -110,30 +150,21 @@ public class DashboardRepository {
      */
 
     public void getRandomRecipe(MutableLiveData<Recipe> recipeLiveData) {
-        recipeRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        RepositoryMetrics.Call call = METRICS.start("dashboard.random");
+        dataSource.getRandomRecipe(new DataCallback<Recipe>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                List<Recipe> recipes = new ArrayList<>();
-                for (DataSnapshot recipeSnapshot : snapshot.getChildren()) {
-                    Recipe recipe = recipeSnapshot.getValue(Recipe.class);
-                    if (recipe != null) {
-                        recipe.setId(recipeSnapshot.getKey());
-                        recipes.add(recipe);
-                    }
-                }
-                if (!recipes.isEmpty()) {
-                    int randomIndex = new Random().nextInt(recipes.size());
-                    recipeLiveData.setValue(recipes.get(randomIndex));
-                } else {
-                    recipeLiveData.setValue(null);
-                }
+            public void onSuccess(Recipe recipe) {
+                call.finish(Source.NETWORK, recipe != null ? Outcome.SUCCESS : Outcome.NOT_FOUND,
+                        RepositoryMetrics.estimateBytes(recipe));
+                recipeLiveData.postValue(recipe);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("DashboardRepository", "Error loading recipes: " + error.getMessage());
-                recipeLiveData.setValue(null);
+            public void onFailure(Exception e) {
+                call.fail();
+                Log.e("DashboardRepository", "Error loading recipes: " + e.getMessage());
+                recipeLiveData.postValue(null);
             }
         });
     }
-}
\ No newline at end of file
+}
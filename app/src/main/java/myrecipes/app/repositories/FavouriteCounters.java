@@ -0,0 +1,48 @@
+/**
+ * Favourite count of every recipe, kept in sharded counters under favouriteCounts/{recipeId}.
+ * A single counter node is a hotspot when many users favourite the same recipe at once:
+ * every increment contends on one location. Each increment goes to one of a few shards
+ * chosen at random instead, and the count is the sum of the shards.
+ * The increments are added to the same multi-path update as the userFavorites change,
+ * so a favourite and its count are written together or not at all.
+ */
+package myrecipes.app.repositories;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.ServerValue;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+public final class FavouriteCounters {
+    public static final String COUNTS_PATH = "favouriteCounts";
+    public static final int SHARDS = 8;
+
+    private FavouriteCounters() {
+    }
+
+    /**
+     * Adds the increment of one recipe's counter to a multi-path update on the database root.
+     *
+     * @param updates Path -> value map passed to updateChildren on the root reference
+     * @param recipeId Recipe whose count changes
+     * @param delta +1 when favourited, -1 when removed
+     */
+    public static void addTo(Map<String, Object> updates, String recipeId, int delta) {
+        int shard = ThreadLocalRandom.current().nextInt(SHARDS);
+        updates.put(COUNTS_PATH + "/" + recipeId + "/" + shard, ServerValue.increment(delta));
+    }
+
+    /**
+     * Sums the shards of one recipe's counter snapshot.
+     */
+    public static long sum(DataSnapshot counter) {
+        long total = 0;
+        for (DataSnapshot shard : counter.getChildren()) {
+            Long value = shard.getValue(Long.class);
+            if (value != null) {
+                total += value;
+            }
+        }
+        return total;
+    }
+}
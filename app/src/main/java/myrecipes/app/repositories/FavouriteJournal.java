@@ -0,0 +1,259 @@
+/**
+ * Append-only journal of favourite changes that the server hasn't confirmed yet,
+ * so toggles made offline survive the process being killed.
+ * Every toggle is appended as "set this recipe to this status", which is safe to write again,
+ * so replaying an entry that did reach the server changes nothing.
+ * Appends are written by a background thread; everything appended while a write is queued
+ * goes out with a single fsync. Confirmed entries are dropped by rewriting the file with only
+ * the last unconfirmed entry of each recipe.
+ */
+package myrecipes.app.repositories;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public final class FavouriteJournal {
+    private static final String TAG = "FavouriteJournal";
+    private static final String FILE_NAME = "favourite_journal.log";
+    private static volatile FavouriteJournal instance;
+
+    private final File file;
+    // Disk writes, in order
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    // Unconfirmed entries in append order; guarded by this
+    private final List<Entry> entries = new ArrayList<>();
+    // Lines appended but not written yet; guarded by this
+    private final StringBuilder unwritten = new StringBuilder();
+    private boolean writeScheduled;
+    private boolean loaded;
+    private long nextSeq = 1;
+
+    /**
+     * One toggle: the status a recipe should have for a user.
+     */
+    public static final class Entry {
+        public final long seq;
+        public final long timeMillis;
+        public final String userId;
+        public final String recipeId;
+        public final boolean favourite;
+
+        Entry(long seq, long timeMillis, String userId, String recipeId, boolean favourite) {
+            this.seq = seq;
+            this.timeMillis = timeMillis;
+            this.userId = userId;
+            this.recipeId = recipeId;
+            this.favourite = favourite;
+        }
+
+        String toLine() {
+            return seq + "\t" + timeMillis + "\t" + userId + "\t" + recipeId + "\t" + (favourite ? 1 : 0) + "\n";
+        }
+
+        static Entry fromLine(String line) {
+            String[] fields = line.split("\t");
+            if (fields.length != 5) {
+                return null;
+            }
+            try {
+                return new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                        fields[2], fields[3], "1".equals(fields[4]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private FavouriteJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets up the journal. Called once from the Application; the file is read on first access.
+     */
+    public static void init(Context context) {
+        if (instance == null) {
+            instance = new FavouriteJournal(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+        }
+    }
+
+    public static FavouriteJournal getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("FavouriteJournal not initialized");
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the file if that hasn't happened yet. Does disk I/O.
+     * A line cut short by a crash during a write is skipped.
+     */
+    public synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.isFile()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Entry entry = Entry.fromLine(line);
+                if (entry != null) {
+                    entries.add(entry);
+                    nextSeq = Math.max(nextSeq, entry.seq + 1);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading favourite journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records a toggle. Returns right away; the entry reaches the disk with the next batch.
+     *
+     * @return Sequence number of the entry, used to confirm it
+     */
+    public synchronized long append(String userId, String recipeId, boolean favourite) {
+        load();
+        Entry entry = new Entry(nextSeq++, System.currentTimeMillis(), userId, recipeId, favourite);
+        entries.add(entry);
+        unwritten.append(entry.toLine());
+        if (!writeScheduled) {
+            writeScheduled = true;
+            diskExecutor.execute(this::writeBatch);
+        }
+        return entry.seq;
+    }
+
+    /**
+     * Unconfirmed changes of a user, one per recipe (the latest), oldest first.
+     */
+    public synchronized List<Entry> getPending(String userId) {
+        load();
+        Map<String, Entry> latest = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            if (entry.userId.equals(userId)) {
+                // Re-inserting moves the recipe to the position of its latest change
+                latest.remove(entry.recipeId);
+                latest.put(entry.recipeId, entry);
+            }
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    /**
+     * Drops the entries the server confirmed and compacts the file.
+     *
+     * @param userId User the write was made for
+     * @param confirmed Recipe ID -> sequence number of the latest entry the write contained;
+     *                  later entries of the recipe stay
+     */
+    public synchronized void acknowledge(String userId, Map<String, Long> confirmed) {
+        boolean removed = false;
+        for (Iterator<Entry> it = entries.iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            Long upTo = entry.userId.equals(userId) ? confirmed.get(entry.recipeId) : null;
+            if (upTo != null && entry.seq <= upTo) {
+                it.remove();
+                removed = true;
+            }
+        }
+        if (removed) {
+            diskExecutor.execute(this::rewrite);
+        }
+    }
+
+    /**
+     * Number of unconfirmed recipe changes, counting each recipe of a user once.
+     */
+    public synchronized int getDepth() {
+        load();
+        return compact(entries).size();
+    }
+
+    /**
+     * Milliseconds since the oldest unconfirmed entry was appended, or 0 if there is none.
+     */
+    public synchronized long getOldestAgeMs() {
+        load();
+        return entries.isEmpty() ? 0 : System.currentTimeMillis() - entries.get(0).timeMillis;
+    }
+
+    /**
+     * Keeps the latest entry per user and recipe, in append order.
+     */
+    private static List<Entry> compact(List<Entry> entries) {
+        Map<String, Entry> latest = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            String key = entry.userId + "/" + entry.recipeId;
+            latest.remove(key);
+            latest.put(key, entry);
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    /**
+     * Appends everything queued so far with one write and one fsync.
+     */
+    private void writeBatch() {
+        String batch;
+        synchronized (this) {
+            writeScheduled = false;
+            batch = unwritten.toString();
+            unwritten.setLength(0);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(batch.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing favourite journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the file through a synced temporary file, so a crash leaves the old or the new one.
+     * The content is taken when the rewrite runs and includes entries not written yet.
+     */
+    private void rewrite() {
+        StringBuilder content = new StringBuilder();
+        synchronized (this) {
+            for (Entry entry : compact(entries)) {
+                content.append(entry.toLine());
+            }
+            unwritten.setLength(0);
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(content.toString().getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Error compacting favourite journal: " + e.getMessage());
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            Log.e(TAG, "Cannot replace " + file);
+        }
+    }
+}
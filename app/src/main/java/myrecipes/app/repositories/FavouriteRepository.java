@@ -4,119 +4,264 @@
  */
 package myrecipes.app.repositories;
 
-import androidx.annotation.NonNull;
+import android.util.Log;
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import myrecipes.app.models.Recipe;
+import java.util.Map;
+import java.util.Set;
+import myrecipes.app.datasources.DataCallback;
+import myrecipes.app.datasources.FavouriteDataSource;
+import myrecipes.app.datasources.RecipeDataSource;
+import myrecipes.app.datasources.UserDataSource;
+import myrecipes.app.models.FavouritePage;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.repositories.RepositoryMetrics.Outcome;
+import myrecipes.app.repositories.RepositoryMetrics.Source;
 
 public class FavouriteRepository {
-    private final DatabaseReference favouriteRef;
-    private final FirebaseAuth auth;
+    private final FavouriteDataSource favourites;
+    private final RecipeDataSource recipes;
+    private final UserDataSource users;
+    // Local catalog the recipes of a page are looked up in first
+    private final CatalogStore catalog;
+    // Latency, payload and source of every page read
+    private static final RepositoryMetrics METRICS = RepositoryMetrics.getInstance();
 
     /**
-     * Constructor initializes Firebase Authentication and Database references.
-     * The userFavorites node stores the favorite status for each user-recipe combination.
+     * Constructor takes the data sources to read favourites, recipes and the signed in user from.
+     * With the Firebase ones, the userFavorites node stores the favorite status for each
+     * user-recipe combination.
+     * Recipes already in the catalog store are not read again.
      */
-    public FavouriteRepository() {
-        auth = FirebaseAuth.getInstance();
-        favouriteRef = FirebaseDatabase.getInstance().getReference("userFavorites");
+    public FavouriteRepository(FavouriteDataSource favourites, RecipeDataSource recipes, UserDataSource users,
+                               CatalogStore catalog) {
+        this.favourites = favourites;
+        this.recipes = recipes;
+        this.users = users;
+        this.catalog = catalog;
     }
 
     /**
-     * Retrieves all favorite recipes for the current user.
+     * Retrieves one page of the current user's favorite recipes.
      * This is a two-step process:
-     * 1. Get all favorite recipe IDs for the user
-     * 2. Fetch the actual recipe data for each ID
+     * 1. Get the next favorite recipe IDs after the given key (keyset pagination)
+     * 2. Resolve each recipe of the page: from the local catalog when it is stored there,
+     *    with one read per recipe otherwise
+     * Memory and time depend on the page size only, not on the number of favorites.
+     * Recorded as "favourites.page": from the network when any recipe had to be read,
+     * from the local catalog otherwise.
      *
-     * @param recipeLiveData LiveData object to be updated with the list of favorite recipes
+     * @param afterKey Last key of the previous page, or null for the first page
+     * @param pageSize Maximum number of favorites in the page
+     * @param pageLiveData LiveData object to be updated with the page, or null if loading failed
      */
-    public void getFavourites(MutableLiveData<List<Recipe>> recipeLiveData) {
-        String userId = auth.getCurrentUser().getUid();
-        DatabaseReference userFavoritesRef = favouriteRef.child(userId);
-        DatabaseReference recipesRef = FirebaseDatabase.getInstance().getReference("recipes");
+    public void getFavouritesPage(String afterKey, int pageSize, MutableLiveData<FavouritePage> pageLiveData) {
+        getFavouritesPage(afterKey, pageSize, new DataCallback<FavouritePage>() {
+            @Override
+            public void onSuccess(FavouritePage page) {
+                pageLiveData.postValue(page);
+            }
 
-        userFavoritesRef.addValueEventListener(new ValueEventListener() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                // Step 1: Collect all favorite recipe IDs
-                List<String> favoriteIds = new ArrayList<>();
-                for (DataSnapshot favoriteSnapshot : snapshot.getChildren()) {
-                    if (Boolean.TRUE.equals(favoriteSnapshot.getValue(Boolean.class))) {
-                        favoriteIds.add(favoriteSnapshot.getKey());
+            public void onFailure(Exception e) {
+                pageLiveData.postValue(null);
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #getFavouritesPage(String, int, MutableLiveData)}, for callers without a
+     * screen such as background jobs. Failures are logged before they are passed on.
+     *
+     * @param callback Called on the thread the last read completed on
+     */
+    public void getFavouritesPage(String afterKey, int pageSize, DataCallback<FavouritePage> callback) {
+        RepositoryMetrics.Call call = METRICS.start("favourites.page");
+        String userId = users.getCurrentUserId();
+        // The Firebase source uses get(), so the page reflects the server, not an older disk cache
+        favourites.getFavouriteKeys(userId, afterKey, pageSize,
+                new DataCallback<LinkedHashMap<String, Boolean>>() {
+            @Override
+            public void onSuccess(LinkedHashMap<String, Boolean> keys) {
+                // Step 1: Collect the favorite recipe IDs of the page
+                List<String> favoriteIds = new ArrayList<>(pageSize);
+                String lastKey = afterKey;
+                for (Map.Entry<String, Boolean> favorite : keys.entrySet()) {
+                    lastKey = favorite.getKey();
+                    if (favorite.getValue()) {
+                        favoriteIds.add(favorite.getKey());
                     }
                 }
+                boolean hasMore = keys.size() == pageSize;
+                // Step 2: Apply the toggles the server hasn't confirmed yet
+                applyUnconfirmed(userId, afterKey, lastKey, hasMore, favoriteIds);
+                // Step 3: Resolve the recipes of the page
+                resolveRecipes(favoriteIds, new FavouritePageBuilder(afterKey, lastKey, hasMore), callback,
+                        call, RepositoryMetrics.estimateBytes(keys));
+            }
 
-                // Step 2: Fetch recipe data for each favorite ID
-                recipesRef.addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot recipesSnapshot) {
-                        List<Recipe> recipes = new ArrayList<>();
-                        for (String favoriteId : favoriteIds) {
-                            DataSnapshot recipeSnapshot = recipesSnapshot.child(favoriteId);
-                            Recipe recipe = recipeSnapshot.getValue(Recipe.class);
-                            if (recipe != null) {
-                                recipe.setId(favoriteId);
-                                recipes.add(recipe);
-                            }
-                        }
-                        recipeLiveData.setValue(recipes);
-                    }
+            @Override
+            public void onFailure(Exception e) {
+                call.fail();
+                Log.e("FavouriteRepository", "Error loading favourites: " + e.getMessage());
+                callback.onFailure(e);
+            }
+        });
+    }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        // Handle error
-                    }
-                });
+    /**
+     * Makes a page read from the server agree with the optimistic local statuses: recipes
+     * unfavourited locally are dropped, and recipes favourited locally whose key falls within
+     * the page are merged in key order. Only unconfirmed toggles are checked, since for the
+     * rest the server keys are current; a status the source hasn't loaded yet isn't trusted.
+     */
+    private void applyUnconfirmed(String userId, String afterKey, String lastKey, boolean hasMore,
+                                  List<String> favoriteIds) {
+        Set<String> unconfirmed = favourites.getUnconfirmed(userId);
+        if (unconfirmed.isEmpty()) {
+            return;
+        }
+        boolean added = false;
+        for (String recipeId : unconfirmed) {
+            if (!favourites.isFavourite(userId, recipeId)) {
+                favoriteIds.remove(recipeId);
+            } else if (!favoriteIds.contains(recipeId) && isWithinPage(recipeId, afterKey, lastKey, hasMore)) {
+                favoriteIds.add(recipeId);
+                added = true;
             }
+        }
+        if (added) {
+            Collections.sort(favoriteIds, CatalogStore.KEY_ORDER);
+        }
+    }
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                // Handle error
+    /**
+     * Whether a key belongs to the page after afterKey that ends at lastKey; the last page
+     * takes every key after afterKey.
+     */
+    private static boolean isWithinPage(String key, String afterKey, String lastKey, boolean hasMore) {
+        if (afterKey != null && CatalogStore.KEY_ORDER.compare(key, afterKey) <= 0) {
+            return false;
+        }
+        return !hasMore || CatalogStore.KEY_ORDER.compare(key, lastKey) <= 0;
+    }
+
+    /**
+     * Looks the recipes up in the local catalog and reads only the missing ones.
+     *
+     * @param keyBytes Estimated size of the favourite keys already read
+     */
+    private void resolveRecipes(List<String> favoriteIds, FavouritePageBuilder page,
+                                DataCallback<FavouritePage> callback,
+                                RepositoryMetrics.Call call, long keyBytes) {
+        CatalogStore.getExecutor().execute(() -> {
+            // Checked before the store is first read below
+            Source storedSource = catalog.isLoaded() ? Source.MEMORY : Source.DISK;
+            Map<String, RecipeSummary> resolved = new HashMap<>(favoriteIds.size() * 2);
+            List<String> missing = new ArrayList<>();
+            for (String favoriteId : favoriteIds) {
+                RecipeSummary stored = catalog.getSummary(favoriteId);
+                if (stored != null) {
+                    resolved.put(favoriteId, stored);
+                } else {
+                    missing.add(favoriteId);
+                }
+            }
+            if (missing.isEmpty()) {
+                callback.onSuccess(page.build(favoriteIds, resolved));
+                call.finish(storedSource, Outcome.SUCCESS, keyBytes);
+                return;
             }
+            recipes.getSummaries(missing, new DataCallback<List<RecipeSummary>>() {
+                @Override
+                public void onSuccess(List<RecipeSummary> summaries) {
+                    for (RecipeSummary summary : summaries) {
+                        resolved.put(summary.getId(), summary);
+                    }
+                    callback.onSuccess(page.build(favoriteIds, resolved));
+                    call.finish(Source.NETWORK, Outcome.SUCCESS,
+                            keyBytes + RepositoryMetrics.estimateBytes(summaries));
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    call.fail();
+                    Log.e("FavouriteRepository", "Error loading favourite recipes: " + e.getMessage());
+                    callback.onFailure(e);
+                }
+            });
         });
     }
 
     /**
-     * Toggles the favorite status of a recipe for the current user.
+     * Position of a page while its recipes are being resolved.
+     */
+    private static final class FavouritePageBuilder {
+        final String afterKey;
+        final String lastKey;
+        final boolean hasMore;
+
+        FavouritePageBuilder(String afterKey, String lastKey, boolean hasMore) {
+            this.afterKey = afterKey;
+            this.lastKey = lastKey;
+            this.hasMore = hasMore;
+        }
+
+        FavouritePage build(List<String> favoriteIds, Map<String, RecipeSummary> resolved) {
+            List<RecipeSummary> recipes = new ArrayList<>(favoriteIds.size());
+            for (String favoriteId : favoriteIds) {
+                RecipeSummary summary = resolved.get(favoriteId);
+                if (summary != null) {
+                    recipes.add(summary);
+                }
+            }
+            return new FavouritePage(afterKey, recipes, lastKey, hasMore);
+        }
+    }
+
+    /**
+     * Sets the favorite status of a recipe for the current user.
+     * The status changes locally right away; with Firebase, the write is coalesced with
+     * other toggles by {@link FavouriteStore} and rolled back if it fails.
      *
      * @param recipeId ID of the recipe to toggle
      * @param isFavorite true to add to favorites, false to remove
      */
     public void toggleFavorite(String recipeId, boolean isFavorite) {
-        String userId = auth.getCurrentUser().getUid();
-        if (isFavorite) {
-            // Add to favorites by setting value to true
-            favouriteRef.child(userId).child(recipeId).setValue(true);
-        } else {
-            // Remove from favorites by removing the node
-            favouriteRef.child(userId).child(recipeId).removeValue();
-        }
+        favourites.setFavourite(users.getCurrentUserId(), recipeId, isFavorite);
     }
 
     /**
-     * Checks if a recipe is in the user's favorites.
-     * Uses a ValueEventListener to stay updated with changes.
+     * Returns the favorite status of a recipe, null until it is known.
+     * With Firebase this is served by {@link FavouriteStore}, which keeps one listener
+     * on the user's favorites no matter how many recipes are checked.
      *
      * @param recipeId ID of the recipe to check
-     * @param isFavoriteLiveData LiveData object to be updated with the favorite status
+     * @return Status of the recipe, updated on every change
      */
-    public void checkIsFavorite(String recipeId, MutableLiveData<Boolean> isFavoriteLiveData) {
-        String userId = auth.getCurrentUser().getUid();
-        favouriteRef.child(userId).child(recipeId)
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        // snapshot.exists() returns true if the recipe is in favorites
-                        isFavoriteLiveData.setValue(snapshot.exists());
-                    }
+    public LiveData<Boolean> observeFavorite(String recipeId) {
+        return favourites.observe(users.getCurrentUserId(), recipeId);
+    }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        // Handle error
-                    }
-                });
+    /**
+     * Checks if a recipe is in the user's favorites right now, without a database read.
+     *
+     * @param recipeId ID of the recipe to check
+     * @return true if the recipe is a favorite, including toggles not saved yet
+     */
+    public boolean isFavorite(String recipeId) {
+        return favourites.isFavourite(users.getCurrentUserId(), recipeId);
+    }
+
+    /**
+     * Changes whenever the user's favorites change, including toggles not saved yet.
+     */
+    public int getRevision() {
+        return favourites.getRevision();
     }
 }
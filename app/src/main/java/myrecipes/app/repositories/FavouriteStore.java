@@ -0,0 +1,427 @@
+/**
+ * In-memory favourites of the signed in user, updated optimistically when the user toggles.
+ * Demonstrates optimistic UI state with write coalescing and rollback.
+ * A toggle changes the local state right away and is queued; toggles that arrive within
+ * a short window are flushed together as one multi-path updateChildren write, and a recipe
+ * toggled back to where it started is dropped from the write altogether.
+ * If the write fails, the recipes it contained go back to their previous state, unless
+ * the user toggled them again in the meantime.
+ * Every toggle is also recorded in the {@link FavouriteJournal} until the server confirms it.
+ * Writes wait for a connection, and toggles left in the journal by a previous process are
+ * queued again when the user is set, so they are written once the device is back online.
+ * The server state comes from a single child listener on userFavorites/{uid}, however many
+ * recipes are shown: status checks are set lookups, and the per-recipe LiveData are all fed
+ * from that one listener.
+ * Each write also updates the {@link FavouriteCounters} of the recipes whose state changed.
+ * The app shares one store from {@link #getInstance()}; tests build their own on the database
+ * they point at, with a {@link DatabaseReadObserver} that sees the listener's reads.
+ */
+package myrecipes.app.repositories;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import myrecipes.app.datasources.DatabaseReadObserver;
+
+public final class FavouriteStore {
+    private static final String TAG = "FavouriteStore";
+    private static volatile FavouriteStore instance;
+    // Toggles within this window are written together
+    private static final long COALESCE_WINDOW_MS = 500;
+
+    private final FirebaseDatabase database;
+    private final DatabaseReadObserver readObserver;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flush = this::flush;
+    // Everything below is only touched on the main thread
+    private String userId;
+    // Local state, including toggles not written yet
+    private final Set<String> favourites = new HashSet<>();
+    // Recipes whose state is known from a toggle before the server state arrived
+    private final Set<String> known = new HashSet<>();
+    // True once the initial favourites of the user arrived; every status is known from then on
+    private boolean remoteLoaded;
+    private DatabaseReference userFavouritesRef;
+    private final ChildEventListener favouritesListener = new FavouritesListener();
+    // Toggled but not written yet: recipe ID -> state before the first toggle of the window,
+    // null until the server state is known (replayed from the journal, or toggled before the
+    // favourites arrived)
+    private final Map<String, Boolean> pending = new LinkedHashMap<>();
+    // Pending recipes of unknown previous state that the initial server read lists as favourites
+    private final Set<String> pendingOnServer = new HashSet<>();
+    // Journal sequence number of the latest toggle of each pending recipe
+    private final Map<String, Long> pendingSeq = new HashMap<>();
+    // Written but not confirmed yet: recipe ID -> number of writes still running
+    private final Map<String, Integer> inFlight = new HashMap<>();
+    private final Map<String, MutableLiveData<Boolean>> statusLiveData = new HashMap<>();
+    // Per-recipe LiveData nobody observes are dropped once there are more than this
+    private static final int MAX_UNOBSERVED_STATUS = 256;
+    // Incremented whenever the local favourites change
+    private int revision;
+    private boolean connected;
+    private boolean connectionWatched;
+
+    public FavouriteStore(FirebaseDatabase database, DatabaseReadObserver readObserver) {
+        this.database = database;
+        this.readObserver = readObserver;
+    }
+
+    /**
+     * The store of the app, on the default database. Created on first use, once Firebase
+     * is initialized.
+     */
+    public static FavouriteStore getInstance() {
+        if (instance == null) {
+            synchronized (FavouriteStore.class) {
+                if (instance == null) {
+                    instance = new FavouriteStore(FirebaseDatabase.getInstance(), DatabaseReadObserver.NONE);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Switches to another user, dropping the state of the previous one.
+     * Toggles of the previous user that weren't flushed yet are written first.
+     */
+    public void setUser(String newUserId) {
+        if (newUserId == null ? userId == null : newUserId.equals(userId)) {
+            return;
+        }
+        mainHandler.removeCallbacks(flush);
+        flush();
+        if (userFavouritesRef != null) {
+            userFavouritesRef.removeEventListener(favouritesListener);
+            userFavouritesRef = null;
+        }
+        userId = newUserId;
+        revision++;
+        favourites.clear();
+        known.clear();
+        remoteLoaded = false;
+        pending.clear();
+        pendingSeq.clear();
+        pendingOnServer.clear();
+        inFlight.clear();
+        for (MutableLiveData<Boolean> status : statusLiveData.values()) {
+            status.setValue(null);
+        }
+        if (newUserId == null) {
+            return;
+        }
+        watchConnection();
+        subscribe(newUserId);
+        // Toggles a previous process couldn't write. Their write may have reached the server
+        // before the process died, so their previous state is taken from the server once the
+        // favourites arrived, and the counters change only if the server state differs
+        for (FavouriteJournal.Entry entry : FavouriteJournal.getInstance().getPending(newUserId)) {
+            pending.put(entry.recipeId, null);
+            pendingSeq.put(entry.recipeId, entry.seq);
+            setLocal(entry.recipeId, entry.favourite);
+        }
+        flush();
+    }
+
+    /**
+     * Attaches the one listener for the user's favourites. The single value read that follows
+     * completes after the initial children were delivered, which marks every status as known.
+     */
+    private void subscribe(String subscribedUserId) {
+        String path = "userFavorites/" + subscribedUserId;
+        userFavouritesRef = database.getReference(path);
+        readObserver.onListenerAttached(path);
+        userFavouritesRef.addChildEventListener(favouritesListener);
+        // Answered from the data the child listener downloads, so not reported as another read
+        userFavouritesRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (!subscribedUserId.equals(userId) || remoteLoaded) {
+                    return;
+                }
+                remoteLoaded = true;
+                for (Map.Entry<String, MutableLiveData<Boolean>> entry : statusLiveData.entrySet()) {
+                    if (entry.getValue().getValue() == null) {
+                        entry.getValue().setValue(favourites.contains(entry.getKey()));
+                    }
+                }
+                // Every server state is known now: the pending toggles that were waiting for it
+                for (Map.Entry<String, Boolean> entry : pending.entrySet()) {
+                    if (entry.getValue() == null) {
+                        entry.setValue(pendingOnServer.contains(entry.getKey()));
+                    }
+                }
+                pendingOnServer.clear();
+                flush();
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error loading favourites: " + error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Flushes the queued toggles whenever the connection to the database comes back.
+     */
+    private void watchConnection() {
+        if (connectionWatched) {
+            return;
+        }
+        connectionWatched = true;
+        database.getReference(".info/connected")
+                .addValueEventListener(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        connected = Boolean.TRUE.equals(snapshot.getValue(Boolean.class));
+                        if (connected) {
+                            flush();
+                        }
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Connection state unavailable: " + error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Favourite status of a recipe: null until it is known, then updated on every change.
+     */
+    public LiveData<Boolean> observe(String recipeId) {
+        MutableLiveData<Boolean> status = statusLiveData.get(recipeId);
+        if (status == null) {
+            if (statusLiveData.size() >= MAX_UNOBSERVED_STATUS) {
+                statusLiveData.values().removeIf(unused -> !unused.hasObservers());
+            }
+            status = new MutableLiveData<>(isKnown(recipeId) ? favourites.contains(recipeId) : null);
+            statusLiveData.put(recipeId, status);
+        }
+        return status;
+    }
+
+    private boolean isKnown(String recipeId) {
+        return remoteLoaded || known.contains(recipeId);
+    }
+
+    /**
+     * Number of recipe changes not confirmed by the server yet, including other users'.
+     */
+    public int getQueueDepth() {
+        return FavouriteJournal.getInstance().getDepth();
+    }
+
+    /**
+     * Milliseconds the oldest unconfirmed change has been waiting, 0 if there is none.
+     */
+    public long getOldestPendingAgeMs() {
+        return FavouriteJournal.getInstance().getOldestAgeMs();
+    }
+
+    /**
+     * Changes whenever a recipe is added to or removed from the local favourites,
+     * so screens can tell whether a list they loaded is out of date.
+     */
+    public int getRevision() {
+        return revision;
+    }
+
+    /**
+     * Current local status, including toggles that weren't written yet. A set lookup.
+     */
+    public boolean isFavourite(String recipeId) {
+        return favourites.contains(recipeId);
+    }
+
+    /**
+     * Recipes of the user toggled but not confirmed by the server yet, queued or being
+     * written: their local status is newer than anything read from the server.
+     *
+     * @param forUserId User the caller is reading; other users have no unconfirmed toggles here
+     */
+    public Set<String> getUnconfirmed(String forUserId) {
+        if (forUserId == null || !forUserId.equals(userId) || (pending.isEmpty() && inFlight.isEmpty())) {
+            return Collections.emptySet();
+        }
+        Set<String> unconfirmed = new HashSet<>(pending.keySet());
+        unconfirmed.addAll(inFlight.keySet());
+        return unconfirmed;
+    }
+
+    /**
+     * Applies a status read from the server. Ignored while a toggle of the recipe is pending
+     * or being written, since the local state is newer; for a pending toggle whose previous
+     * state is unknown, it is kept as that previous state.
+     */
+    public void onRemoteStatus(String recipeId, boolean isFavourite) {
+        if (pending.containsKey(recipeId) && pending.get(recipeId) == null) {
+            if (isFavourite) {
+                pendingOnServer.add(recipeId);
+            } else {
+                pendingOnServer.remove(recipeId);
+            }
+            return;
+        }
+        if (pending.containsKey(recipeId) || inFlight.containsKey(recipeId)) {
+            return;
+        }
+        setLocal(recipeId, isFavourite);
+    }
+
+    /**
+     * Sets the status of a recipe right away and queues the write.
+     *
+     * @param recipeId Recipe to change
+     * @param isFavourite New status
+     */
+    public void setFavourite(String recipeId, boolean isFavourite) {
+        if (userId == null) {
+            return;
+        }
+        boolean previous = favourites.contains(recipeId);
+        if (isKnown(recipeId) && previous == isFavourite) {
+            return;
+        }
+        long seq = FavouriteJournal.getInstance().append(userId, recipeId, isFavourite);
+        if (!pending.containsKey(recipeId)) {
+            pending.put(recipeId, isKnown(recipeId) ? previous : null);
+            pendingSeq.put(recipeId, seq);
+        } else if (Boolean.valueOf(isFavourite).equals(pending.get(recipeId)) && !inFlight.containsKey(recipeId)) {
+            // Toggled back within the window: nothing to write
+            pending.remove(recipeId);
+            pendingSeq.remove(recipeId);
+            FavouriteJournal.getInstance().acknowledge(userId, Collections.singletonMap(recipeId, seq));
+        } else {
+            pendingSeq.put(recipeId, seq);
+        }
+        setLocal(recipeId, isFavourite);
+        mainHandler.removeCallbacks(flush);
+        if (!pending.isEmpty()) {
+            mainHandler.postDelayed(flush, COALESCE_WINDOW_MS);
+        }
+    }
+
+    /**
+     * Writes the pending toggles as one multi-path update below userFavorites/{uid}.
+     * Offline, they stay queued until the connection comes back, and while the previous state
+     * of one of them is unknown, until the favourites arrived.
+     */
+    private void flush() {
+        if (pending.isEmpty() || userId == null || !connected) {
+            return;
+        }
+        if (pending.containsValue(null)) {
+            // The counter change depends on the server state; the initial read calls flush again
+            return;
+        }
+        // true sets the favourite, null removes the node; paths are relative to the root
+        Map<String, Object> updates = new HashMap<>();
+        Map<String, Boolean> rollback = new HashMap<>(pending);
+        Map<String, Long> journaled = new HashMap<>(pendingSeq);
+        for (Map.Entry<String, Boolean> entry : pending.entrySet()) {
+            String recipeId = entry.getKey();
+            boolean favourite = favourites.contains(recipeId);
+            updates.put("userFavorites/" + userId + "/" + recipeId, favourite ? Boolean.TRUE : null);
+            // Counted only when the state really changes, so a replayed write that already
+            // reached the server isn't counted twice
+            if (entry.getValue() != favourite) {
+                FavouriteCounters.addTo(updates, recipeId, favourite ? 1 : -1);
+            }
+        }
+        pending.clear();
+        pendingSeq.clear();
+        for (String recipeId : rollback.keySet()) {
+            Integer count = inFlight.get(recipeId);
+            inFlight.put(recipeId, count == null ? 1 : count + 1);
+        }
+        String writeUserId = userId;
+        database.getReference().updateChildren(updates, (error, ref) -> {
+            // Confirmed, or rejected by the server (retrying would be rejected again)
+            FavouriteJournal.getInstance().acknowledge(writeUserId, journaled);
+            if (!writeUserId.equals(userId)) {
+                return;
+            }
+            for (String recipeId : rollback.keySet()) {
+                Integer count = inFlight.get(recipeId);
+                if (count == null || count == 1) {
+                    inFlight.remove(recipeId);
+                } else {
+                    inFlight.put(recipeId, count - 1);
+                }
+            }
+            if (error == null) {
+                return;
+            }
+            Log.e(TAG, "Error saving favourites: " + error.getMessage());
+            for (Map.Entry<String, Boolean> entry : rollback.entrySet()) {
+                // A newer toggle of the same recipe wins over the rollback
+                if (!pending.containsKey(entry.getKey()) && !inFlight.containsKey(entry.getKey())) {
+                    setLocal(entry.getKey(), entry.getValue());
+                }
+            }
+        });
+    }
+
+    private void setLocal(String recipeId, boolean isFavourite) {
+        if (!remoteLoaded) {
+            known.add(recipeId);
+        }
+        if (isFavourite ? favourites.add(recipeId) : favourites.remove(recipeId)) {
+            revision++;
+        }
+        MutableLiveData<Boolean> status = statusLiveData.get(recipeId);
+        if (status != null && !Boolean.valueOf(isFavourite).equals(status.getValue())) {
+            status.setValue(isFavourite);
+        }
+    }
+
+    /**
+     * Reports the server state of each favourite to {@link #onRemoteStatus}.
+     */
+    private final class FavouritesListener implements ChildEventListener {
+        @Override
+        public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            readObserver.onRead("userFavorites/" + userId + "/" + snapshot.getKey(), snapshot);
+            onRemoteStatus(snapshot.getKey(), Boolean.TRUE.equals(snapshot.getValue(Boolean.class)));
+        }
+
+        @Override
+        public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            readObserver.onRead("userFavorites/" + userId + "/" + snapshot.getKey(), snapshot);
+            onRemoteStatus(snapshot.getKey(), Boolean.TRUE.equals(snapshot.getValue(Boolean.class)));
+        }
+
+        @Override
+        public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+            readObserver.onRead("userFavorites/" + userId + "/" + snapshot.getKey(), snapshot);
+            onRemoteStatus(snapshot.getKey(), false);
+        }
+
+        @Override
+        public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.e(TAG, "Favourites subscription cancelled: " + error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Converts Firebase snapshots of the recipes node into model objects.
+ * Shared by the repositories so every screen decodes recipes the same way; the decoding
+ * rules themselves are in {@link RecipeDecoder}, which the JVM benchmarks run on JSON.
+ */
+package myrecipes.app.repositories;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.google.firebase.database.DataSnapshot;
+import java.util.ArrayList;
+import java.util.List;
+import myrecipes.app.models.IngredientDictionary;
+import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.parsers.RecipeDecoder;
+import myrecipes.app.parsers.RecipeNode;
+
+public final class RecipeSnapshotParser {
+
+    private RecipeSnapshotParser() {
+    }
+
+    /**
+     * Decodes the full recipe, including ingredients and steps.
+     * Use this only for screens that display the complete recipe.
+     *
+     * @param snapshot Snapshot of a single child of the recipes node
+     * @return The recipe, or null if the snapshot has no title
+     */
+    @Nullable
+    public static Recipe parseRecipe(@NonNull DataSnapshot snapshot) {
+        return RecipeDecoder.decodeRecipe(new SnapshotNode(snapshot), IngredientDictionary.getInstance());
+    }
+
+    /**
+     * Decodes only the fields needed by list rows.
+     * Ingredients and steps are counted but never materialized as Java objects,
+     * which keeps list screens small in memory on large catalogs.
+     *
+     * @param snapshot Snapshot of a single child of the recipes node
+     * @return The summary, or null if the snapshot has no title
+     */
+    @Nullable
+    public static RecipeSummary parseSummary(@NonNull DataSnapshot snapshot) {
+        return RecipeDecoder.decodeSummary(new SnapshotNode(snapshot));
+    }
+
+    /**
+     * Reads the fields of a recipe straight from its snapshot.
+     */
+    private static final class SnapshotNode implements RecipeNode {
+        private final DataSnapshot snapshot;
+
+        SnapshotNode(DataSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public String getKey() {
+            // The Firebase key is the recipe ID
+            return snapshot.getKey();
+        }
+
+        @Override
+        public Object get(String field) {
+            return snapshot.child(field).getValue();
+        }
+
+        @Override
+        public int countChildren(String field) {
+            return (int) snapshot.child(field).getChildrenCount();
+        }
+
+        @Override
+        public Iterable<Object> getChildren(String field) {
+            DataSnapshot parent = snapshot.child(field);
+            List<Object> values = new ArrayList<>((int) parent.getChildrenCount());
+            for (DataSnapshot child : parent.getChildren()) {
+                values.add(child.getValue());
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ * Latency, payload size, source and outcome of every repository operation.
+ * Each operation (e.g. "dashboard.recipe") keeps a latency histogram in microseconds, a payload
+ * histogram in bytes, and how many calls were served from memory, disk or the network and how
+ * they ended. Recording is lock-free, so callbacks on any thread add to it without contention,
+ * and the values survive until the process dies or {@link #reset()} is called.
+ * Read by the metrics screen, which shows and exports {@link #snapshot()}.
+ */
+package myrecipes.app.repositories;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import myrecipes.app.datasources.DataCallback;
+import myrecipes.app.metrics.LogLinearHistogram;
+import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
+
+public final class RepositoryMetrics {
+    /**
+     * Where the result of a call came from. Firebase answers from its own cache or the server
+     * without telling which, so everything a data source returns counts as NETWORK.
+     */
+    public enum Source {
+        MEMORY, DISK, NETWORK
+    }
+
+    /**
+     * How a call ended. STALE is a stored result shown because the network read failed.
+     */
+    public enum Outcome {
+        SUCCESS, NOT_FOUND, STALE, FAILURE
+    }
+
+    private static final RepositoryMetrics INSTANCE = new RepositoryMetrics();
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final ConcurrentHashMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private volatile long sinceMillis = System.currentTimeMillis();
+
+    private RepositoryMetrics() {
+    }
+
+    public static RepositoryMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts timing one call of an operation.
+     *
+     * @param operation Name of the operation, "<repository>.<what is read>"
+     * @return The call to finish once the result is known, on any thread
+     */
+    public Call start(String operation) {
+        OperationStats stats = operations.get(operation);
+        if (stats == null) {
+            stats = operations.computeIfAbsent(operation, name -> new OperationStats());
+        }
+        return new Call(stats);
+    }
+
+    /**
+     * Times a call that only goes through a data source callback.
+     * The payload is the size of the result's text, enough for the IDs the user calls return.
+     */
+    <T> DataCallback<T> timed(String operation, DataCallback<T> callback) {
+        Call call = start(operation);
+        return new DataCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                call.finish(Source.NETWORK, Outcome.SUCCESS, result != null ? String.valueOf(result).length() : 0);
+                callback.onSuccess(result);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                call.fail();
+                callback.onFailure(e);
+            }
+        };
+    }
+
+    /**
+     * Forgets every recorded call. Calls in flight are recorded in the old values and lost.
+     */
+    public void reset() {
+        operations.clear();
+        sinceMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Current values as an ordered map, ready to be displayed or exported:
+     * the start of the recording and, per operation in name order, the call count,
+     * latency and payload percentiles, and the calls per source and per outcome.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("sinceMillis", sinceMillis);
+        Map<String, Object> byOperation = new LinkedHashMap<>();
+        for (Map.Entry<String, OperationStats> operation : new TreeMap<>(operations).entrySet()) {
+            byOperation.put(operation.getKey(), operation.getValue().snapshot());
+        }
+        values.put("operations", byOperation);
+        return values;
+    }
+
+    /**
+     * One call of an operation. Only the first finish is recorded, since Firebase
+     * listeners may answer more than once.
+     */
+    public static final class Call {
+        private final OperationStats stats;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        Call(OperationStats stats) {
+            this.stats = stats;
+        }
+
+        /**
+         * @param source Where the result came from
+         * @param outcome How the call ended
+         * @param payloadBytes Estimated size of what was read from the network, or of the stored
+         *                     result when nothing was; 0 when nothing was read
+         */
+        public void finish(Source source, Outcome outcome, long payloadBytes) {
+            if (finished.compareAndSet(false, true)) {
+                stats.record((System.nanoTime() - startNanos) / 1000, source, outcome, payloadBytes);
+            }
+        }
+
+        /**
+         * Records a failed network read.
+         */
+        public void fail() {
+            finish(Source.NETWORK, Outcome.FAILURE, 0);
+        }
+    }
+
+    /**
+     * Approximate JSON size of the fields a summary list holds. This follows the decoded
+     * values, since the database client doesn't expose the bytes it received; the catalog
+     * sync counts its reads with it too.
+     */
+    static long estimateBytes(List<RecipeSummary> summaries) {
+        if (summaries == null) {
+            return 0;
+        }
+        long size = 2;
+        for (RecipeSummary summary : summaries) {
+            // Keys, numbers and punctuation of a row take about 96 characters
+            size += length(summary.getId()) + length(summary.getTitle())
+                    + length(summary.getThumbnailUrl()) + 96;
+        }
+        return size;
+    }
+
+    /**
+     * Approximate JSON size of a full recipe node.
+     */
+    static long estimateBytes(Recipe recipe) {
+        if (recipe == null) {
+            return 0;
+        }
+        // Keys, calories and punctuation take about 128 characters
+        long size = length(recipe.getId()) + length(recipe.getTitle()) + length(recipe.getDescription())
+                + length(recipe.getCategory()) + length(recipe.getImageUrl())
+                + length(recipe.getImageBlurHash()) + 128;
+        for (int i = 0; i < recipe.getIngredientCount(); i++) {
+            size += length(recipe.getIngredientName(i)) + length(recipe.getIngredientQuantity(i))
+                    + String.valueOf(recipe.getIngredientCalories(i)).length() + 10;
+        }
+        if (recipe.getSteps() != null) {
+            for (String step : recipe.getSteps()) {
+                size += length(step) + 3;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Approximate JSON size of a map of keys to small values, e.g. favourite keys or counts.
+     */
+    static long estimateBytes(Map<String, ?> entries) {
+        if (entries == null) {
+            return 0;
+        }
+        long size = 2;
+        for (Map.Entry<String, ?> entry : entries.entrySet()) {
+            size += entry.getKey().length() + String.valueOf(entry.getValue()).length() + 4;
+        }
+        return size;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() + 2 : 4;
+    }
+
+    /**
+     * Values of one operation.
+     */
+    private static final class OperationStats {
+        final LogLinearHistogram latencyMicros = new LogLinearHistogram();
+        final LogLinearHistogram payloadBytes = new LogLinearHistogram();
+        final AtomicLongArray sources = new AtomicLongArray(Source.values().length);
+        final AtomicLongArray outcomes = new AtomicLongArray(Outcome.values().length);
+
+        void record(long micros, Source source, Outcome outcome, long bytes) {
+            sources.incrementAndGet(source.ordinal());
+            outcomes.incrementAndGet(outcome.ordinal());
+            payloadBytes.record(bytes);
+            latencyMicros.record(micros);
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("count", latencyMicros.getCount());
+            values.put("latencyMicros", histogram(latencyMicros));
+            values.put("payloadBytes", histogram(payloadBytes));
+            Map<String, Object> bySource = new LinkedHashMap<>();
+            for (Source source : Source.values()) {
+                bySource.put(source.name().toLowerCase(Locale.ROOT), sources.get(source.ordinal()));
+            }
+            values.put("sources", bySource);
+            Map<String, Object> byOutcome = new LinkedHashMap<>();
+            for (Outcome outcome : Outcome.values()) {
+                byOutcome.put(outcome.name().toLowerCase(Locale.ROOT), outcomes.get(outcome.ordinal()));
+            }
+            values.put("outcomes", byOutcome);
+            return values;
+        }
+
+        private static Map<String, Object> histogram(LogLinearHistogram histogram) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("total", histogram.getSum());
+            values.put("mean", Math.round(histogram.getMean()));
+            for (double percentile : PERCENTILES) {
+                String name = percentile == Math.rint(percentile)
+                        ? String.valueOf((long) percentile) : String.valueOf(percentile).replace(".", "");
+                values.put("p" + name, histogram.getValueAtPercentile(percentile));
+            }
+            values.put("max", histogram.getMax());
+            return values;
+        }
+    }
+}
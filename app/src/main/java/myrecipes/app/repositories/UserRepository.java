@@ -1,64 +1,63 @@
 /**
  * Handles all user-related operations including authentication and profile management.
- * Uses both Firebase Authentication and Firestore for user data storage.
+ * Uses a {@link UserDataSource}: Firebase Authentication and Firestore in the app.
  */
 package myrecipes.app.repositories;
 
-import com.google.android.gms.tasks.Task;
-import com.google.firebase.auth.AuthResult;
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
 import java.util.Map;
+import myrecipes.app.datasources.DataCallback;
+import myrecipes.app.datasources.UserDataSource;
 
 public class UserRepository {
-    private final FirebaseAuth auth;
-    private final FirebaseFirestore db;
+    private final UserDataSource dataSource;
+    // Latency and outcome of the calls that reach the server
+    private static final RepositoryMetrics METRICS = RepositoryMetrics.getInstance();
 
     /**
-     * Constructor initializes Firebase Authentication and Firestore instances.
+     * Constructor takes the data source that authenticates users and stores their profiles.
+     * With Firebase:
      * - FirebaseAuth: handles user authentication
      * - FirebaseFirestore: stores additional user profile data
      */
-    public UserRepository() {
-        auth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
+    public UserRepository(UserDataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
     /**
      * Registers a new user with email and password.
-     * Returns a Task that can be observed for success/failure.
+     * The callback receives the ID of the new user, or the failure.
      */
-    public Task<AuthResult> registerUser(String email, String password) {
-        return auth.createUserWithEmailAndPassword(email, password);
+    public void registerUser(String email, String password, DataCallback<String> callback) {
+        dataSource.register(email, password, METRICS.timed("user.register", callback));
     }
 
     /**
      * Saves additional user data to Firestore.
      * This is typically called after successful registration.
      */
-    public Task<Void> saveUserData(String userId, Map<String, Object> userData) {
-        return db.collection("users").document(userId).set(userData);
+    public void saveUserData(String userId, Map<String, Object> userData, DataCallback<Void> callback) {
+        dataSource.saveUserData(userId, userData, METRICS.timed("user.save", callback));
     }
 
     /**
      * Authenticates an existing user with email and password.
+     * The callback receives the ID of the signed in user, or the failure.
      */
-    public Task<AuthResult> loginUser(String email, String password) {
-        return auth.signInWithEmailAndPassword(email, password);
+    public void loginUser(String email, String password, DataCallback<String> callback) {
+        dataSource.login(email, password, METRICS.timed("user.login", callback));
     }
 
     /**
-     * Returns the currently authenticated user or null if no user is signed in.
+     * Returns the ID of the currently authenticated user or null if no user is signed in.
      */
-    public FirebaseUser getCurrentUser() {
-        return auth.getCurrentUser();
+    public String getCurrentUserId() {
+        return dataSource.getCurrentUserId();
     }
 
     /**
      * Signs out the current user and clears the authentication state.
      */
     public void logout() {
-        auth.signOut();
+        dataSource.logout();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package myrecipes.app.startup;
+
+import com.bumptech.glide.Glide;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+import java.util.Arrays;
+import java.util.List;
+import myrecipes.app.repositories.CatalogPrefetcher;
+import myrecipes.app.repositories.CatalogStore;
+import myrecipes.app.repositories.FavouriteJournal;
+import myrecipes.app.utils.ImageVariants;
+import myrecipes.app.workers.CatalogSyncWorker;
+import myrecipes.app.workers.PopularityWorker;
+
+/**
+ * The components initialized at app startup and how they depend on each other.
+ * Everything here used to be created lazily on the main thread by the first screen that needed it.
+ * FirebaseApp and Analytics aren't listed: Firebase's init provider sets both up before
+ * {@link android.app.Application#onCreate()}, so a component could neither move nor defer them.
+ */
+public final class AppComponents {
+    public static final String DATABASE = "database";
+    public static final String AUTH = "auth";
+    public static final String FIRESTORE = "firestore";
+    public static final String GLIDE = "glide";
+    public static final String IMAGE_VARIANTS = "image-variants";
+    public static final String CATALOG_STORE = "catalog-store";
+    public static final String FAVOURITE_JOURNAL = "favourite-journal";
+    public static final String CATALOG_SYNC_WORK = "catalog-sync-work";
+    public static final String POPULARITY_WORK = "popularity-work";
+
+    private AppComponents() {
+    }
+
+    public static List<StartupComponent> all() {
+        return Arrays.asList(
+                // The disk cache must be enabled before anything reads the database
+                new StartupComponent(DATABASE, false, context -> CatalogPrefetcher.enableDiskCache()),
+                new StartupComponent(AUTH, false, context -> FirebaseAuth.getInstance()),
+                new StartupComponent(FIRESTORE, false, context -> FirebaseFirestore.getInstance()),
+                // Builds the memory cache, bitmap pool and disk cache from RecipesGlideModule
+                new StartupComponent(GLIDE, false, Glide::get),
+                // Reads the image manifest from the assets
+                new StartupComponent(IMAGE_VARIANTS, false, ImageVariants::getInstance),
+                // Reads the catalog of the previous session from disk
+                new StartupComponent(CATALOG_STORE, false, context -> CatalogStore.getInstance().load()),
+                // Reads the favourite changes a previous process couldn't write
+                new StartupComponent(FAVOURITE_JOURNAL, false, context -> FavouriteJournal.getInstance().load()),
+                // Initializes WorkManager, which no screen needs before the first frame
+                new StartupComponent(CATALOG_SYNC_WORK, true, CatalogSyncWorker::schedule),
+                new StartupComponent(POPULARITY_WORK, true, PopularityWorker::schedule, CATALOG_SYNC_WORK));
+    }
+}
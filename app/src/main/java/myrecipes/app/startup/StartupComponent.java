@@ -0,0 +1,53 @@
+package myrecipes.app.startup;
+
+import android.content.Context;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A piece of the app that has to be initialized at startup, with the components it needs first.
+ * Components run on background threads, so their initializers must not touch views.
+ */
+public final class StartupComponent {
+    /**
+     * Initialization work of a component.
+     */
+    public interface Initializer {
+        void initialize(Context context) throws Exception;
+    }
+
+    private final String name;
+    private final boolean deferred;
+    private final Initializer initializer;
+    private final List<String> dependencies;
+
+    /**
+     * @param name Unique name, used for dependencies and in the startup report
+     * @param deferred true to wait until the first frame was drawn (non-critical components)
+     * @param initializer Initialization work
+     * @param dependencies Names of the components that must be initialized first
+     */
+    public StartupComponent(String name, boolean deferred, Initializer initializer, String... dependencies) {
+        this.name = name;
+        this.deferred = deferred;
+        this.initializer = initializer;
+        this.dependencies = Collections.unmodifiableList(Arrays.asList(dependencies));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    public Initializer getInitializer() {
+        return initializer;
+    }
+
+    public List<String> getDependencies() {
+        return dependencies;
+    }
+}
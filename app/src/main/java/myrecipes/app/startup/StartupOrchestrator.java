@@ -0,0 +1,181 @@
+package myrecipes.app.startup;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.core.content.ContextCompat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import myrecipes.app.utils.StartupTiming;
+
+/**
+ * Initializes the startup components off the main thread, following their dependencies.
+ * Independent components run concurrently on a small thread pool; a component starts as soon
+ * as all its dependencies finished. Deferred components additionally wait for
+ * {@link #startDeferred()}, called once the first frame was drawn.
+ * A component that fails is logged and still counts as finished, so the app starts and the
+ * library can initialize lazily on first use as it did before.
+ */
+public final class StartupOrchestrator {
+    private static final String TAG = "StartupOrchestrator";
+    private static final int THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static volatile StartupOrchestrator instance;
+
+    private final Context context;
+    private final Map<String, StartupComponent> components = new LinkedHashMap<>();
+    // Completed when the component finished, successfully or not
+    private final Map<String, CompletableFuture<Void>> finished = new HashMap<>();
+    private final CompletableFuture<Void> firstFrameDrawn = new CompletableFuture<>();
+    private final ExecutorService executor;
+    private final Executor mainExecutor;
+    private final StartupReport report = new StartupReport();
+
+    private StartupOrchestrator(Context context, List<StartupComponent> declared) {
+        this.context = context;
+        for (StartupComponent component : declared) {
+            if (components.put(component.getName(), component) != null) {
+                throw new IllegalArgumentException("Duplicate startup component " + component.getName());
+            }
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(THREADS,
+                runnable -> new Thread(runnable, "startup-" + threadCount.incrementAndGet()));
+        this.mainExecutor = ContextCompat.getMainExecutor(context);
+    }
+
+    /**
+     * Validates the component graph and starts every non-deferred component.
+     * Called once from {@link android.app.Application#onCreate()}.
+     *
+     * @throws IllegalStateException if a dependency is unknown, cyclic, or a non-deferred
+     *         component depends on a deferred one
+     */
+    public static StartupOrchestrator start(Context context, List<StartupComponent> components) {
+        StartupOrchestrator orchestrator = new StartupOrchestrator(context.getApplicationContext(), components);
+        instance = orchestrator;
+        orchestrator.schedule();
+        return orchestrator;
+    }
+
+    /**
+     * Returns the orchestrator started by the application.
+     */
+    public static StartupOrchestrator getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("StartupOrchestrator not started");
+        }
+        return instance;
+    }
+
+    private void schedule() {
+        for (StartupComponent component : sortByDependencies()) {
+            List<CompletableFuture<Void>> prerequisites = new ArrayList<>();
+            for (String dependency : component.getDependencies()) {
+                prerequisites.add(finished.get(dependency));
+            }
+            if (component.isDeferred()) {
+                prerequisites.add(firstFrameDrawn);
+            }
+            CompletableFuture<Void> done = CompletableFuture
+                    .allOf(prerequisites.toArray(new CompletableFuture[0]))
+                    .thenRunAsync(() -> run(component), executor);
+            finished.put(component.getName(), done);
+        }
+        CompletableFuture.allOf(finished.values().toArray(new CompletableFuture[0]))
+                .thenRun(() -> {
+                    Log.d(TAG, report.toString());
+                    executor.shutdown();
+                });
+    }
+
+    /**
+     * Orders the components so that every component comes after its dependencies.
+     */
+    private List<StartupComponent> sortByDependencies() {
+        List<StartupComponent> sorted = new ArrayList<>(components.size());
+        Set<String> visited = new HashSet<>();
+        Set<String> visiting = new HashSet<>();
+        for (StartupComponent component : components.values()) {
+            visit(component, sorted, visited, visiting);
+        }
+        return sorted;
+    }
+
+    private void visit(StartupComponent component, List<StartupComponent> sorted,
+                       Set<String> visited, Set<String> visiting) {
+        if (visited.contains(component.getName())) {
+            return;
+        }
+        if (!visiting.add(component.getName())) {
+            throw new IllegalStateException("Startup dependency cycle through " + component.getName());
+        }
+        for (String name : component.getDependencies()) {
+            StartupComponent dependency = components.get(name);
+            if (dependency == null) {
+                throw new IllegalStateException(component.getName() + " depends on unknown component " + name);
+            }
+            if (dependency.isDeferred() && !component.isDeferred()) {
+                throw new IllegalStateException(component.getName() + " depends on deferred component " + name);
+            }
+            visit(dependency, sorted, visited, visiting);
+        }
+        visiting.remove(component.getName());
+        visited.add(component.getName());
+        sorted.add(component);
+    }
+
+    private void run(StartupComponent component) {
+        long startMs = StartupTiming.sinceProcessStart();
+        long start = SystemClock.uptimeMillis();
+        String error = null;
+        try {
+            component.getInitializer().initialize(context);
+        } catch (Throwable e) {
+            // Errors too (a missing class, an ExceptionInInitializerError): the component must
+            // still finish, or whatever waits on it with whenReady would never run
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            Log.e(TAG, "Error initializing " + component.getName() + ": " + error);
+        }
+        report.add(new StartupReport.Entry(component.getName(), Thread.currentThread().getName(),
+                startMs, SystemClock.uptimeMillis() - start, component.isDeferred(), error));
+    }
+
+    /**
+     * Releases the deferred components. Called after the first frame of the first activity.
+     */
+    public void startDeferred() {
+        firstFrameDrawn.complete(null);
+    }
+
+    /**
+     * Runs an action on the main thread once a component finished initializing.
+     * Runs it right away (on the next main loop turn) if the component is already done.
+     *
+     * @param name Name of the component
+     * @param action Work that needs the component
+     */
+    public void whenReady(String name, Runnable action) {
+        CompletableFuture<Void> done = finished.get(name);
+        if (done == null) {
+            throw new IllegalArgumentException("Unknown startup component " + name);
+        }
+        done.thenRunAsync(action, mainExecutor);
+    }
+
+    /**
+     * Timings of the components that finished so far.
+     */
+    public StartupReport getReport() {
+        return report;
+    }
+}
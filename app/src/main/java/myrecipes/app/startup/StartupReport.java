@@ -0,0 +1,83 @@
+package myrecipes.app.startup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Timings of the startup components, in the order they finished.
+ * Start times are measured from process start, so they line up with the other startup logs.
+ */
+public final class StartupReport {
+    /**
+     * Timing of one component.
+     */
+    public static final class Entry {
+        private final String name;
+        private final String thread;
+        private final long startMs;
+        private final long durationMs;
+        private final boolean deferred;
+        private final String error;
+
+        Entry(String name, String thread, long startMs, long durationMs, boolean deferred, String error) {
+            this.name = name;
+            this.thread = thread;
+            this.startMs = startMs;
+            this.durationMs = durationMs;
+            this.deferred = deferred;
+            this.error = error;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        public long getStartMs() {
+            return startMs;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public boolean isDeferred() {
+            return deferred;
+        }
+
+        // Message of the exception thrown by the initializer, null on success
+        public String getError() {
+            return error;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    synchronized void add(Entry entry) {
+        entries.add(entry);
+    }
+
+    public synchronized List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    /**
+     * One line per component: start offset, duration, thread and outcome.
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("Startup report");
+        for (Entry entry : entries) {
+            builder.append(String.format(Locale.ROOT, "%n  %-16s +%5d ms %5d ms  %s%s%s",
+                    entry.name, entry.startMs, entry.durationMs, entry.thread,
+                    entry.deferred ? " (deferred)" : "",
+                    entry.error != null ? " FAILED: " + entry.error : ""));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package myrecipes.app.utils;
+
+import android.graphics.Bitmap;
+
+/**
+ * Decodes BlurHash strings (https://blurha.sh) into small bitmaps.
+ * Recipes carry a precomputed hash of their image (see the generateImagePlaceholders task),
+ * which is cheap enough to decode synchronously on the main thread and use as a placeholder.
+ */
+public final class BlurHashDecoder {
+    private static final String CHARS =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+    // Longest side of the decoded bitmap; the view scales it up
+    private static final int MAX_SIZE = 32;
+
+    private BlurHashDecoder() {
+    }
+
+    /**
+     * Decodes a hash into a bitmap with the given aspect ratio.
+     *
+     * @param blurHash The BlurHash string
+     * @param aspectRatio Image width divided by height; values <= 0 give a square bitmap
+     * @return The placeholder bitmap, or null if the hash is invalid
+     */
+    public static Bitmap decode(String blurHash, double aspectRatio) {
+        if (blurHash == null || blurHash.length() < 6) {
+            return null;
+        }
+        int sizeFlag = decode83(blurHash, 0, 1);
+        int componentsX = sizeFlag % 9 + 1;
+        int componentsY = sizeFlag / 9 + 1;
+        if (sizeFlag < 0 || blurHash.length() != 4 + 2 * componentsX * componentsY) {
+            return null;
+        }
+        double maximumValue = (decode83(blurHash, 1, 2) + 1) / 166.0;
+
+        float[][] colors = new float[componentsX * componentsY][];
+        int dc = decode83(blurHash, 2, 6);
+        colors[0] = new float[]{
+                srgbToLinear(dc >> 16), srgbToLinear((dc >> 8) & 0xFF), srgbToLinear(dc & 0xFF)};
+        for (int i = 1; i < colors.length; i++) {
+            int value = decode83(blurHash, 4 + i * 2, 6 + i * 2);
+            colors[i] = new float[]{
+                    (float) (signedPow2((value / (19 * 19) - 9) / 9.0) * maximumValue),
+                    (float) (signedPow2((value / 19 % 19 - 9) / 9.0) * maximumValue),
+                    (float) (signedPow2((value % 19 - 9) / 9.0) * maximumValue)};
+        }
+
+        int width = MAX_SIZE;
+        int height = MAX_SIZE;
+        if (aspectRatio > 1) {
+            height = Math.max(1, (int) Math.round(MAX_SIZE / aspectRatio));
+        } else if (aspectRatio > 0) {
+            width = Math.max(1, (int) Math.round(MAX_SIZE * aspectRatio));
+        }
+
+        // Cosine tables, so each pixel only does multiplications
+        double[] cosX = new double[width * componentsX];
+        for (int x = 0; x < width; x++) {
+            for (int i = 0; i < componentsX; i++) {
+                cosX[x * componentsX + i] = Math.cos(Math.PI * x * i / width);
+            }
+        }
+        double[] cosY = new double[height * componentsY];
+        for (int y = 0; y < height; y++) {
+            for (int j = 0; j < componentsY; j++) {
+                cosY[y * componentsY + j] = Math.cos(Math.PI * y * j / height);
+            }
+        }
+
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double r = 0;
+                double g = 0;
+                double b = 0;
+                for (int j = 0; j < componentsY; j++) {
+                    for (int i = 0; i < componentsX; i++) {
+                        double basis = cosX[x * componentsX + i] * cosY[y * componentsY + j];
+                        float[] color = colors[j * componentsX + i];
+                        r += color[0] * basis;
+                        g += color[1] * basis;
+                        b += color[2] * basis;
+                    }
+                }
+                pixels[y * width + x] = 0xFF000000
+                        | linearToSrgb(r) << 16 | linearToSrgb(g) << 8 | linearToSrgb(b);
+            }
+        }
+        return Bitmap.createBitmap(pixels, width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private static int decode83(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = CHARS.indexOf(text.charAt(i));
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * 83 + digit;
+        }
+        return value;
+    }
+
+    private static double signedPow2(double value) {
+        return Math.copySign(value * value, value);
+    }
+
+    private static float srgbToLinear(int value) {
+        double v = value / 255.0;
+        return (float) (v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4));
+    }
+
+    private static int linearToSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308
+                ? (int) (v * 12.92 * 255 + 0.5)
+                : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+}
@@ -0,0 +1,179 @@
+package myrecipes.app.utils;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reserved on-disk cache for the detail images of favourite recipes, so they show offline.
+ * It is kept apart from Glide's shared disk cache, so browsing the catalog never evicts
+ * favourite images. Files are named after the recipe and the hash of its image URL, so a
+ * changed image gets a new file. A file's modification time is its last use, which gives
+ * LRU order without a separate index.
+ */
+public final class FavouriteImageCache {
+    private static final String TAG = "FavouriteImageCache";
+    private static final String DIRECTORY = "favourite_images";
+    private static volatile FavouriteImageCache instance;
+
+    private final File directory;
+
+    private FavouriteImageCache(File directory) {
+        this.directory = directory;
+    }
+
+    public static FavouriteImageCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (FavouriteImageCache.class) {
+                if (instance == null) {
+                    instance = new FavouriteImageCache(
+                            new File(context.getApplicationContext().getCacheDir(), DIRECTORY));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Name of the file that holds a recipe's image.
+     *
+     * @param recipeId Firebase key of the recipe
+     * @param imageUrl Original image URL of the recipe (not a variant URL)
+     */
+    public static String fileName(String recipeId, String imageUrl) {
+        return recipeId + "_" + Integer.toHexString(imageUrl.hashCode());
+    }
+
+    /**
+     * Returns the cached image of a recipe and marks it as recently used.
+     *
+     * @return The file, or null if the image isn't cached
+     */
+    @Nullable
+    public File get(String recipeId, String imageUrl) {
+        if (recipeId == null || imageUrl == null) {
+            return null;
+        }
+        File file = new File(directory, fileName(recipeId, imageUrl));
+        if (!file.isFile()) {
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    public boolean contains(String fileName) {
+        return new File(directory, fileName).isFile();
+    }
+
+    /**
+     * Copies a downloaded image into the cache. The copy goes through a temporary file,
+     * so readers never see a partially written image.
+     *
+     * @return Size of the stored file in bytes
+     */
+    public long put(String fileName, File source) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File target = new File(directory, fileName);
+        File temp = new File(directory, fileName + ".tmp");
+        try (InputStream in = new FileInputStream(source);
+             OutputStream out = new FileOutputStream(temp)) {
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("Cannot move " + temp + " to " + target);
+        }
+        return target.length();
+    }
+
+    /**
+     * Total size of the cached images in bytes.
+     */
+    public long sizeBytes() {
+        long total = 0;
+        for (File file : files()) {
+            total += file.length();
+        }
+        return total;
+    }
+
+    /**
+     * Deletes images until the cache fits the budget.
+     * Images not in the keep set (recipes no longer favourited, or older versions of an image)
+     * go first, least recently used first; favourites are only evicted, again in LRU order,
+     * if the budget is still exceeded after that.
+     *
+     * @param budgetBytes Maximum total size
+     * @param keep File names of the images of current favourites
+     * @return Number of files deleted
+     */
+    public int trimToBudget(long budgetBytes, Set<String> keep) {
+        List<File> stale = new ArrayList<>();
+        List<File> kept = new ArrayList<>();
+        long total = 0;
+        for (File file : files()) {
+            total += file.length();
+            (keep.contains(file.getName()) ? kept : stale).add(file);
+        }
+        int evicted = 0;
+        for (List<File> candidates : Arrays.asList(stale, kept)) {
+            Collections.sort(candidates, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+            for (File file : candidates) {
+                if (total <= budgetBytes) {
+                    return evicted;
+                }
+                long length = file.length();
+                if (file.delete()) {
+                    total -= length;
+                    evicted++;
+                } else {
+                    Log.e(TAG, "Could not delete " + file);
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Deletes the images that are not in the keep set, whatever the budget.
+     * Used for older versions of an image, which can never be shown again.
+     *
+     * @return Number of files deleted
+     */
+    public int removeOutdated(Set<String> recipeIds, Set<String> keep) {
+        int removed = 0;
+        for (File file : files()) {
+            String name = file.getName();
+            int separator = name.lastIndexOf('_');
+            boolean sameRecipe = separator > 0 && recipeIds.contains(name.substring(0, separator));
+            boolean temporary = name.endsWith(".tmp");
+            if ((temporary || sameRecipe) && !keep.contains(name) && file.delete()) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private List<File> files() {
+        File[] files = directory.listFiles();
+        return files != null ? Arrays.asList(files) : Collections.<File>emptyList();
+    }
+}
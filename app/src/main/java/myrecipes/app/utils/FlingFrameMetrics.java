@@ -0,0 +1,201 @@
+package myrecipes.app.utils;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.View;
+import android.view.Window;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Logs frame times of a RecyclerView while it scrolls, one summary per fling.
+ * Frame durations come from {@link Window#addOnFrameMetricsAvailableListener}; the listener is
+ * only registered while the list is moving, so idle frames don't dilute the percentiles, and
+ * is removed when the list leaves the window, so a destroyed view doesn't keep it registered.
+ * Used in debuggable builds to compare scrolling with and without thumbnail preloading: each
+ * fling is also added to a running total per label, so after flinging the same list with the
+ * dashboard's preload toggle on and off, the last "total" line of each label is the comparison.
+ */
+public final class FlingFrameMetrics extends RecyclerView.OnScrollListener
+        implements View.OnAttachStateChangeListener {
+    private static final String TAG = "FlingFrameMetrics";
+    // Frame metrics are delivered on this thread instead of the UI thread
+    private static HandlerThread metricsThread;
+    // Frames of every fling so far per label, for the with/without comparison; UI thread only
+    private static final Map<String, Totals> TOTALS = new HashMap<>();
+
+    private final Window window;
+    private String label;
+    private final long frameDeadlineNanos;
+    private final Window.OnFrameMetricsAvailableListener listener = this::onFrameMetrics;
+    // Written on the metrics thread, read when the scroll ends on the UI thread
+    private final Object lock = new Object();
+    private long[] frameNanos = new long[256];
+    private int frameCount;
+    private boolean listening;
+
+    private FlingFrameMetrics(Window window, String label, float refreshRate) {
+        this.window = window;
+        this.label = label;
+        this.frameDeadlineNanos = (long) (1_000_000_000L / (refreshRate > 0 ? refreshRate : 60f));
+    }
+
+    /**
+     * Starts logging fling frame times for a list when the app is debuggable.
+     * Does nothing in release builds.
+     *
+     * @param activity Activity whose window renders the list
+     * @param recyclerView List to watch
+     * @param label Name used in the log, e.g. the screen and whether preloading is on
+     * @return The metrics, to relabel them when a setting changes; null in release builds
+     */
+    public static FlingFrameMetrics attachIfDebuggable(Activity activity, RecyclerView recyclerView, String label) {
+        if (!isDebuggable(activity)) {
+            return null;
+        }
+        FlingFrameMetrics metrics = new FlingFrameMetrics(activity.getWindow(), label, refreshRate(activity));
+        recyclerView.addOnScrollListener(metrics);
+        recyclerView.addOnAttachStateChangeListener(metrics);
+        return metrics;
+    }
+
+    public static boolean isDebuggable(Context context) {
+        return (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    /**
+     * Changes the label the next flings are logged and totalled under. Called on the UI thread.
+     */
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static float refreshRate(Activity activity) {
+        Display display = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? activity.getDisplay()
+                : activity.getWindowManager().getDefaultDisplay();
+        return display != null ? display.getRefreshRate() : 60f;
+    }
+
+    private static synchronized Handler metricsHandler() {
+        if (metricsThread == null) {
+            metricsThread = new HandlerThread(TAG);
+            metricsThread.start();
+        }
+        return new Handler(metricsThread.getLooper());
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState != RecyclerView.SCROLL_STATE_IDLE && !listening) {
+            synchronized (lock) {
+                frameCount = 0;
+            }
+            window.addOnFrameMetricsAvailableListener(listener, metricsHandler());
+            listening = true;
+        } else if (newState == RecyclerView.SCROLL_STATE_IDLE && listening) {
+            stopListening();
+        }
+    }
+
+    @Override
+    public void onViewAttachedToWindow(@NonNull View view) {
+    }
+
+    /**
+     * The list went away mid-fling, e.g. the fragment's view was destroyed: the scroll
+     * never reaches idle, so the listener is removed here.
+     */
+    @Override
+    public void onViewDetachedFromWindow(@NonNull View view) {
+        if (listening) {
+            stopListening();
+        }
+    }
+
+    private void stopListening() {
+        window.removeOnFrameMetricsAvailableListener(listener);
+        listening = false;
+        report();
+    }
+
+    private void onFrameMetrics(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+        long duration = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+        synchronized (lock) {
+            if (frameCount == frameNanos.length) {
+                frameNanos = Arrays.copyOf(frameNanos, frameCount * 2);
+            }
+            frameNanos[frameCount++] = duration;
+        }
+    }
+
+    private void report() {
+        long[] frames;
+        synchronized (lock) {
+            frames = Arrays.copyOf(frameNanos, frameCount);
+        }
+        if (frames.length == 0) {
+            return;
+        }
+        Arrays.sort(frames);
+        Log.d(TAG, label + ": " + summarize(frames));
+        Totals totals = TOTALS.get(label);
+        if (totals == null) {
+            totals = new Totals();
+            TOTALS.put(label, totals);
+        }
+        totals.add(frames);
+        long[] allFrames = Arrays.copyOf(totals.frameNanos, totals.frameCount);
+        Arrays.sort(allFrames);
+        Log.d(TAG, label + " total, " + totals.flings + " flings: " + summarize(allFrames));
+    }
+
+    private String summarize(long[] sorted) {
+        int janky = 0;
+        for (long frame : sorted) {
+            if (frame > frameDeadlineNanos) {
+                janky++;
+            }
+        }
+        return String.format(Locale.ROOT,
+                "%d frames, p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, janky %d (%.1f%%)",
+                sorted.length,
+                percentileMillis(sorted, 50), percentileMillis(sorted, 90), percentileMillis(sorted, 99),
+                janky, 100f * janky / sorted.length);
+    }
+
+    private static double percentileMillis(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    /**
+     * Frames of all flings logged under one label in this process.
+     */
+    private static final class Totals {
+        private long[] frameNanos = new long[1024];
+        private int frameCount;
+        private int flings;
+
+        void add(long[] frames) {
+            if (frameCount + frames.length > frameNanos.length) {
+                frameNanos = Arrays.copyOf(frameNanos, Math.max(frameNanos.length * 2, frameCount + frames.length));
+            }
+            System.arraycopy(frames, 0, frameNanos, frameCount, frames.length);
+            frameCount += frames.length;
+            flings++;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package myrecipes.app.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit/miss counters for Glide's memory cache and bitmap pool.
+ * Filled by the caches installed in {@link RecipesGlideModule} and read by the metrics screens.
+ */
+public final class ImageCacheStats {
+    private static final ImageCacheStats INSTANCE = new ImageCacheStats();
+
+    private final AtomicLong memoryCacheHits = new AtomicLong();
+    private final AtomicLong memoryCacheMisses = new AtomicLong();
+    private final AtomicLong bitmapPoolHits = new AtomicLong();
+    private final AtomicLong bitmapPoolMisses = new AtomicLong();
+    // Budgets chosen for this device, in bytes
+    private volatile long memoryCacheBudget;
+    private volatile long bitmapPoolBudget;
+    private volatile long diskCacheBudget;
+    private volatile String deviceTier = "unknown";
+
+    private ImageCacheStats() {
+    }
+
+    public static ImageCacheStats getInstance() {
+        return INSTANCE;
+    }
+
+    void recordMemoryCache(boolean hit) {
+        (hit ? memoryCacheHits : memoryCacheMisses).incrementAndGet();
+    }
+
+    void recordBitmapPool(boolean hit) {
+        (hit ? bitmapPoolHits : bitmapPoolMisses).incrementAndGet();
+    }
+
+    void setBudgets(String tier, long memoryCache, long bitmapPool, long diskCache) {
+        deviceTier = tier;
+        memoryCacheBudget = memoryCache;
+        bitmapPoolBudget = bitmapPool;
+        diskCacheBudget = diskCache;
+    }
+
+    public long getMemoryCacheHits() {
+        return memoryCacheHits.get();
+    }
+
+    public long getMemoryCacheMisses() {
+        return memoryCacheMisses.get();
+    }
+
+    public long getBitmapPoolHits() {
+        return bitmapPoolHits.get();
+    }
+
+    public long getBitmapPoolMisses() {
+        return bitmapPoolMisses.get();
+    }
+
+    public String getDeviceTier() {
+        return deviceTier;
+    }
+
+    /**
+     * Current values as an ordered map, ready to be displayed or exported.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("deviceTier", deviceTier);
+        values.put("memoryCacheBudgetBytes", memoryCacheBudget);
+        values.put("bitmapPoolBudgetBytes", bitmapPoolBudget);
+        values.put("diskCacheBudgetBytes", diskCacheBudget);
+        values.put("memoryCacheHits", getMemoryCacheHits());
+        values.put("memoryCacheMisses", getMemoryCacheMisses());
+        values.put("bitmapPoolHits", getBitmapPoolHits());
+        values.put("bitmapPoolMisses", getBitmapPoolMisses());
+        return values;
+    }
+}
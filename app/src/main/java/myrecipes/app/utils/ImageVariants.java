@@ -0,0 +1,152 @@
+package myrecipes.app.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Picks the smallest pre-generated WebP variant of a recipe image that still covers its view.
+ * Variants and the manifest describing them are produced by the generateImageVariants
+ * Gradle task. The variants are not published next to the originals, so their URLs are built
+ * from the base URL recorded in the manifest, not from the recipe's imageUrl. Variant URLs
+ * contain the content hash of the source image, so Glide's URL-based cache keys change
+ * whenever an image is updated.
+ * When the manifest is missing, has no base URL or doesn't list an image, the original URL is used.
+ */
+public final class ImageVariants {
+    private static final String TAG = "ImageVariants";
+    private static final String MANIFEST_ASSET = "image_manifest.json";
+    private static volatile ImageVariants instance;
+
+    // Source file name -> variant information
+    private final Map<String, Entry> entries;
+    // Published URL of the variants directory, ending with a slash; null when unknown
+    private final String variantsBaseUrl;
+
+    private static final class Entry {
+        final String hash;
+        // Available widths, ascending
+        final int[] widths;
+
+        Entry(String hash, int[] widths) {
+            this.hash = hash;
+            this.widths = widths;
+        }
+    }
+
+    private ImageVariants(Map<String, Entry> entries, String variantsBaseUrl) {
+        this.entries = entries;
+        this.variantsBaseUrl = variantsBaseUrl;
+    }
+
+    /**
+     * Returns the shared instance, reading the manifest from the assets on first use.
+     */
+    public static ImageVariants getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ImageVariants.class) {
+                if (instance == null) {
+                    instance = load(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static ImageVariants load(Context context) {
+        Map<String, Entry> entries = new HashMap<>();
+        String variantsBaseUrl = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                context.getAssets().open(MANIFEST_ASSET), StandardCharsets.UTF_8))) {
+            StringBuilder json = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                json.append(line);
+            }
+            JSONObject manifest = new JSONObject(json.toString());
+            variantsBaseUrl = manifest.optString("variantsBaseUrl", null);
+            if (variantsBaseUrl == null || variantsBaseUrl.isEmpty()) {
+                Log.w(TAG, "Image manifest has no variantsBaseUrl, using original image URLs");
+                return new ImageVariants(entries, null);
+            }
+            JSONObject images = manifest.getJSONObject("images");
+            Iterator<String> names = images.keys();
+            while (names.hasNext()) {
+                String name = names.next();
+                JSONObject image = images.getJSONObject(name);
+                JSONArray variants = image.getJSONArray("variants");
+                int[] widths = new int[variants.length()];
+                for (int i = 0; i < widths.length; i++) {
+                    widths[i] = variants.getInt(i);
+                }
+                entries.put(name, new Entry(image.getString("hash"), widths));
+            }
+        } catch (FileNotFoundException e) {
+            Log.d(TAG, "No image manifest bundled, using original image URLs");
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Error reading image manifest: " + e.getMessage());
+        }
+        return new ImageVariants(entries, variantsBaseUrl);
+    }
+
+    /**
+     * Returns the URL of the smallest variant at least as wide as the target.
+     * If every variant is narrower, the widest one is used.
+     *
+     * @param imageUrl Original image URL from the recipe
+     * @param targetWidthPx Width the image will be displayed at, in pixels
+     * @return URL of the chosen variant, or the original URL if no variant is known
+     */
+    public String urlFor(String imageUrl, int targetWidthPx) {
+        if (imageUrl == null || variantsBaseUrl == null || entries.isEmpty()) {
+            return imageUrl;
+        }
+        Uri uri = Uri.parse(imageUrl);
+        String fileName = uri.getLastPathSegment();
+        Entry entry = fileName != null ? entries.get(fileName) : null;
+        if (entry == null || entry.widths.length == 0) {
+            return imageUrl;
+        }
+        int width = entry.widths[entry.widths.length - 1];
+        for (int candidate : entry.widths) {
+            if (candidate >= targetWidthPx) {
+                width = candidate;
+                break;
+            }
+        }
+        // <variantsBaseUrl><hash>/<width>.webp, wherever the originals are hosted
+        return variantsBaseUrl + entry.hash + "/" + width + ".webp";
+    }
+
+    /**
+     * Resolves the variant URL for an ImageView, using its laid out width when available,
+     * then its layout params, and finally the screen width.
+     */
+    public String urlFor(String imageUrl, ImageView imageView) {
+        return urlFor(imageUrl, targetWidth(imageView));
+    }
+
+    private static int targetWidth(ImageView imageView) {
+        if (imageView.getWidth() > 0) {
+            return imageView.getWidth();
+        }
+        ViewGroup.LayoutParams params = imageView.getLayoutParams();
+        if (params != null && params.width > 0) {
+            return params.width;
+        }
+        return imageView.getResources().getDisplayMetrics().widthPixels;
+    }
+}
@@ -0,0 +1,146 @@
+package myrecipes.app.utils;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+/**
+ * App-wide Glide configuration.
+ * Memory cache, bitmap pool and disk cache are sized by the device memory class instead of
+ * Glide's one-size defaults, and both in-memory caches count their hits for {@link ImageCacheStats}.
+ */
+@GlideModule
+public class RecipesGlideModule extends AppGlideModule {
+    private static final String TAG = "RecipesGlideModule";
+    private static final String DISK_CACHE_NAME = "recipe_images";
+    private static final long MB = 1024 * 1024;
+
+    /**
+     * Budgets for one class of device.
+     */
+    private enum DeviceTier {
+        // Low RAM devices or small heaps: keep about one screen of images
+        LOW(1f, 1f, 64 * MB),
+        MID(2f, 2f, 150 * MB),
+        HIGH(3f, 3f, 250 * MB);
+
+        final float memoryCacheScreens;
+        final float bitmapPoolScreens;
+        final long diskCacheBytes;
+
+        DeviceTier(float memoryCacheScreens, float bitmapPoolScreens, long diskCacheBytes) {
+            this.memoryCacheScreens = memoryCacheScreens;
+            this.bitmapPoolScreens = bitmapPoolScreens;
+            this.diskCacheBytes = diskCacheBytes;
+        }
+
+        static DeviceTier of(Context context) {
+            ActivityManager activityManager =
+                    (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+            if (activityManager == null || activityManager.isLowRamDevice()
+                    || activityManager.getMemoryClass() <= 128) {
+                return LOW;
+            }
+            return activityManager.getMemoryClass() <= 256 ? MID : HIGH;
+        }
+    }
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        DeviceTier tier = DeviceTier.of(context);
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(tier.memoryCacheScreens)
+                .setBitmapPoolScreens(tier.bitmapPoolScreens)
+                .build();
+
+        builder.setMemoryCache(new CountingResourceCache(calculator.getMemoryCacheSize()));
+        builder.setBitmapPool(new CountingBitmapPool(calculator.getBitmapPoolSize()));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(
+                context, DISK_CACHE_NAME, tier.diskCacheBytes));
+        // Full-size images keep full colour; thumbnails opt into RGB_565 through thumbnailOptions()
+        builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_ARGB_8888));
+
+        ImageCacheStats.getInstance().setBudgets(tier.name(), calculator.getMemoryCacheSize(),
+                calculator.getBitmapPoolSize(), tier.diskCacheBytes);
+        Log.d(TAG, "Image caches sized for " + tier + " device: memory="
+                + calculator.getMemoryCacheSize() + " pool=" + calculator.getBitmapPoolSize());
+    }
+
+    /**
+     * All modules are registered through annotations, so manifest parsing is skipped.
+     */
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+
+    /**
+     * Request options for small list images.
+     * RGB_565 halves the memory of each decoded bitmap; recipe photos have no transparency.
+     * The decoded size is never larger than the target, so thumbnails aren't decoded at full resolution.
+     */
+    public static RequestOptions thumbnailOptions() {
+        return new RequestOptions()
+                .format(DecodeFormat.PREFER_RGB_565)
+                .downsample(DownsampleStrategy.AT_MOST);
+    }
+
+    /**
+     * Memory cache that records hits and misses.
+     * Glide's engine calls remove() on lookup: a non-null result is a hit.
+     */
+    private static class CountingResourceCache extends LruResourceCache {
+        CountingResourceCache(long size) {
+            super(size);
+        }
+
+        @Override
+        public synchronized Resource<?> remove(@NonNull Key key) {
+            Resource<?> resource = super.remove(key);
+            ImageCacheStats.getInstance().recordMemoryCache(resource != null);
+            return resource;
+        }
+    }
+
+    /**
+     * Bitmap pool that records whether each request was served by a pooled bitmap.
+     * A hit takes a bitmap out of the pool, so the pool size drops; a miss allocates a new one.
+     */
+    private static class CountingBitmapPool extends LruBitmapPool {
+        CountingBitmapPool(long maxSize) {
+            super(maxSize);
+        }
+
+        @NonNull
+        @Override
+        public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+            long before = getCurrentSize();
+            Bitmap bitmap = super.get(width, height, config);
+            ImageCacheStats.getInstance().recordBitmapPool(getCurrentSize() < before);
+            return bitmap;
+        }
+
+        @NonNull
+        @Override
+        public synchronized Bitmap getDirty(int width, int height, Bitmap.Config config) {
+            long before = getCurrentSize();
+            Bitmap bitmap = super.getDirty(width, height, config);
+            ImageCacheStats.getInstance().recordBitmapPool(getCurrentSize() < before);
+            return bitmap;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package myrecipes.app.utils;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Cold start milestones, measured from the moment the process was started.
+ * Time to interactive is reported once per process, when the first screen shows real content.
+ */
+public final class StartupTiming {
+    private static final String TAG = "StartupTiming";
+    private static boolean interactiveReported;
+
+    private StartupTiming() {
+    }
+
+    /**
+     * Milliseconds elapsed since the process was started.
+     */
+    public static long sinceProcessStart() {
+        return SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+    }
+
+    /**
+     * Logs a startup milestone.
+     */
+    public static void mark(String milestone) {
+        Log.d(TAG, milestone + " at " + sinceProcessStart() + " ms");
+    }
+
+    /**
+     * Logs the time to interactive the first time a screen shows its content.
+     *
+     * @param screen Name of the screen that became interactive
+     */
+    public static synchronized void reportInteractive(String screen) {
+        if (interactiveReported) {
+            return;
+        }
+        interactiveReported = true;
+        Log.d(TAG, "Time to interactive (" + screen + "): " + sinceProcessStart() + " ms");
+    }
+}
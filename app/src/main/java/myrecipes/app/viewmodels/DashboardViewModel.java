@@ -1,11 +1,23 @@
 package myrecipes.app.viewmodels;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
-import myrecipes.app.models.Recipe;
+import myrecipes.app.datasources.CatalogChangeFeed;
+import myrecipes.app.models.CatalogChangeSet;
+import myrecipes.app.models.CatalogIndex;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.models.SortOrder;
+import myrecipes.app.repositories.CatalogIndexCache;
+import myrecipes.app.repositories.CatalogPrefetcher;
+import myrecipes.app.repositories.CatalogStore;
 import myrecipes.app.repositories.DashboardRepository;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This ViewModel manages the UI state for the dashboard/home screen of the app.
@@ -13,30 +25,79 @@ import java.util.List;
  */
 
 public class DashboardViewModel extends ViewModel {
-    // LiveData to hold the list of recipes - MutableLiveData internally, exposed as LiveData
-    private final MutableLiveData<List<Recipe>> recipeLiveData = new MutableLiveData<>();
+    // Summaries as delivered by the repository
+    private final MutableLiveData<List<RecipeSummary>> loadedSummaries = new MutableLiveData<>();
+    // Favourite counts of the most popular recipes, as delivered by the repository
+    private final MutableLiveData<Map<String, Integer>> popularity = new MutableLiveData<>();
+    // Index (columnar catalog + sort permutations) for the latest catalog version
+    private final MutableLiveData<CatalogIndex> catalogIndex = new MutableLiveData<>();
+    // Currently selected sort order and facet filter
+    private final MutableLiveData<SortOrder> sortOrder = new MutableLiveData<>(SortOrder.CATALOG);
+    private final MutableLiveData<Long> facetFilter = new MutableLiveData<>(0L);
+    // LiveData to hold the recipe summaries shown in the list - MediatorLiveData internally, exposed as LiveData
+    private final MediatorLiveData<List<RecipeSummary>> recipeLiveData = new MediatorLiveData<>();
     // Loading state indicator for UI feedback
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     // Repository instance for data operations
     private final DashboardRepository dashboardRepository;
+    // Sort permutations kept between sessions
+    private final CatalogIndexCache indexCache;
+    // Live catalog changes, applied to the index without rebuilding it
+    private final CatalogChangeFeed changeFeed;
+    // Builds indexes off the main thread; a single thread keeps versions in order
+    private final ExecutorService indexExecutor = Executors.newSingleThreadExecutor();
+    // Incremented every time a new catalog arrives, used to drop stale indexes
+    private final AtomicInteger catalogVersion = new AtomicInteger();
+    // Latest index built, only used on the index executor as the base of incremental updates
+    private CatalogIndex latestIndex;
+    // Latest ranking, only used on the index executor; applied to every index built after it
+    private Map<String, Integer> latestPopularity;
+    private final CatalogChangeFeed.Listener changeListener = this::applyChanges;
 
     /**
-     * Constructor initializes the repository and triggers initial data load.
-     * Loading starts automatically when ViewModel is created.
+     * Constructor takes the repository, the index cache and the change feed, and triggers
+     * initial data load. Loading starts automatically when ViewModel is created.
      */
-    public DashboardViewModel() {
-        dashboardRepository = new DashboardRepository();
+    public DashboardViewModel(DashboardRepository dashboardRepository, CatalogIndexCache indexCache,
+                              CatalogChangeFeed changeFeed) {
+        this.dashboardRepository = dashboardRepository;
+        this.indexCache = indexCache;
+        this.changeFeed = changeFeed;
+        // Recompute the sort permutations only when the catalog itself changes
+        recipeLiveData.addSource(loadedSummaries, this::buildIndex);
+        // A new ranking only recomputes the most popular order
+        recipeLiveData.addSource(popularity, this::applyPopularity);
+        // Sort and filter changes only swap the view over the cached permutations
+        recipeLiveData.addSource(catalogIndex, index -> publishView());
+        recipeLiveData.addSource(sortOrder, order -> publishView());
+        recipeLiveData.addSource(facetFilter, mask -> publishView());
+        changeFeed.addListener(changeListener);
         loadRecipes();
     }
 
     /**
-     * Provides read-only access to recipe data.
+     * Provides read-only access to recipe data, already sorted and filtered.
      * Returns LiveData instead of MutableLiveData to prevent modifications from outside.
      */
-    public LiveData<List<Recipe>> getRecipeLiveData() {
+    public LiveData<List<RecipeSummary>> getRecipeLiveData() {
         return recipeLiveData;
     }
 
+    /**
+     * Provides read-only access to the index of the current catalog version.
+     */
+    public LiveData<CatalogIndex> getCatalogIndex() {
+        return catalogIndex;
+    }
+
+    public LiveData<SortOrder> getSortOrder() {
+        return sortOrder;
+    }
+
+    public LiveData<Long> getFacetFilter() {
+        return facetFilter;
+    }
+
     /**
      * Provides read-only access to loading state.
      * UI can observe this to show/hide loading indicators.
@@ -45,12 +106,126 @@ public class DashboardViewModel extends ViewModel {
         return isLoading;
     }
 
+    /**
+     * Changes the order of the list. O(1) when no filter is active.
+     */
+    public void setSortOrder(SortOrder order) {
+        if (order != sortOrder.getValue()) {
+            sortOrder.setValue(order);
+        }
+    }
+
+    /**
+     * Keeps only the recipes that have all the facets of the mask; 0 shows every recipe.
+     */
+    public void setFacetFilter(long mask) {
+        Long current = facetFilter.getValue();
+        if (current == null || current != mask) {
+            facetFilter.setValue(mask);
+        }
+    }
+
     /**
      * Initiates recipe loading from repository.
-     * Sets loading state and triggers repository call.
+     * Sets loading state and triggers repository call, unless the splash screen
+     * already prefetched the catalog.
      */
     private void loadRecipes() {
         isLoading.setValue(true);
-        dashboardRepository.getRecipe(recipeLiveData);
+        if (!CatalogPrefetcher.getInstance().deliverTo(loadedSummaries)) {
+            dashboardRepository.getRecipeSummaries(loadedSummaries);
+        }
+        dashboardRepository.getPopularRecipes(popularity);
+    }
+
+    /**
+     * Builds the columnar catalog and every sort permutation in the background.
+     * The permutations prepared by the background sync are restored instead of sorting
+     * when they belong to the same summaries; otherwise they are written for the next start.
+     * Results for a catalog version that was replaced in the meantime are dropped.
+     */
+    private void buildIndex(List<RecipeSummary> summaries) {
+        int version = catalogVersion.incrementAndGet();
+        indexExecutor.execute(() -> {
+            CatalogIndex index = indexCache.load(version, summaries);
+            boolean restored = index != null;
+            if (!restored) {
+                index = CatalogIndex.build(version, summaries);
+            }
+            if (latestPopularity != null) {
+                index = index.withPopularity(version, latestPopularity);
+            }
+            latestIndex = index;
+            if (index.getVersion() == catalogVersion.get()) {
+                catalogIndex.postValue(index);
+            }
+            if (!restored) {
+                // The most popular order is computed again on restore, so the ranking isn't kept
+                indexCache.save(summaries, index);
+            }
+        });
+    }
+
+    /**
+     * Reorders the most popular permutation of the current index for a new ranking.
+     * A ranking arriving before the first index is applied when that index is built.
+     */
+    private void applyPopularity(Map<String, Integer> counts) {
+        int version = catalogVersion.incrementAndGet();
+        indexExecutor.execute(() -> {
+            latestPopularity = counts;
+            if (latestIndex == null) {
+                return;
+            }
+            CatalogIndex index = latestIndex.withPopularity(version, counts);
+            latestIndex = index;
+            if (index.getVersion() == catalogVersion.get()) {
+                catalogIndex.postValue(index);
+            }
+        });
+    }
+
+    /**
+     * Patches the current index with a change set from the live sync.
+     * Changes arriving before the first index was built are already part of the first load.
+     */
+    private void applyChanges(CatalogChangeSet changes) {
+        int version = catalogVersion.incrementAndGet();
+        indexExecutor.execute(() -> {
+            if (latestIndex == null) {
+                return;
+            }
+            CatalogIndex index = latestIndex.update(version, changes, CatalogStore.KEY_ORDER);
+            latestIndex = index;
+            if (index.getVersion() == catalogVersion.get()) {
+                catalogIndex.postValue(index);
+            }
+        });
+    }
+
+    /**
+     * Publishes the list for the current index, sort order and filter.
+     */
+    private void publishView() {
+        CatalogIndex index = catalogIndex.getValue();
+        if (index == null) {
+            return;
+        }
+        SortOrder order = sortOrder.getValue();
+        Long mask = facetFilter.getValue();
+        recipeLiveData.setValue(index.view(
+                order != null ? order : SortOrder.CATALOG,
+                mask != null && mask != 0L ? index.getCatalog().filterByFacets(mask) : null));
+        isLoading.setValue(false);
+    }
+
+    /**
+     * Stops the index builder when the ViewModel is no longer used.
+     */
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        changeFeed.removeListener(changeListener);
+        indexExecutor.shutdownNow();
     }
-}
\ No newline at end of file
+}
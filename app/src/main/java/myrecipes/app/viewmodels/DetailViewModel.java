@@ -2,6 +2,7 @@ package myrecipes.app.viewmodels;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 import androidx.lifecycle.ViewModel;
 import myrecipes.app.models.Recipe;
 import myrecipes.app.repositories.DashboardRepository;
@@ -16,18 +17,21 @@ public class DetailViewModel extends ViewModel {
     private final FavouriteRepository favouriteRepository;
     // LiveData for the currently displayed recipe
     private final MutableLiveData<Recipe> recipe = new MutableLiveData<>();
-    // Tracks favorite status of current recipe
-    private final MutableLiveData<Boolean> isFavourite = new MutableLiveData<>();
+    // Recipe whose favorite status is tracked
+    private final MutableLiveData<String> favouriteRecipeId = new MutableLiveData<>();
+    // Tracks favorite status of current recipe, including toggles not saved yet
+    private final LiveData<Boolean> isFavourite;
     private final MutableLiveData<String> error = new MutableLiveData<>();
     private final MutableLiveData<Boolean> loading = new MutableLiveData<>();
 
     /**
-     * Constructor initializes both repositories needed for recipe details
+     * Constructor takes both repositories needed for recipe details
      * and favorite management.
      */
-    public DetailViewModel() {
-        repository = new DashboardRepository();
-        favouriteRepository = new FavouriteRepository();
+    public DetailViewModel(DashboardRepository repository, FavouriteRepository favouriteRepository) {
+        this.repository = repository;
+        this.favouriteRepository = favouriteRepository;
+        isFavourite = Transformations.switchMap(favouriteRecipeId, favouriteRepository::observeFavorite);
     }
 
     public LiveData<Recipe> getRecipe() { return recipe; }
@@ -57,18 +61,19 @@ public class DetailViewModel extends ViewModel {
      * Checks if current recipe is in user's favorites
      */
     private void checkIsFavourite(String recipeId) {
-        favouriteRepository.checkIsFavorite(recipeId, isFavourite);
+        if (!recipeId.equals(favouriteRecipeId.getValue())) {
+            favouriteRecipeId.setValue(recipeId);
+        }
     }
 
     /**
      * Toggles favorite status of current recipe.
-     * Updates both repository and local UI state.
+     * The repository updates the status right away and saves it in the background.
      */
     public void toggleFavourite(Recipe recipe) {
         Boolean currentFavouriteStatus = isFavourite.getValue();
         if (currentFavouriteStatus != null) {
             favouriteRepository.toggleFavorite(recipe.getId(), !currentFavouriteStatus);
-            isFavourite.setValue(!currentFavouriteStatus);
         }
     }
 }
@@ -1,46 +1,123 @@
 package myrecipes.app.viewmodels;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 import androidx.lifecycle.ViewModel;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import myrecipes.app.models.Recipe;
+import myrecipes.app.models.FavouritePage;
+import myrecipes.app.models.RecipeSummary;
 import myrecipes.app.repositories.FavouriteRepository;
 
 
 /**
  * Manages the UI state for the user's favorite recipes screen.
- * Handles loading and toggling of favorite recipes.
+ * Handles page by page loading and toggling of favorite recipes.
  */
 public class FavouriteViewModel extends ViewModel {
-    private final MutableLiveData<List<Recipe>> recipeLiveData = new MutableLiveData<>();
-    private final MutableLiveData<Boolean> isFavoriteLiveData = new MutableLiveData<>();
+    // Favorites loaded per page; a screenful plus some room to scroll
+    static final int PAGE_SIZE = 20;
+
+    private final MediatorLiveData<List<RecipeSummary>> recipeLiveData = new MediatorLiveData<>();
+    private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
+    private final MutableLiveData<String> checkedRecipeId = new MutableLiveData<>();
+    private final LiveData<Boolean> isFavoriteLiveData;
     private final FavouriteRepository favouriteRepository;
+    // Recipes of the pages loaded so far, in key order
+    private final List<RecipeSummary> loaded = new ArrayList<>();
+    private String lastKey;
+    private boolean hasMore = true;
+    // Incremented on every reload so pages of a previous load are dropped
+    private int generation;
+    // Favourites revision the loaded pages belong to
+    private int loadedRevision;
 
     /**
-     * Constructor initializes repository and triggers initial load
-     * of favorite recipes.
+     * Constructor takes the repository and triggers loading of the
+     * first page of favorite recipes.
      */
-    public FavouriteViewModel() {
-        favouriteRepository = new FavouriteRepository();
-        loadFavorites();
+    public FavouriteViewModel(FavouriteRepository favouriteRepository) {
+        this.favouriteRepository = favouriteRepository;
+        isFavoriteLiveData = Transformations.switchMap(checkedRecipeId, favouriteRepository::observeFavorite);
+        reload();
     }
 
-    public LiveData<List<Recipe>> getRecipeLiveData() {
+    public LiveData<List<RecipeSummary>> getRecipeLiveData() {
         return recipeLiveData;
     }
 
+    public LiveData<Boolean> getIsLoading() {
+        return isLoading;
+    }
+
     public LiveData<Boolean> getIsFavoriteLiveData() {
         return isFavoriteLiveData;
     }
 
     /**
-     * Loads user's favorite recipes from repository
+     * Loads the page after the last loaded one, unless a page is loading or none is left.
+     */
+    public void loadNextPage() {
+        Boolean loading = isLoading.getValue();
+        if (!hasMore || (loading != null && loading)) {
+            return;
+        }
+        isLoading.setValue(true);
+        int pageGeneration = generation;
+        MutableLiveData<FavouritePage> pageLiveData = new MutableLiveData<>();
+        recipeLiveData.addSource(pageLiveData, page -> {
+            recipeLiveData.removeSource(pageLiveData);
+            if (pageGeneration == generation) {
+                onPageLoaded(page);
+            }
+        });
+        favouriteRepository.getFavouritesPage(lastKey, PAGE_SIZE, pageLiveData);
+    }
+
+    /**
+     * Appends a loaded page. A failed page leaves the position unchanged, so scrolling retries it.
      */
-    private void loadFavorites() {
-        favouriteRepository.getFavourites(recipeLiveData);
+    private void onPageLoaded(FavouritePage page) {
+        isLoading.setValue(false);
+        if (page == null) {
+            if (recipeLiveData.getValue() == null) {
+                recipeLiveData.setValue(new ArrayList<>(loaded));
+            }
+            return;
+        }
+        loaded.addAll(page.getRecipes());
+        lastKey = page.getLastKey();
+        hasMore = page.hasMore();
+        // A new list each time, so the adapter can diff it against the previous one
+        recipeLiveData.setValue(new ArrayList<>(loaded));
+        if (page.getRecipes().isEmpty() && hasMore) {
+            // Every favourite of the page was a deleted recipe: keep going
+            loadNextPage();
+        }
+    }
+
+    /**
+     * Starts over from the first page when favorites were added or removed since the pages
+     * were loaded, e.g. on the detail screen. Only the first page is loaded again.
+     */
+    public void refreshIfChanged() {
+        if (favouriteRepository.getRevision() != loadedRevision) {
+            reload();
+        }
+    }
+
+    private void reload() {
+        generation++;
+        loadedRevision = favouriteRepository.getRevision();
+        loaded.clear();
+        lastKey = null;
+        hasMore = true;
+        isLoading.setValue(false);
+        loadNextPage();
     }
 
     /**
@@ -54,6 +131,6 @@ public class FavouriteViewModel extends ViewModel {
      * Checks favorite status of a specific recipe
      */
     public void checkIsFavorite(String recipeId) {
-        favouriteRepository.checkIsFavorite(recipeId, isFavoriteLiveData);
+        checkedRecipeId.setValue(recipeId);
     }
 }
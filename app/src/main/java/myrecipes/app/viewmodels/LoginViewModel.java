@@ -4,8 +4,7 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
-import com.google.firebase.auth.FirebaseUser;
-
+import myrecipes.app.datasources.DataCallback;
 import myrecipes.app.repositories.UserRepository;
 
 /**
@@ -14,15 +13,15 @@ import myrecipes.app.repositories.UserRepository;
  */
 public class LoginViewModel extends ViewModel {
     private final UserRepository userRepository;
-    // Tracks currently logged in user
-    private final MutableLiveData<FirebaseUser> userLiveData = new MutableLiveData<>();
+    // Tracks the ID of the currently logged in user
+    private final MutableLiveData<String> userLiveData = new MutableLiveData<>();
     // Holds authentication error messages
     private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
     // Loading state for UI feedback
     private final MutableLiveData<Boolean> isLoadingLiveData = new MutableLiveData<>();
 
-    public LoginViewModel() {
-        userRepository = new UserRepository();
+    public LoginViewModel(UserRepository userRepository) {
+        this.userRepository = userRepository;
     }
 
     /**
@@ -32,18 +31,22 @@ public class LoginViewModel extends ViewModel {
     public void login(String email, String password) {
         isLoadingLiveData.setValue(true);
 
-        userRepository.loginUser(email, password)
-                .addOnSuccessListener(authResult -> {
-                    isLoadingLiveData.setValue(false);
-                    userLiveData.setValue(authResult.getUser());
-                })
-                .addOnFailureListener(e -> {
-                    isLoadingLiveData.setValue(false);
-                    errorLiveData.setValue(e.getMessage());
-                });
+        userRepository.loginUser(email, password, new DataCallback<String>() {
+            @Override
+            public void onSuccess(String userId) {
+                isLoadingLiveData.postValue(false);
+                userLiveData.postValue(userId);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                isLoadingLiveData.postValue(false);
+                errorLiveData.postValue(e.getMessage());
+            }
+        });
     }
 
-    public LiveData<FirebaseUser> getUserLiveData() {
+    public LiveData<String> getUserLiveData() {
         return userLiveData;
     }
 
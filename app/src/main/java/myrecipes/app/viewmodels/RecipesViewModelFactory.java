@@ -0,0 +1,55 @@
+package myrecipes.app.viewmodels;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+import myrecipes.app.datasources.DataSources;
+import myrecipes.app.repositories.DashboardRepository;
+import myrecipes.app.repositories.FavouriteRepository;
+import myrecipes.app.repositories.UserRepository;
+
+/**
+ * Creates the ViewModels with their repositories, built on the installed {@link DataSources}
+ * and its catalog store, index cache and change feed.
+ * The ViewModels no longer create their repositories themselves, so the same ViewModel code
+ * runs against Firebase in the app and against in-memory data sources in tests and benchmarks.
+ */
+public class RecipesViewModelFactory implements ViewModelProvider.Factory {
+    private static final RecipesViewModelFactory INSTANCE = new RecipesViewModelFactory();
+
+    public static RecipesViewModelFactory getInstance() {
+        return INSTANCE;
+    }
+
+    @NonNull
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
+        DataSources sources = DataSources.get();
+        if (modelClass == DashboardViewModel.class) {
+            return (T) new DashboardViewModel(new DashboardRepository(sources.getRecipes(), sources.getCatalog()),
+                    sources.getIndexCache(), sources.getChangeFeed());
+        }
+        if (modelClass == DetailViewModel.class) {
+            return (T) new DetailViewModel(new DashboardRepository(sources.getRecipes(), sources.getCatalog()), favouriteRepository(sources));
+        }
+        if (modelClass == RandomViewModel.class) {
+            return (T) new RandomViewModel(new DashboardRepository(sources.getRecipes(), sources.getCatalog()), favouriteRepository(sources));
+        }
+        if (modelClass == FavouriteViewModel.class) {
+            return (T) new FavouriteViewModel(favouriteRepository(sources));
+        }
+        if (modelClass == LoginViewModel.class) {
+            return (T) new LoginViewModel(new UserRepository(sources.getUsers()));
+        }
+        if (modelClass == RegisterViewModel.class) {
+            return (T) new RegisterViewModel(new UserRepository(sources.getUsers()));
+        }
+        throw new IllegalArgumentException("Unknown ViewModel " + modelClass.getName());
+    }
+
+    private static FavouriteRepository favouriteRepository(DataSources sources) {
+        return new FavouriteRepository(sources.getFavourites(), sources.getRecipes(), sources.getUsers(),
+                sources.getCatalog());
+    }
+}
@@ -8,11 +8,11 @@ import androidx.lifecycle.ViewModel;
 import com.google.firebase.auth.FirebaseAuthInvalidCredentialsException;
 import com.google.firebase.auth.FirebaseAuthUserCollisionException;
 import com.google.firebase.auth.FirebaseAuthWeakPasswordException;
-import com.google.firebase.auth.FirebaseUser;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import myrecipes.app.datasources.DataCallback;
 import myrecipes.app.repositories.UserRepository;
 /**
  * Manages user registration process and related UI state.
@@ -27,8 +27,8 @@ public class RegisterViewModel extends ViewModel {
     // Loading state for UI feedback
     private final MutableLiveData<Boolean> isLoadingLiveData = new MutableLiveData<>();
 
-    public RegisterViewModel() {
-        userRepository = new UserRepository();
+    public RegisterViewModel(UserRepository userRepository) {
+        this.userRepository = userRepository;
     }
 
     /**
@@ -45,17 +45,20 @@ public class RegisterViewModel extends ViewModel {
                              String phone, String address) {
         isLoadingLiveData.setValue(true);
 
-        userRepository.registerUser(email, password)
-                .addOnSuccessListener(authResult -> {
-                    FirebaseUser firebaseUser = authResult.getUser();
-                    if (firebaseUser != null) {
-                        saveUserData(firebaseUser.getUid(), fullName, email, phone, address);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    isLoadingLiveData.setValue(false);
-                    handleRegistrationError(e);
-                });
+        userRepository.registerUser(email, password, new DataCallback<String>() {
+            @Override
+            public void onSuccess(String userId) {
+                if (userId != null) {
+                    saveUserData(userId, fullName, email, phone, address);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                isLoadingLiveData.postValue(false);
+                handleRegistrationError(e);
+            }
+        });
     }
 
     /**
@@ -70,15 +73,19 @@ public class RegisterViewModel extends ViewModel {
         userData.put("phone", phone);
         userData.put("address", address);
 
-        userRepository.saveUserData(userId, userData)
-                .addOnSuccessListener(aVoid -> {
-                    isLoadingLiveData.setValue(false);
-                    registrationSuccessLiveData.setValue(true);
-                })
-                .addOnFailureListener(e -> {
-                    isLoadingLiveData.setValue(false);
-                    errorLiveData.setValue("Error saving user data: " + e.getMessage());
-                });
+        userRepository.saveUserData(userId, userData, new DataCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                isLoadingLiveData.postValue(false);
+                registrationSuccessLiveData.postValue(true);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                isLoadingLiveData.postValue(false);
+                errorLiveData.postValue("Error saving user data: " + e.getMessage());
+            }
+        });
     }
 
     /**
@@ -96,7 +103,7 @@ public class RegisterViewModel extends ViewModel {
         } else {
             errorMessage += exception.getMessage();
         }
-        errorLiveData.setValue(errorMessage);
+        errorLiveData.postValue(errorMessage);
     }
 
     public LiveData<String> getErrorLiveData() {
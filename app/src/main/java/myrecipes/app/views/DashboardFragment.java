@@ -4,25 +4,51 @@
  */
 package myrecipes.app.views;
 
+import android.content.Context;
 import android.os.Bundle;
 import android.view.LayoutInflater;
+import android.view.Menu;
+import android.view.MenuInflater;
+import android.view.MenuItem;
+import android.view.SubMenu;
 import android.view.View;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.view.MenuProvider;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Lifecycle;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import myrecipes.app.R;
 import myrecipes.app.adapters.RecipeAdapter;
 import myrecipes.app.databinding.FragmentDashboardBinding;
-import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeFacet;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.models.SortOrder;
+import myrecipes.app.utils.FlingFrameMetrics;
+import myrecipes.app.utils.StartupTiming;
 import myrecipes.app.viewmodels.DashboardViewModel;
+import myrecipes.app.viewmodels.RecipesViewModelFactory;
 
 public class DashboardFragment extends Fragment implements RecipeAdapter.OnRecipeClickListener {
+    // Rows preloaded ahead of the scroll direction, about one screenful
+    static final int THUMBNAIL_PRELOAD_ROWS = 10;
+    // Debug setting switched from the toolbar menu to compare fling frame times
+    private static final String DEBUG_PREFS = "debug";
+    private static final String KEY_PRELOAD_THUMBNAILS = "preload_thumbnails";
+
     private DashboardViewModel viewModel;
     private FragmentDashboardBinding binding;
+    private RecipeAdapter adapter;
+    // Loads thumbnails of the rows about to scroll into view while preloading is on
+    private RecyclerView.OnScrollListener thumbnailPreloader;
+    // Null unless the app is debuggable
+    private FlingFrameMetrics flingMetrics;
+    // Sort order of the list last handed to the adapter
+    private SortOrder submittedSortOrder;
 
     /**
      * Inflates the fragment layout using View Binding.
@@ -46,40 +72,160 @@ public class DashboardFragment extends Fragment implements RecipeAdapter.OnRecip
         super.onViewCreated(view, savedInstanceState);
 
         // Initialize ViewModel
-        viewModel = new ViewModelProvider(this).get(DashboardViewModel.class);
+        viewModel = new ViewModelProvider(this, RecipesViewModelFactory.getInstance()).get(DashboardViewModel.class);
         binding.setViewModel(viewModel);
         binding.setLifecycleOwner(getViewLifecycleOwner());
 
-        // Setup RecyclerView
+        // Setup RecyclerView with a single adapter for the lifetime of the view
         binding.recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
+        adapter = new RecipeAdapter(this, this);
+        binding.recyclerView.setAdapter(adapter);
+        thumbnailPreloader = adapter.createPreloader(THUMBNAIL_PRELOAD_ROWS);
+        boolean preload = isThumbnailPreloadEnabled(requireContext());
+        if (preload) {
+            binding.recyclerView.addOnScrollListener(thumbnailPreloader);
+        }
+        flingMetrics = FlingFrameMetrics.attachIfDebuggable(requireActivity(), binding.recyclerView,
+                flingLabel(preload));
 
         // Observe recipe data changes
         observeRecipeData();
+
+        // Sort and filter options in the toolbar
+        requireActivity().addMenuProvider(new DashboardMenuProvider(),
+                getViewLifecycleOwner(), Lifecycle.State.RESUMED);
+    }
+
+    /**
+     * Whether lists preload the thumbnails of the rows ahead. Always on in release builds;
+     * debuggable builds can switch it off from the dashboard menu to measure what it buys:
+     * fling the list with it on and off, then compare the FlingFrameMetrics "total" lines
+     * of the two labels in logcat.
+     */
+    static boolean isThumbnailPreloadEnabled(Context context) {
+        return !FlingFrameMetrics.isDebuggable(context)
+                || context.getSharedPreferences(DEBUG_PREFS, Context.MODE_PRIVATE)
+                        .getBoolean(KEY_PRELOAD_THUMBNAILS, true);
+    }
+
+    /**
+     * Applies the debug preload setting to this list right away and keeps it for next time.
+     */
+    private void setThumbnailPreload(boolean preload) {
+        requireContext().getSharedPreferences(DEBUG_PREFS, Context.MODE_PRIVATE).edit()
+                .putBoolean(KEY_PRELOAD_THUMBNAILS, preload)
+                .apply();
+        binding.recyclerView.removeOnScrollListener(thumbnailPreloader);
+        if (preload) {
+            binding.recyclerView.addOnScrollListener(thumbnailPreloader);
+        }
+        if (flingMetrics != null) {
+            flingMetrics.setLabel(flingLabel(preload));
+        }
+    }
+
+    private static String flingLabel(boolean preload) {
+        return preload ? "dashboard (preload)" : "dashboard (no preload)";
     }
 
     /**
      * Observes recipe data changes and updates UI accordingly.
-     * Shows how to handle RecyclerView adapter updates with LiveData.
+     * The adapter diffs each new list against the current one in the background,
+     * keeping scroll position and item animations.
+     * A new sort order reorders every row, so the diff is skipped and the list is replaced.
      */
     private void observeRecipeData() {
         viewModel.getRecipeLiveData().observe(getViewLifecycleOwner(), recipes -> {
-            if (binding.recyclerView.getAdapter() == null) {
-                // Create new adapter if none exists
-                RecipeAdapter adapter = new RecipeAdapter(recipes, this);
-                binding.recyclerView.setAdapter(adapter);
+            SortOrder sortOrder = viewModel.getSortOrder().getValue();
+            if (submittedSortOrder != null && submittedSortOrder != sortOrder) {
+                adapter.submitList(null);
+                adapter.submitList(recipes, () -> binding.recyclerView.scrollToPosition(0));
             } else {
-                // Update existing adapter
-                ((RecipeAdapter) binding.recyclerView.getAdapter()).updateRecipes(recipes);
+                adapter.submitList(recipes, () -> StartupTiming.reportInteractive("dashboard"));
             }
+            submittedSortOrder = sortOrder;
         });
     }
 
+    /**
+     * Toolbar menu with the sort orders and the facet filters.
+     * Facet items are generated from {@link RecipeFacet} so new facets show up automatically.
+     */
+    private class DashboardMenuProvider implements MenuProvider {
+        @Override
+        public void onCreateMenu(@NonNull Menu menu, @NonNull MenuInflater menuInflater) {
+            menuInflater.inflate(R.menu.dashboard_menu, menu);
+            SubMenu filterMenu = menu.findItem(R.id.filter_menu).getSubMenu();
+            for (RecipeFacet facet : RecipeFacet.values()) {
+                filterMenu.add(Menu.NONE, Menu.FIRST + facet.ordinal(), Menu.NONE, facet.getLabel())
+                        .setCheckable(true);
+            }
+            menu.findItem(R.id.preload_thumbnails).setVisible(FlingFrameMetrics.isDebuggable(requireContext()));
+        }
+
+        @Override
+        public void onPrepareMenu(@NonNull Menu menu) {
+            SortOrder sortOrder = viewModel.getSortOrder().getValue();
+            MenuItem sortItem = menu.findItem(sortMenuId(sortOrder != null ? sortOrder : SortOrder.CATALOG));
+            sortItem.setChecked(true);
+
+            Long mask = viewModel.getFacetFilter().getValue();
+            for (RecipeFacet facet : RecipeFacet.values()) {
+                menu.findItem(Menu.FIRST + facet.ordinal())
+                        .setChecked(mask != null && (mask & facet.bit()) != 0);
+            }
+            menu.findItem(R.id.preload_thumbnails).setChecked(isThumbnailPreloadEnabled(requireContext()));
+        }
+
+        @Override
+        public boolean onMenuItemSelected(@NonNull MenuItem menuItem) {
+            int id = menuItem.getItemId();
+            if (id == R.id.preload_thumbnails) {
+                setThumbnailPreload(!menuItem.isChecked());
+                return true;
+            }
+            for (SortOrder order : SortOrder.values()) {
+                if (sortMenuId(order) == id) {
+                    viewModel.setSortOrder(order);
+                    return true;
+                }
+            }
+            int facetIndex = id - Menu.FIRST;
+            if (facetIndex >= 0 && facetIndex < RecipeFacet.values().length) {
+                Long mask = viewModel.getFacetFilter().getValue();
+                long current = mask != null ? mask : 0L;
+                viewModel.setFacetFilter(current ^ RecipeFacet.values()[facetIndex].bit());
+                return true;
+            }
+            return false;
+        }
+
+        private int sortMenuId(SortOrder order) {
+            switch (order) {
+                case TITLE:
+                    return R.id.sort_title;
+                case CALORIES_ASCENDING:
+                    return R.id.sort_calories_ascending;
+                case CALORIES_DESCENDING:
+                    return R.id.sort_calories_descending;
+                case INGREDIENT_COUNT:
+                    return R.id.sort_ingredient_count;
+                case STEP_COUNT:
+                    return R.id.sort_step_count;
+                case MOST_POPULAR:
+                    return R.id.sort_most_popular;
+                default:
+                    return R.id.sort_catalog;
+            }
+        }
+    }
+
     /**
      * Handles recipe click events from the RecyclerView.
      * Demonstrates navigation with arguments using Navigation component.
      */
     @Override
-    public void onRecipeClick(Recipe recipe) {
+    public void onRecipeClick(RecipeSummary recipe) {
         Bundle args = new Bundle();
         args.putString("RECIPE_ID", recipe.getId());
         Navigation.findNavController(requireView())
@@ -93,5 +239,8 @@ public class DashboardFragment extends Fragment implements RecipeAdapter.OnRecip
     public void onDestroyView() {
         super.onDestroyView();
         binding = null;
+        adapter = null;
+        thumbnailPreloader = null;
+        flingMetrics = null;
     }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 /**
  * Displays user's favorite recipes in a RecyclerView.
- * Demonstrates handling of user-specific data and empty states.
+ * Demonstrates handling of user-specific data, empty states and loading pages on scroll.
  */
 package myrecipes.app.views;
 
@@ -14,15 +14,21 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import myrecipes.app.R;
 import myrecipes.app.adapters.RecipeAdapter;
 import myrecipes.app.databinding.FragmentFavouriteBinding;
-import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
 import myrecipes.app.viewmodels.FavouriteViewModel;
+import myrecipes.app.viewmodels.RecipesViewModelFactory;
 
 public class FavouritesFragment extends Fragment implements RecipeAdapter.OnRecipeClickListener {
+    // The next page is requested when the last visible row is this close to the end
+    private static final int LOAD_AHEAD_ROWS = 5;
+
     private FavouriteViewModel viewModel;
     private FragmentFavouriteBinding binding;
+    private RecipeAdapter adapter;
 
     /**
      * Inflates the fragment layout using View Binding.
@@ -44,27 +50,56 @@ public class FavouritesFragment extends Fragment implements RecipeAdapter.OnReci
         super.onViewCreated(view, savedInstanceState);
 
         // Initialize ViewModel
-        viewModel = new ViewModelProvider(this).get(FavouriteViewModel.class);
+        viewModel = new ViewModelProvider(this, RecipesViewModelFactory.getInstance()).get(FavouriteViewModel.class);
         binding.setViewModel(viewModel);
         binding.setLifecycleOwner(getViewLifecycleOwner());
 
         // Setup RecyclerView with LinearLayoutManager
-        binding.recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        binding.recyclerView.setLayoutManager(layoutManager);
+        adapter = new RecipeAdapter(this, this);
+        binding.recyclerView.setAdapter(adapter);
+        if (DashboardFragment.isThumbnailPreloadEnabled(requireContext())) {
+            binding.recyclerView.addOnScrollListener(
+                    adapter.createPreloader(DashboardFragment.THUMBNAIL_PRELOAD_ROWS));
+        }
 
-        // Observe favorite recipes data
-        viewModel.getRecipeLiveData().observe(getViewLifecycleOwner(), recipes -> {
-            if (binding.recyclerView.getAdapter() == null) {
-                // Create new adapter if none exists
-                RecipeAdapter adapter = new RecipeAdapter(recipes, this);
-                binding.recyclerView.setAdapter(adapter);
-            } else {
-                // Update existing adapter with new data
-                ((RecipeAdapter) binding.recyclerView.getAdapter()).updateRecipes(recipes);
+        // Load the next page before the user reaches the end of the loaded ones
+        binding.recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition()
+                        >= layoutManager.getItemCount() - LOAD_AHEAD_ROWS) {
+                    viewModel.loadNextPage();
+                }
             }
+        });
+
+        // Observe favorite recipes data; the adapter diffs updates in the background
+        viewModel.getRecipeLiveData().observe(getViewLifecycleOwner(), recipes -> {
+            // A short first page doesn't fill the screen, so no scroll would ask for more
+            adapter.submitList(recipes, () -> {
+                if (binding != null && layoutManager.findLastVisibleItemPosition()
+                        >= layoutManager.getItemCount() - LOAD_AHEAD_ROWS) {
+                    viewModel.loadNextPage();
+                }
+            });
 
             // Handle empty state visibility
             binding.emptyStateText.setVisibility(recipes.isEmpty() ? View.VISIBLE : View.GONE);
         });
+        viewModel.getIsLoading().observe(getViewLifecycleOwner(), loading ->
+                binding.loadingIndicator.setVisibility(
+                        loading && adapter.getItemCount() == 0 ? View.VISIBLE : View.GONE));
+    }
+
+    /**
+     * Reloads the list when favorites changed while another screen was showing.
+     */
+    @Override
+    public void onStart() {
+        super.onStart();
+        viewModel.refreshIfChanged();
     }
 
     /**
@@ -72,7 +107,7 @@ public class FavouritesFragment extends Fragment implements RecipeAdapter.OnReci
      * Shows navigation with arguments using Navigation component.
      */
     @Override
-    public void onRecipeClick(Recipe recipe) {
+    public void onRecipeClick(RecipeSummary recipe) {
         Bundle args = new Bundle();
         args.putString("RECIPE_ID", recipe.getId());
         Navigation.findNavController(requireView())
@@ -87,5 +122,6 @@ public class FavouritesFragment extends Fragment implements RecipeAdapter.OnReci
     public void onDestroyView() {
         super.onDestroyView();
         binding = null;
+        adapter = null;
     }
 }
\ No newline at end of file
@@ -13,6 +13,7 @@ import myrecipes.app.databinding.ActivityLoginBinding;
 import myrecipes.app.utils.ValidationResult;
 import myrecipes.app.utils.ValidationUtils;
 import myrecipes.app.viewmodels.LoginViewModel;
+import myrecipes.app.viewmodels.RecipesViewModelFactory;
 
 public class LoginActivity extends AppCompatActivity {
     private LoginViewModel viewModel;
@@ -29,7 +30,7 @@ public class LoginActivity extends AppCompatActivity {
         setContentView(binding.getRoot());
 
         // Initialize ViewModel using ViewModelProvider
-        viewModel = new ViewModelProvider(this).get(LoginViewModel.class);
+        viewModel = new ViewModelProvider(this, RecipesViewModelFactory.getInstance()).get(LoginViewModel.class);
         setupClickListeners();
         observeViewModel();
     }
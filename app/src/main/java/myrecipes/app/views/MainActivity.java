@@ -12,6 +12,7 @@ package myrecipes.app.views;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 import android.view.MenuItem;
 import android.view.View;
@@ -28,6 +29,7 @@ import com.google.firebase.auth.FirebaseAuth;
 import myrecipes.app.R;
 import myrecipes.app.databinding.ActivityMainBinding;
 import myrecipes.app.viewmodels.MainViewModel;
+import myrecipes.app.workers.FavouriteImageWarmupWorker;
 
 public class MainActivity extends AppCompatActivity {
     // View binding instance for type-safe view access
@@ -76,6 +78,11 @@ public class MainActivity extends AppCompatActivity {
 
         // Setup observers for data changes
         observeViewModel();
+
+        // Favourites may have changed on another device; refresh their offline images
+        if (savedInstanceState == null) {
+            FavouriteImageWarmupWorker.enqueue(this);
+        }
     }
 
     /**
@@ -93,13 +100,18 @@ public class MainActivity extends AppCompatActivity {
                 R.id.dashboardFragment,
                 R.id.favouritesFragment,
                 R.id.randomFragment,
-                R.id.profileFragment
+                R.id.profileFragment,
+                R.id.metricsFragment
         ).setOpenableLayout(binding.drawerLayout).build();
 
         // Connect NavigationUI with toolbar and navigation drawer
         NavigationUI.setupActionBarWithNavController(this, navController, appBarConfiguration);
         NavigationUI.setupWithNavController(binding.navigationView, navController);
 
+        // The metrics screen is a debugging aid, left out of release builds' drawer
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        binding.navigationView.getMenu().findItem(R.id.metricsFragment).setVisible(debuggable);
+
         // Add destination change listener to update toolbar title
         navController.addOnDestinationChangedListener((controller, destination, arguments) -> {
             String title = "";
@@ -114,6 +126,8 @@ public class MainActivity extends AppCompatActivity {
                 title = "Descubre";
             } else if (id == R.id.profileFragment) {
                 title = "Perfil";
+            } else if (id == R.id.metricsFragment) {
+                title = "Métricas";
             } else if (id == R.id.detailFragment) {
                 title = "Detalles de Receta";
             }
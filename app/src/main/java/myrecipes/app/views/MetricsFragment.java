@@ -0,0 +1,148 @@
+/**
+ * Debug screen with the repository metrics and the image cache counters.
+ * Shows, per repository operation, the call count, latency and payload percentiles,
+ * and how many calls each source served and how they ended.
+ * The same values can be exported as JSON for offline analysis: the file is written to the
+ * app's external files directory and offered to the share sheet.
+ * Only reachable from the drawer in debuggable builds.
+ */
+package myrecipes.app.views;
+
+import android.content.Intent;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Toast;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import myrecipes.app.databinding.FragmentMetricsBinding;
+import myrecipes.app.parsers.JsonWriter;
+import myrecipes.app.repositories.RepositoryMetrics;
+import myrecipes.app.utils.ImageCacheStats;
+
+public class MetricsFragment extends Fragment {
+    private static final String EXPORT_FILE = "repository_metrics.json";
+
+    private FragmentMetricsBinding binding;
+
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        binding = FragmentMetricsBinding.inflate(inflater, container, false);
+        return binding.getRoot();
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        binding.refreshButton.setOnClickListener(v -> showMetrics());
+        binding.exportButton.setOnClickListener(v -> exportMetrics());
+        binding.resetButton.setOnClickListener(v -> {
+            RepositoryMetrics.getInstance().reset();
+            showMetrics();
+        });
+    }
+
+    /**
+     * Refreshed on every visit, since the other screens record while this one is hidden.
+     */
+    @Override
+    public void onResume() {
+        super.onResume();
+        showMetrics();
+    }
+
+    private void showMetrics() {
+        Map<String, Object> repositories = RepositoryMetrics.getInstance().snapshot();
+        binding.repositoryMetricsText.setText(formatOperations(repositories));
+        StringBuilder imageCache = new StringBuilder();
+        for (Map.Entry<String, Object> value : ImageCacheStats.getInstance().snapshot().entrySet()) {
+            imageCache.append(value.getKey()).append(": ").append(value.getValue()).append('\n');
+        }
+        binding.imageCacheText.setText(imageCache.toString().trim());
+    }
+
+    /**
+     * One block per operation, latencies in milliseconds and payloads in kilobytes.
+     */
+    @SuppressWarnings("unchecked")
+    private static String formatOperations(Map<String, Object> repositories) {
+        Map<String, Object> operations = (Map<String, Object>) repositories.get("operations");
+        if (operations.isEmpty()) {
+            return "Sin llamadas registradas";
+        }
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Object> operation : operations.entrySet()) {
+            Map<String, Object> values = (Map<String, Object>) operation.getValue();
+            Map<String, Object> latency = (Map<String, Object>) values.get("latencyMicros");
+            Map<String, Object> payload = (Map<String, Object>) values.get("payloadBytes");
+            text.append(operation.getKey()).append("  n=").append(values.get("count")).append('\n')
+                    .append(String.format(Locale.ROOT, "  ms  p50 %.1f  p90 %.1f  p99 %.1f  max %.1f%n",
+                            millis(latency.get("p50")), millis(latency.get("p90")),
+                            millis(latency.get("p99")), millis(latency.get("max"))))
+                    .append(String.format(Locale.ROOT, "  KB  media %.1f  p90 %.1f  total %.1f%n",
+                            kilobytes(payload.get("mean")), kilobytes(payload.get("p90")),
+                            kilobytes(payload.get("total"))))
+                    .append("  origen ").append(values.get("sources")).append('\n')
+                    .append("  resultado ").append(values.get("outcomes")).append("\n\n");
+        }
+        return text.toString().trim();
+    }
+
+    private static double millis(Object micros) {
+        return ((Number) micros).longValue() / 1000.0;
+    }
+
+    private static double kilobytes(Object bytes) {
+        return ((Number) bytes).longValue() / 1024.0;
+    }
+
+    /**
+     * Writes the repository metrics and the image cache counters to one JSON file and shares it.
+     * The file is a few kilobytes, small enough to write from the click handler.
+     */
+    private void exportMetrics() {
+        Map<String, Object> export = new LinkedHashMap<>();
+        export.put("exportedAtMillis", System.currentTimeMillis());
+        export.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+        export.put("sdk", Build.VERSION.SDK_INT);
+        export.put("repositories", RepositoryMetrics.getInstance().snapshot());
+        export.put("imageCache", ImageCacheStats.getInstance().snapshot());
+        String json = JsonWriter.write(export, true);
+
+        File file = new File(requireContext().getExternalFilesDir(null), EXPORT_FILE);
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(json);
+        } catch (IOException e) {
+            Log.e("MetricsFragment", "Error exporting metrics: " + e.getMessage());
+            Toast.makeText(requireContext(), "No se pudo exportar", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Toast.makeText(requireContext(), "Exportado a " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+
+        Intent share = new Intent(Intent.ACTION_SEND)
+                .setType("application/json")
+                .putExtra(Intent.EXTRA_SUBJECT, EXPORT_FILE)
+                .putExtra(Intent.EXTRA_TEXT, json);
+        startActivity(Intent.createChooser(share, "Exportar métricas"));
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        binding = null;
+    }
+}
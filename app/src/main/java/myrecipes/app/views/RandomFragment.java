@@ -5,6 +5,8 @@
  */
 package myrecipes.app.views;
 
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -15,15 +17,20 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import com.bumptech.glide.Glide;
-import java.util.List;
+import java.io.File;
 import java.util.Random;
 
 import myrecipes.app.R;
 import myrecipes.app.databinding.FragmentDetailBinding;
 import myrecipes.app.databinding.FragmentRandomBinding;
 import myrecipes.app.models.Recipe;
+import myrecipes.app.utils.BlurHashDecoder;
+import myrecipes.app.utils.FavouriteImageCache;
+import myrecipes.app.utils.ImageVariants;
 import myrecipes.app.viewmodels.DetailViewModel;
 import myrecipes.app.viewmodels.RandomViewModel;
+import myrecipes.app.viewmodels.RecipesViewModelFactory;
+import myrecipes.app.workers.FavouriteImageWarmupWorker;
 
 public class RandomFragment extends Fragment {
     private RandomViewModel viewModel;
@@ -62,7 +69,7 @@ public class RandomFragment extends Fragment {
     }
 
     private void setupViewModel() {
-        viewModel = new ViewModelProvider(this).get(RandomViewModel.class);
+        viewModel = new ViewModelProvider(this, RecipesViewModelFactory.getInstance()).get(RandomViewModel.class);
         binding.setViewModel(viewModel);
         binding.setLifecycleOwner(getViewLifecycleOwner());
 
@@ -82,6 +89,8 @@ public class RandomFragment extends Fragment {
             Recipe currentRecipe = viewModel.getRecipe().getValue();
             if (currentRecipe != null) {
                 viewModel.toggleFavourite(currentRecipe);
+                // Download or drop the offline copy of the image
+                FavouriteImageWarmupWorker.enqueue(requireContext());
             }
         });
 
@@ -92,16 +101,25 @@ public class RandomFragment extends Fragment {
         });
     }
     private void displayRecipeDetails(Recipe recipe) {
-        // Load recipe image using Glide
+        // Show the precomputed placeholder right away, then load the real image with Glide,
+        // picking the WebP variant sized for the view
+        Bitmap placeholder = BlurHashDecoder.decode(
+                recipe.getImageBlurHash(), recipe.getImageAspectRatio());
+        // Images of favourites are kept on disk for offline use
+        File offlineImage = FavouriteImageCache.getInstance(requireContext())
+                .get(recipe.getId(), recipe.getImageUrl());
         Glide.with(requireContext())
-                .load(recipe.getImageUrl())
+                .load(offlineImage != null ? offlineImage : ImageVariants.getInstance(requireContext())
+                        .urlFor(recipe.getImageUrl(), binding.recipeImageView))
+                .placeholder(placeholder != null ? new BitmapDrawable(getResources(), placeholder) : null)
                 .into(binding.recipeImageView);
 
         // Display ingredients dynamically
         binding.ingredientsContainer.removeAllViews();
-        for (List<Object> ingredient : recipe.getIngredients()) {
+        for (int i = 0; i < recipe.getIngredientCount(); i++) {
             TextView ingredientTextView = new TextView(requireContext());
-            String ingredientText = "• " + ingredient.get(0) + " (" + ingredient.get(2) + ")";
+            String ingredientText = "• " + recipe.getIngredientName(i)
+                    + " (" + recipe.getIngredientQuantity(i) + ")";
             ingredientTextView.setText(ingredientText);
             ingredientTextView.setTextSize(18);
             ingredientTextView.setTextAppearance(R.style.CustomEditText);
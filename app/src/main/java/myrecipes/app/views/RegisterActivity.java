@@ -13,6 +13,7 @@ import myrecipes.app.databinding.ActivityRegisterBinding;
 import myrecipes.app.utils.ValidationResult;
 import myrecipes.app.utils.ValidationUtils;
 import myrecipes.app.viewmodels.RegisterViewModel;
+import myrecipes.app.viewmodels.RecipesViewModelFactory;
 
 public class RegisterActivity extends AppCompatActivity {
     private RegisterViewModel viewModel;
@@ -29,7 +30,7 @@ public class RegisterActivity extends AppCompatActivity {
         setContentView(binding.getRoot());
 
         // Initialize ViewModel
-        viewModel = new ViewModelProvider(this).get(RegisterViewModel.class);
+        viewModel = new ViewModelProvider(this, RecipesViewModelFactory.getInstance()).get(RegisterViewModel.class);
 
         // Setup observers and click listeners
         observeViewModel();
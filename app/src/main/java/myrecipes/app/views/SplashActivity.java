@@ -1,10 +1,10 @@
 /**
  * This is the entry point of the application, showing a splash screen with animation
- * while performing initial authentication checks.
+ * while the app gets ready.
  * Key responsibilities:
  * 1. Display welcome animation
- * 2. Check authentication state
- * 3. Route to appropriate screen (Login or Main)
+ * 2. Restore the authentication state, load the catalog and prefetch the first page in parallel
+ * 3. Route to appropriate screen (Login or Main) as soon as everything is ready
  */
 package myrecipes.app.views;
 
@@ -12,21 +12,40 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
 import android.widget.ImageView;
 import androidx.appcompat.app.AppCompatActivity;
 import com.bumptech.glide.Glide;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import myrecipes.app.R;
+import myrecipes.app.repositories.CatalogPrefetcher;
+import myrecipes.app.startup.AppComponents;
+import myrecipes.app.startup.StartupOrchestrator;
+import myrecipes.app.utils.StartupTiming;
 
 public class SplashActivity extends AppCompatActivity {
-    // Duration for showing the splash animation (5 seconds)
-    private static final int SPLASH_DURATION = 5000;
+    // Shortest time the splash stays visible, so it doesn't just flash
+    private static final long MIN_SPLASH_DURATION = 800;
+    // Navigate after this time even if the startup work isn't finished
+    private static final long MAX_SPLASH_DURATION = 3000;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable timeout = () -> navigate(true);
+    private FirebaseAuth auth;
+    private FirebaseAuth.AuthStateListener authStateListener;
+    // Time the splash was created, and when each startup task finished (-1 while running)
+    private long splashStart;
+    private long authReadyAt = -1;
+    private long catalogReadyAt = -1;
+    private boolean navigated;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splash);
+        splashStart = SystemClock.uptimeMillis();
 
         // Load and display the animated GIF using Glide
         // Glide handles efficient loading and caching of the animation
@@ -36,12 +55,80 @@ public class SplashActivity extends AppCompatActivity {
                 .load(R.raw.splash_gif)       // Load from raw resources
                 .into(splashGif);             // Target ImageView
 
-        // Schedule authentication check after animation
-        // Using Handler ensures we stay on the main thread
-        new Handler(Looper.getMainLooper()).postDelayed(
-                this::checkAuthAndNavigate,  // Method reference to auth check
-                SPLASH_DURATION              // Delay duration
-        );
+        // Catalog load: the disk cache answers first when a previous session left one.
+        // The database component enables that cache, so the load waits for it.
+        // The prefetcher reports back once the first rows' thumbnails are loaded too
+        StartupOrchestrator startup = StartupOrchestrator.getInstance();
+        startup.whenReady(AppComponents.DATABASE, () -> {
+            if (isDestroyed()) {
+                return;
+            }
+            if (authReadyAt >= 0 && auth.getCurrentUser() == null) {
+                // Already known to be signed out, nothing to prefetch
+                catalogReadyAt = SystemClock.uptimeMillis();
+                onTaskFinished();
+                return;
+            }
+            CatalogPrefetcher.getInstance().start(this, () -> {
+                catalogReadyAt = SystemClock.uptimeMillis();
+                onTaskFinished();
+            });
+        });
+
+        // Auth restore: the first callback arrives once the saved session was read
+        authStateListener = firebaseAuth -> {
+            if (authReadyAt >= 0) {
+                return;
+            }
+            authReadyAt = SystemClock.uptimeMillis();
+            if (firebaseAuth.getCurrentUser() == null) {
+                // Nothing to prefetch for a signed out user; the login screen is next
+                CatalogPrefetcher.getInstance().cancel();
+            }
+            onTaskFinished();
+        };
+        startup.whenReady(AppComponents.AUTH, () -> {
+            if (isDestroyed()) {
+                return;
+            }
+            auth = FirebaseAuth.getInstance();
+            auth.addAuthStateListener(authStateListener);
+        });
+
+        handler.postDelayed(timeout, MAX_SPLASH_DURATION);
+    }
+
+    /**
+     * Navigates once every startup task finished, keeping the splash up for the minimum duration.
+     */
+    private void onTaskFinished() {
+        if (navigated || authReadyAt < 0 || catalogReadyAt < 0) {
+            return;
+        }
+        long remaining = MIN_SPLASH_DURATION - (SystemClock.uptimeMillis() - splashStart);
+        handler.removeCallbacks(timeout);
+        handler.postDelayed(() -> navigate(false), Math.max(0, remaining));
+    }
+
+    /**
+     * Logs how long startup took and moves on to the next screen.
+     *
+     * @param timedOut true when the hard timeout fired before the tasks finished
+     */
+    private void navigate(boolean timedOut) {
+        if (navigated) {
+            return;
+        }
+        navigated = true;
+        Log.d("SplashActivity", "Splash ready after " + (SystemClock.uptimeMillis() - splashStart)
+                + " ms (auth " + elapsed(authReadyAt) + ", catalog " + elapsed(catalogReadyAt)
+                + (timedOut ? ", timed out" : "") + ")");
+        StartupTiming.mark("Splash finished");
+        checkAuthAndNavigate();
+    }
+
+    private String elapsed(long readyAt) {
+        return readyAt >= 0 ? (readyAt - splashStart) + " ms" : "pending";
     }
 
     /**
@@ -68,4 +155,16 @@ public class SplashActivity extends AppCompatActivity {
         startActivity(intent);
         finish();
     }
-}
\ No newline at end of file
+
+    /**
+     * Stops listening and cancels pending navigation when the splash goes away.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacksAndMessages(null);
+        if (auth != null) {
+            auth.removeAuthStateListener(authStateListener);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Background job that keeps the local catalog up to date while the app isn't used,
+ * so a cold start after days away finds the current catalog and its sort permutations on disk.
+ * Demonstrates periodic WorkManager jobs with constraints and output data.
+ * Runs only on an unmetered network, and only while charging or while the device is idle.
+ * WorkManager constraints must all hold, so "charging or idle" is two periodic jobs
+ * with the same worker; when both run close together the second finds the catalog current.
+ */
+package myrecipes.app.workers;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.google.firebase.auth.FirebaseAuth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import myrecipes.app.datasources.DataSources;
+import myrecipes.app.models.CatalogChangeSet;
+import myrecipes.app.models.CatalogIndex;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.repositories.CatalogIndexCache;
+import myrecipes.app.repositories.CatalogPrefetcher;
+import myrecipes.app.repositories.CatalogStore;
+import myrecipes.app.repositories.CatalogSync;
+
+public class CatalogSyncWorker extends Worker {
+    private static final String TAG = "CatalogSyncWorker";
+    private static final String WORK_CHARGING = "catalog_sync_charging";
+    private static final String WORK_IDLE = "catalog_sync_idle";
+    private static final long REPEAT_HOURS = 12;
+    private static final long SYNC_TIMEOUT_SECONDS = 120;
+
+    // Output: what the run did
+    public static final String KEY_DURATION_MS = "duration_ms";
+    public static final String KEY_BYTES = "bytes";
+    public static final String KEY_ADDED = "added";
+    public static final String KEY_CHANGED = "changed";
+    public static final String KEY_REMOVED = "removed";
+    public static final String KEY_FULL_DOWNLOAD = "full_download";
+    public static final String KEY_INDEX_MS = "index_ms";
+
+    public CatalogSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules both periodic jobs. Already scheduled jobs are kept, so this is cheap to repeat.
+     */
+    public static void schedule(Context context) {
+        WorkManager workManager = WorkManager.getInstance(context);
+        workManager.enqueueUniquePeriodicWork(WORK_CHARGING, ExistingPeriodicWorkPolicy.KEEP,
+                request(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.UNMETERED)
+                        .setRequiresCharging(true)
+                        .build()));
+        workManager.enqueueUniquePeriodicWork(WORK_IDLE, ExistingPeriodicWorkPolicy.KEEP,
+                request(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.UNMETERED)
+                        .setRequiresDeviceIdle(true)
+                        .build()));
+    }
+
+    private static PeriodicWorkRequest request(Constraints constraints) {
+        return new PeriodicWorkRequest.Builder(CatalogSyncWorker.class, REPEAT_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .build();
+    }
+
+    /**
+     * Brings the catalog store to the published version with the dashboard's {@link CatalogSync},
+     * then prepares the sort permutations.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        long start = SystemClock.elapsedRealtime();
+        if (FirebaseAuth.getInstance().getCurrentUser() == null) {
+            // The catalog is only readable when signed in
+            return Result.success();
+        }
+        // The process may have been started for this job alone, before the startup components ran
+        CatalogPrefetcher.enableDiskCache();
+        DataSources sources = DataSources.get();
+        CatalogStore store = sources.getCatalog();
+
+        CatalogSync.Result sync;
+        try {
+            // Without catalog_meta there is no version to store the catalog under, so nothing is downloaded
+            sync = new CatalogSync(sources.getRecipes(), store)
+                    .syncBlocking(false, SYNC_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Log.e(TAG, "Error syncing catalog: " + e.getMessage());
+            return Result.retry();
+        }
+        if (!sync.isStored()) {
+            return Result.success();
+        }
+        // The process may be stopped once the job ends, before a delayed save would run
+        store.flush();
+        CatalogChangeSet changes = sync.getChanges();
+
+        // Sorting happens here, so the dashboard only restores the permutations on its next start
+        long indexStart = SystemClock.elapsedRealtime();
+        List<RecipeSummary> summaries = store.getSummaries();
+        CatalogIndexCache indexCache = sources.getIndexCache();
+        if (!indexCache.isCurrent(summaries)) {
+            indexCache.save(summaries, CatalogIndex.build(0, summaries));
+        }
+        long indexDuration = SystemClock.elapsedRealtime() - indexStart;
+
+        long duration = SystemClock.elapsedRealtime() - start;
+        Log.d(TAG, "Catalog sync: " + changes.getAdded().size() + " added, " + changes.getChanged().size()
+                + " changed, " + changes.getRemoved().size() + " removed" + (sync.isFullDownload() ? " (full download)" : "")
+                + ", ~" + sync.getBytes() + " bytes, " + duration + " ms (index " + indexDuration + " ms)");
+        return Result.success(new Data.Builder()
+                .putLong(KEY_DURATION_MS, duration)
+                .putLong(KEY_BYTES, sync.getBytes())
+                .putInt(KEY_ADDED, changes.getAdded().size())
+                .putInt(KEY_CHANGED, changes.getChanged().size())
+                .putInt(KEY_REMOVED, changes.getRemoved().size())
+                .putBoolean(KEY_FULL_DOWNLOAD, sync.isFullDownload())
+                .putLong(KEY_INDEX_MS, indexDuration)
+                .build());
+    }
+}
@@ -0,0 +1,267 @@
+/**
+ * Background job that downloads the detail images of all favourite recipes
+ * so they can be shown without a connection.
+ * Demonstrates WorkManager with unique work, constraints and output data.
+ */
+package myrecipes.app.workers;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.HttpException;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.FutureTarget;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import myrecipes.app.datasources.DataCallback;
+import myrecipes.app.datasources.DataSources;
+import myrecipes.app.models.FavouritePage;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.repositories.FavouriteRepository;
+import myrecipes.app.utils.FavouriteImageCache;
+import myrecipes.app.utils.ImageVariants;
+
+public class FavouriteImageWarmupWorker extends Worker {
+    private static final String TAG = "FavouriteImageWarmupWorker";
+    private static final String WORK_NAME = "favourite_image_warmup";
+    // Toggling several favourites in a row results in a single run
+    private static final long START_DELAY_SECONDS = 10;
+    private static final long READ_TIMEOUT_SECONDS = 30;
+    // Favourites resolved per read; the catalog store answers most of them without one
+    private static final int PAGE_SIZE = 100;
+    private static final long DOWNLOAD_TIMEOUT_SECONDS = 60;
+    // Runs retried after transient download errors before giving up until the next change
+    private static final int MAX_RETRIES = 3;
+
+    // Input: disk budget for the favourite images
+    public static final String KEY_BUDGET_BYTES = "budget_bytes";
+    public static final long DEFAULT_BUDGET_BYTES = 50L * 1024 * 1024;
+
+    // Output: what the run did
+    public static final String KEY_BYTES_USED = "bytes_used";
+    public static final String KEY_DURATION_MS = "duration_ms";
+    public static final String KEY_DOWNLOADED = "downloaded";
+    public static final String KEY_EVICTED = "evicted";
+    public static final String KEY_FAILED = "failed";
+
+    public FavouriteImageWarmupWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules a warm-up with the default budget.
+     */
+    public static void enqueue(Context context) {
+        enqueue(context, DEFAULT_BUDGET_BYTES);
+    }
+
+    /**
+     * Schedules a warm-up after the favourites changed.
+     * A pending run is replaced, so its delay restarts and bursts of changes are coalesced.
+     *
+     * @param context Any context
+     * @param budgetBytes Maximum disk space for favourite images
+     */
+    public static void enqueue(Context context, long budgetBytes) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(FavouriteImageWarmupWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .setRequiresStorageNotLow(true)
+                        .build())
+                .setInitialDelay(START_DELAY_SECONDS, TimeUnit.SECONDS)
+                .setInputData(new Data.Builder().putLong(KEY_BUDGET_BYTES, budgetBytes).build())
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.REPLACE, request);
+    }
+
+    /**
+     * Reads the favourite recipes, drops images that are no longer needed, and downloads
+     * the missing ones while they fit the budget.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        long start = SystemClock.elapsedRealtime();
+        DataSources sources = DataSources.get();
+        if (sources.getUsers().getCurrentUserId() == null) {
+            return Result.success();
+        }
+        long budget = getInputData().getLong(KEY_BUDGET_BYTES, DEFAULT_BUDGET_BYTES);
+        Context context = getApplicationContext();
+        FavouriteImageCache cache = FavouriteImageCache.getInstance(context);
+
+        // Recipe ID -> original image URL of every favourite
+        Map<String, String> imageUrls;
+        try {
+            imageUrls = loadFavouriteImageUrls(new FavouriteRepository(sources.getFavourites(),
+                    sources.getRecipes(), sources.getUsers(), sources.getCatalog()));
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading favourites: " + e.getMessage());
+            return Result.retry();
+        }
+
+        Set<String> keep = new HashSet<>();
+        for (Map.Entry<String, String> entry : imageUrls.entrySet()) {
+            keep.add(FavouriteImageCache.fileName(entry.getKey(), entry.getValue()));
+        }
+        int evicted = cache.removeOutdated(imageUrls.keySet(), keep);
+        evicted += cache.trimToBudget(budget, keep);
+
+        // The detail screen shows the image at screen width
+        int widthPx = context.getResources().getDisplayMetrics().widthPixels;
+        ImageVariants variants = ImageVariants.getInstance(context);
+        int downloaded = 0;
+        int failed = 0;
+        int transientFailures = 0;
+        for (Map.Entry<String, String> entry : imageUrls.entrySet()) {
+            if (isStopped()) {
+                break;
+            }
+            String fileName = FavouriteImageCache.fileName(entry.getKey(), entry.getValue());
+            if (cache.contains(fileName)) {
+                continue;
+            }
+            FutureTarget<File> target = Glide.with(context)
+                    .downloadOnly()
+                    .load(variants.urlFor(entry.getValue(), widthPx))
+                    .submit();
+            try {
+                cache.put(fileName, target.get(DOWNLOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                downloaded++;
+                // Make room by dropping stale images, least recently viewed first
+                evicted += cache.trimToBudget(budget, keep);
+                if (cache.sizeBytes() >= budget) {
+                    // The favourites alone fill the budget; downloading more would only
+                    // evict other favourites and download them again on the next run
+                    break;
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error downloading " + entry.getKey() + ": " + e.getMessage());
+                failed++;
+                if (isTransient(e)) {
+                    transientFailures++;
+                }
+            } finally {
+                Glide.with(context).clear(target);
+            }
+        }
+
+        long bytesUsed = cache.sizeBytes();
+        long duration = SystemClock.elapsedRealtime() - start;
+        Log.d(TAG, "Favourite images: " + imageUrls.size() + " favourites, " + downloaded
+                + " downloaded, " + evicted + " evicted, " + failed + " failed, "
+                + bytesUsed + "/" + budget + " bytes, " + duration + " ms");
+        Data output = new Data.Builder()
+                .putLong(KEY_BYTES_USED, bytesUsed)
+                .putLong(KEY_DURATION_MS, duration)
+                .putInt(KEY_DOWNLOADED, downloaded)
+                .putInt(KEY_EVICTED, evicted)
+                .putInt(KEY_FAILED, failed)
+                .build();
+        // Only errors that may go away are worth another run: a broken URL (404, an image
+        // that doesn't decode) would fail the same way every time
+        if (transientFailures > 0 && !isStopped() && getRunAttemptCount() < MAX_RETRIES) {
+            return Result.retry();
+        }
+        return Result.success(output);
+    }
+
+    /**
+     * Whether a download failed in a way a later run may not: a timeout, a connection
+     * error, or an HTTP status the server may answer differently later (408, 429, 5xx).
+     */
+    private static boolean isTransient(Exception e) {
+        if (e instanceof TimeoutException) {
+            return true;
+        }
+        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof GlideException) {
+            // Glide reports every model loader it tried; one transient cause is enough
+            for (Throwable rootCause : ((GlideException) cause).getRootCauses()) {
+                if (isTransientCause(rootCause)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return isTransientCause(cause);
+    }
+
+    private static boolean isTransientCause(Throwable cause) {
+        if (cause instanceof HttpException) {
+            int status = ((HttpException) cause).getStatusCode();
+            return status == HttpException.UNKNOWN || status == 408 || status == 429 || status >= 500;
+        }
+        return cause instanceof IOException;
+    }
+
+    /**
+     * Pages through the favourites of the signed in user the way the favourites screen does:
+     * keys from the favourite data source with the unconfirmed toggles applied, recipes from
+     * the summaries of the local catalog, and only the recipes it doesn't have read from the
+     * recipe data source. A summary's thumbnail URL is the recipe's imageUrl.
+     * Runs on the worker thread, so each page is awaited directly.
+     */
+    private static Map<String, String> loadFavouriteImageUrls(FavouriteRepository repository) throws Exception {
+        Map<String, String> imageUrls = new LinkedHashMap<>();
+        String afterKey = null;
+        FavouritePage page;
+        do {
+            page = loadPage(repository, afterKey);
+            for (RecipeSummary summary : page.getRecipes()) {
+                // Recipes without an image have nothing to download
+                if (summary.getThumbnailUrl() != null) {
+                    imageUrls.put(summary.getId(), summary.getThumbnailUrl());
+                }
+            }
+            afterKey = page.getLastKey();
+        } while (page.hasMore());
+        return imageUrls;
+    }
+
+    private static FavouritePage loadPage(FavouriteRepository repository, String afterKey) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<FavouritePage> result = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        repository.getFavouritesPage(afterKey, PAGE_SIZE, new DataCallback<FavouritePage>() {
+            @Override
+            public void onSuccess(FavouritePage page) {
+                result.set(page);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                error.set(e);
+                done.countDown();
+            }
+        });
+        if (!done.await(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new TimeoutException("Favourites page not read in " + READ_TIMEOUT_SECONDS + " s");
+        }
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return result.get();
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Background job that aggregates the sharded favourite counters into the "most popular" ranking.
+ * Demonstrates a periodic WorkManager job that skips its work when another client did it recently.
+ * The ranking is written to popularRecipes as the top recipes and their counts, a small node
+ * the app reads in one request instead of every counter. The app has no backend, so every
+ * signed-in client schedules this job. Each run first claims the interval with a transaction
+ * on popularRecipes/updatedAt, and only the client whose claim commits reads the counters, so
+ * they are read about once per interval, not once per client, even when runs overlap.
+ */
+package myrecipes.app.workers;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import myrecipes.app.repositories.CatalogPrefetcher;
+import myrecipes.app.repositories.FavouriteCounters;
+
+public class PopularityWorker extends Worker {
+    private static final String TAG = "PopularityWorker";
+    private static final String WORK_NAME = "popularity_ranking";
+    public static final String RANKING_PATH = "popularRecipes";
+    public static final int TOP_N = 50;
+    private static final long REPEAT_HOURS = 6;
+    private static final long FIREBASE_TIMEOUT_SECONDS = 60;
+
+    public PopularityWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the periodic job. An already scheduled job is kept, so this is cheap to repeat.
+     */
+    public static void schedule(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                PopularityWorker.class, REPEAT_HOURS, TimeUnit.HOURS)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Sums every recipe's shards and writes the top recipes, unless the ranking is recent.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        if (FirebaseAuth.getInstance().getCurrentUser() == null) {
+            return Result.success();
+        }
+        // The process may have been started for this job alone, before the startup components ran
+        CatalogPrefetcher.enableDiskCache();
+        try {
+            updateRanking(FirebaseDatabase.getInstance());
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Error aggregating favourite counters: " + e.getMessage());
+            return Result.retry();
+        }
+    }
+
+    /**
+     * Writes the ranking of the counters in a database, unless the one there is more recent
+     * than the repeat interval. Blocks on the Firebase tasks, so it must not run on the main
+     * thread; the counter load test calls it against the emulator.
+     *
+     * @return Whether this call claimed the interval and wrote the ranking
+     */
+    public static boolean updateRanking(FirebaseDatabase database) throws Exception {
+        DatabaseReference rankingRef = database.getReference(RANKING_PATH);
+        DatabaseReference updatedAtRef = rankingRef.child("updatedAt");
+        long lease = System.currentTimeMillis();
+        Long[] previous = new Long[1];
+        if (!runTransaction(updatedAtRef, current -> {
+            Long updatedAt = current.getValue(Long.class);
+            if (updatedAt != null && lease - updatedAt < TimeUnit.HOURS.toMillis(REPEAT_HOURS)) {
+                // Ranked recently, or another client claimed this interval first
+                return Transaction.abort();
+            }
+            previous[0] = updatedAt;
+            current.setValue(lease);
+            return Transaction.success(current);
+        })) {
+            return false;
+        }
+        try {
+            DataSnapshot counters = Tasks.await(database.getReference(FavouriteCounters.COUNTS_PATH).get(),
+                    FIREBASE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Map<String, Object> ranking = new HashMap<>();
+            ranking.put("updatedAt", ServerValue.TIMESTAMP);
+            ranking.put("top", topRecipes(counters));
+            Tasks.await(rankingRef.setValue(ranking), FIREBASE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return true;
+        } catch (Exception e) {
+            // Gives the interval back, unless someone else has claimed it since, so a retry
+            // or another client can rank instead of waiting for the lease to expire
+            Long restored = previous[0];
+            runTransaction(updatedAtRef, current -> {
+                if (!Long.valueOf(lease).equals(current.getValue(Long.class))) {
+                    return Transaction.abort();
+                }
+                current.setValue(restored);
+                return Transaction.success(current);
+            });
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a transaction and waits for it.
+     *
+     * @return Whether the transaction committed; false when it aborted
+     */
+    private static boolean runTransaction(DatabaseReference ref, TransactionUpdate update) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        boolean[] committed = new boolean[1];
+        DatabaseError[] error = new DatabaseError[1];
+        ref.runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData current) {
+                // Called again with the server value when the cached one was out of date
+                return update.apply(current);
+            }
+
+            @Override
+            public void onComplete(@Nullable DatabaseError databaseError, boolean wasCommitted,
+                                   @Nullable DataSnapshot snapshot) {
+                error[0] = databaseError;
+                committed[0] = wasCommitted;
+                done.countDown();
+            }
+        });
+        if (!done.await(FIREBASE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new TimeoutException("Transaction on " + ref.getKey() + " didn't finish in "
+                    + FIREBASE_TIMEOUT_SECONDS + " s");
+        }
+        if (error[0] != null) {
+            throw error[0].toException();
+        }
+        return committed[0];
+    }
+
+    /**
+     * One attempt of a transaction: returns the success or abort of {@link Transaction}.
+     */
+    private interface TransactionUpdate {
+        Transaction.Result apply(MutableData current);
+    }
+
+    /**
+     * Recipe ID -> count of the {@link #TOP_N} recipes with the most favourites.
+     */
+    private static Map<String, Object> topRecipes(DataSnapshot counters) {
+        List<Map.Entry<String, Long>> totals = new ArrayList<>();
+        for (DataSnapshot counter : counters.getChildren()) {
+            long total = FavouriteCounters.sum(counter);
+            if (total > 0) {
+                totals.add(new HashMap.SimpleEntry<>(counter.getKey(), total));
+            }
+        }
+        totals.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        Map<String, Object> top = new HashMap<>();
+        for (Map.Entry<String, Long> entry : totals.subList(0, Math.min(TOP_N, totals.size()))) {
+            top.put(entry.getKey(), entry.getValue());
+        }
+        return top;
+    }
+}
@@ -0,0 +1,33 @@
+package myrecipes.app;
+
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LiveData the repositories post to, holding on to the first value for the test thread.
+ * The repositories post from the catalog store thread, so the test waits for it.
+ */
+final class CapturedLiveData<T> extends MutableLiveData<T> {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final CountDownLatch posted = new CountDownLatch(1);
+    private volatile T first;
+
+    @Override
+    public void postValue(T value) {
+        if (posted.getCount() > 0) {
+            first = value;
+            posted.countDown();
+        }
+        super.postValue(value);
+    }
+
+    T await() throws InterruptedException {
+        if (!posted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new AssertionError("No value posted within " + TIMEOUT_SECONDS + " s");
+        }
+        return first;
+    }
+}
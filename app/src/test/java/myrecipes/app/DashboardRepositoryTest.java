@@ -0,0 +1,193 @@
+package myrecipes.app;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import myrecipes.app.datasources.InMemoryRecipeDataSource;
+import myrecipes.app.models.CatalogChangeSet;
+import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.repositories.CatalogStore;
+import myrecipes.app.repositories.CatalogSync;
+import myrecipes.app.repositories.DashboardRepository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DashboardRepository on the in-memory catalog and an in-memory store: how much each load
+ * reads depending on what the store already holds, and what it stores.
+ */
+public class DashboardRepositoryTest {
+    private static final int CATALOG_SIZE = 50;
+
+    @Rule
+    public InstantTaskExecutorRule liveData = new InstantTaskExecutorRule();
+
+    private InMemoryRecipeDataSource recipes;
+    private CatalogStore store;
+    private DashboardRepository repository;
+
+    @Before
+    public void setUp() {
+        recipes = new InMemoryRecipeDataSource(new Random(42));
+        recipes.putRecipes(TestRecipes.recipes(CATALOG_SIZE));
+        store = CatalogStore.inMemory();
+        repository = new DashboardRepository(recipes, store);
+    }
+
+    @Test
+    public void coldStartDownloadsAndStoresTheCatalog() throws Exception {
+        List<RecipeSummary> summaries = loadSummaries();
+
+        assertEquals(CATALOG_SIZE, summaries.size());
+        // Version, hashes and the whole catalog
+        assertEquals(3, recipes.getReadCount());
+        assertEquals(CATALOG_SIZE, store.size());
+        assertEquals(1, store.getVersion());
+    }
+
+    @Test
+    public void currentCatalogIsServedFromTheStore() throws Exception {
+        loadSummaries();
+        long readsBefore = recipes.getReadCount();
+
+        assertEquals(CATALOG_SIZE, loadSummaries().size());
+        // Only the version
+        assertEquals(1, recipes.getReadCount() - readsBefore);
+    }
+
+    @Test
+    public void changedRecipesAreFetchedOneByOne() throws Exception {
+        loadSummaries();
+        recipes.putRecipes(Arrays.asList(
+                TestRecipes.recipe(TestRecipes.id(3), "Receta 3 editada"),
+                TestRecipes.recipe(TestRecipes.id(7), "Receta 7 editada")));
+        recipes.removeRecipes(Collections.singletonList(TestRecipes.id(5)));
+        long readsBefore = recipes.getReadCount();
+
+        List<RecipeSummary> summaries = loadSummaries();
+
+        // Version, hashes and the two changed recipes
+        assertEquals(4, recipes.getReadCount() - readsBefore);
+        assertEquals(CATALOG_SIZE - 1, summaries.size());
+        assertEquals("Receta 3 editada", store.getSummary(TestRecipes.id(3)).getTitle());
+        assertEquals("Receta 7 editada", store.getSummary(TestRecipes.id(7)).getTitle());
+        assertNull(store.getSummary(TestRecipes.id(5)));
+        assertEquals(3, store.getVersion());
+    }
+
+    @Test
+    public void recipeThatDoesNotDecodeIsFetchedOnce() throws Exception {
+        loadSummaries();
+        // No title: the decoders skip it
+        recipes.putRecipes(Collections.singletonList(TestRecipes.recipe(TestRecipes.id(3), null)));
+        long readsBefore = recipes.getReadCount();
+
+        List<RecipeSummary> summaries = loadSummaries();
+
+        // Version, hashes and the changed recipe
+        assertEquals(3, recipes.getReadCount() - readsBefore);
+        assertEquals(CATALOG_SIZE - 1, summaries.size());
+        assertNull(store.getSummary(TestRecipes.id(3)));
+
+        recipes.putRecipes(Collections.singletonList(TestRecipes.recipe(TestRecipes.id(7), "Receta 7 editada")));
+        readsBefore = recipes.getReadCount();
+        loadSummaries();
+
+        // Only the recipe changed since; the skipped one kept its hash
+        assertEquals(3, recipes.getReadCount() - readsBefore);
+        assertEquals("Receta 7 editada", store.getSummary(TestRecipes.id(7)).getTitle());
+    }
+
+    @Test
+    public void backgroundSyncLeavesOnlyTheVersionCheck() throws Exception {
+        loadSummaries();
+        recipes.putRecipes(Collections.singletonList(TestRecipes.recipe(TestRecipes.id(3), "Receta 3 editada")));
+
+        CatalogSync.Result sync = new CatalogSync(recipes, store).syncBlocking(false, 10, TimeUnit.SECONDS);
+
+        assertEquals(1, sync.getChanges().getChanged().size());
+        assertEquals(1, sync.getChanges().size());
+        assertFalse(sync.isFullDownload());
+        assertTrue(sync.getBytes() > 0);
+        long readsBefore = recipes.getReadCount();
+        List<RecipeSummary> summaries = loadSummaries();
+        // The dashboard finds the store current
+        assertEquals(1, recipes.getReadCount() - readsBefore);
+        assertEquals("Receta 3 editada", summaries.get(3).getTitle());
+    }
+
+    @Test
+    public void recipeThatStopsDecodingIsSyncedAsRemoved() throws Exception {
+        loadSummaries();
+        recipes.putRecipes(Arrays.asList(
+                TestRecipes.recipe(TestRecipes.id(3), null),
+                TestRecipes.recipe(TestRecipes.id(7), "Receta 7 editada")));
+
+        CatalogChangeSet changes = new CatalogSync(recipes, store)
+                .syncBlocking(false, 10, TimeUnit.SECONDS).getChanges();
+
+        assertEquals(Collections.singletonList(TestRecipes.id(3)), changes.getRemoved());
+        assertEquals("Receta 7 editada", changes.getChanged().get(0).getTitle());
+        assertTrue(changes.getAdded().isEmpty());
+        assertNull(store.getSummary(TestRecipes.id(3)));
+    }
+
+    @Test
+    public void summariesKeepTheCatalogOrder() throws Exception {
+        List<RecipeSummary> summaries = loadSummaries();
+
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            assertEquals(TestRecipes.id(i), summaries.get(i).getId());
+        }
+    }
+
+    @Test
+    public void singleRecipeIsReadInFull() throws Exception {
+        CapturedLiveData<Recipe> recipe = new CapturedLiveData<>();
+        repository.getSingleRecipe(TestRecipes.id(10), recipe);
+
+        Recipe loaded = recipe.await();
+        assertEquals(TestRecipes.id(10), loaded.getId());
+        assertEquals(1, loaded.getIngredientCount());
+    }
+
+    @Test
+    public void randomRecipeComesFromTheCatalog() throws Exception {
+        CapturedLiveData<Recipe> recipe = new CapturedLiveData<>();
+        repository.getRandomRecipe(recipe);
+
+        Recipe loaded = recipe.await();
+        assertNotNull(loaded);
+        assertTrue(loaded.getId().startsWith("recipe_"));
+    }
+
+    @Test
+    public void popularityIsPostedAsRead() throws Exception {
+        recipes.setPopularity(Collections.singletonMap(TestRecipes.id(1), 12));
+        CapturedLiveData<Map<String, Integer>> popularity = new CapturedLiveData<>();
+        repository.getPopularRecipes(popularity);
+
+        assertEquals(Collections.singletonMap(TestRecipes.id(1), 12), popularity.await());
+    }
+
+    private List<RecipeSummary> loadSummaries() throws Exception {
+        CapturedLiveData<List<RecipeSummary>> summaries = new CapturedLiveData<>();
+        repository.getRecipeSummaries(summaries);
+        return summaries.await();
+    }
+}
@@ -0,0 +1,138 @@
+package myrecipes.app;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Observer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import myrecipes.app.datasources.DataSources;
+import myrecipes.app.datasources.InMemoryCatalogChangeFeed;
+import myrecipes.app.datasources.InMemoryFavouriteDataSource;
+import myrecipes.app.datasources.InMemoryRecipeDataSource;
+import myrecipes.app.datasources.InMemoryUserDataSource;
+import myrecipes.app.models.CatalogChangeSet;
+import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeFacet;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.models.SortOrder;
+import myrecipes.app.repositories.CatalogIndexCache;
+import myrecipes.app.repositories.CatalogStore;
+import myrecipes.app.viewmodels.DashboardViewModel;
+import myrecipes.app.viewmodels.RecipesViewModelFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The dashboard screen state built by RecipesViewModelFactory on in-memory data sources, an
+ * in-memory index cache and a change feed published by hand: the first load, then sorting
+ * and filtering over the cached permutations, then a live change.
+ */
+public class DashboardViewModelTest {
+    private static final int CATALOG_SIZE = 40;
+    private static final long TIMEOUT_MS = 10_000;
+
+    @Rule
+    public InstantTaskExecutorRule liveData = new InstantTaskExecutorRule();
+
+    private CatalogIndexCache indexCache;
+    private InMemoryCatalogChangeFeed changeFeed;
+
+    @Before
+    public void setUp() {
+        InMemoryRecipeDataSource recipes = new InMemoryRecipeDataSource(new Random(42));
+        List<Recipe> catalog = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            catalog.add(recipe(i, "Receta " + i, (CATALOG_SIZE - i) * 10));
+        }
+        recipes.putRecipes(catalog);
+        indexCache = CatalogIndexCache.inMemory();
+        changeFeed = new InMemoryCatalogChangeFeed();
+        DataSources.install(new DataSources(recipes, new InMemoryFavouriteDataSource(),
+                new InMemoryUserDataSource(), CatalogStore.inMemory(), indexCache, changeFeed));
+    }
+
+    @After
+    public void tearDown() {
+        DataSources.install(null);
+    }
+
+    @Test
+    public void loadSortFilterAndLiveChange() throws Exception {
+        DashboardViewModel viewModel = RecipesViewModelFactory.getInstance().create(DashboardViewModel.class);
+        ShownList shown = new ShownList();
+        viewModel.getRecipeLiveData().observeForever(shown);
+        try {
+            // Catalog order once the index is built
+            List<RecipeSummary> list = shown.await(l -> l.size() == CATALOG_SIZE);
+            assertEquals(TestRecipes.id(0), list.get(0).getId());
+            assertEquals(TestRecipes.id(CATALOG_SIZE - 1), list.get(CATALOG_SIZE - 1).getId());
+            List<RecipeSummary> loaded = list;
+
+            viewModel.setSortOrder(SortOrder.CALORIES_ASCENDING);
+            list = shown.await(l -> l.size() == CATALOG_SIZE && l.get(0).getId().equals(TestRecipes.id(CATALOG_SIZE - 1)));
+            assertEquals(TestRecipes.id(0), list.get(CATALOG_SIZE - 1).getId());
+
+            // Only the even recipes are sweet, still by calories
+            viewModel.setFacetFilter(RecipeFacet.SWEET.bit());
+            list = shown.await(l -> l.size() == CATALOG_SIZE / 2);
+            assertEquals(TestRecipes.id(CATALOG_SIZE - 2), list.get(0).getId());
+            assertEquals(TestRecipes.id(0), list.get(list.size() - 1).getId());
+
+            // The live sync makes recipe 0 the lightest
+            RecipeSummary edited = RecipeSummary.of(recipe(0, "Receta 0 editada", 1));
+            changeFeed.publish(new CatalogChangeSet(Collections.<RecipeSummary>emptyList(),
+                    Collections.singletonList(edited), Collections.<String>emptyList()));
+            list = shown.await(l -> !l.isEmpty() && l.get(0).getId().equals(TestRecipes.id(0)));
+            assertEquals("Receta 0 editada", list.get(0).getTitle());
+            assertEquals(CATALOG_SIZE / 2, list.size());
+            // Saved on the index thread after the first build, so the next start restores it
+            assertTrue(indexCache.isCurrent(loaded));
+        } finally {
+            viewModel.getRecipeLiveData().removeObserver(shown);
+        }
+    }
+
+    /**
+     * Recipe i, sweet when i is even.
+     */
+    private static Recipe recipe(int i, String title, int calories) {
+        return new Recipe(TestRecipes.id(i), title, "Descripción de " + title, i % 2 == 0 ? "Dulce" : null,
+                null, null, null, calories,
+                Collections.singletonList(Arrays.<Object>asList("Sal", 1, "pizca")),
+                Collections.singletonList("Mezclar"));
+    }
+
+    /**
+     * Latest list the dashboard showed; the index is built and patched on the ViewModel's thread.
+     */
+    private static final class ShownList implements Observer<List<RecipeSummary>> {
+        private List<RecipeSummary> latest;
+
+        @Override
+        public synchronized void onChanged(List<RecipeSummary> list) {
+            latest = list;
+            notifyAll();
+        }
+
+        synchronized List<RecipeSummary> await(Predicate<List<RecipeSummary>> condition) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (latest == null || !condition.test(latest)) {
+                long left = deadline - System.currentTimeMillis();
+                assertTrue("Expected list not shown, last one: " + latest, left > 0);
+                wait(left);
+            }
+            return latest;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package myrecipes.app;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import myrecipes.app.datasources.InMemoryFavouriteDataSource;
+import myrecipes.app.datasources.InMemoryRecipeDataSource;
+import myrecipes.app.datasources.InMemoryUserDataSource;
+import myrecipes.app.models.FavouritePage;
+import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.repositories.CatalogStore;
+import myrecipes.app.repositories.FavouriteRepository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * FavouriteRepository on in-memory data sources: paging through the favourites, where the
+ * recipes of a page come from, and the status of a toggled recipe.
+ */
+public class FavouriteRepositoryTest {
+    private static final String USER_ID = "user-1";
+    private static final int CATALOG_SIZE = 50;
+    private static final int PAGE_SIZE = 10;
+
+    @Rule
+    public InstantTaskExecutorRule liveData = new InstantTaskExecutorRule();
+
+    private InMemoryRecipeDataSource recipes;
+    private UnsyncedFavourites favourites;
+    private CatalogStore store;
+    private FavouriteRepository repository;
+    // Every other recipe is a favourite
+    private final List<String> favouriteIds = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        recipes = new InMemoryRecipeDataSource();
+        recipes.putRecipes(TestRecipes.recipes(CATALOG_SIZE));
+        favourites = new UnsyncedFavourites();
+        InMemoryUserDataSource users = new InMemoryUserDataSource();
+        users.signIn(USER_ID);
+        store = CatalogStore.inMemory();
+        repository = new FavouriteRepository(favourites, recipes, users, store);
+        for (int i = 0; i < CATALOG_SIZE; i += 2) {
+            favouriteIds.add(TestRecipes.id(i));
+            favourites.setFavourite(USER_ID, TestRecipes.id(i), true);
+        }
+    }
+
+    @Test
+    public void pageWithStoredCatalogReadsNoRecipes() throws Exception {
+        storeCatalog();
+        long readsBefore = recipes.getReadCount();
+
+        FavouritePage page = loadPage(null);
+
+        assertEquals(favouriteIds.subList(0, PAGE_SIZE), TestRecipes.ids(page.getRecipes()));
+        assertEquals(0, recipes.getReadCount() - readsBefore);
+    }
+
+    @Test
+    public void pageWithoutCatalogReadsOnlyItsRecipes() throws Exception {
+        long readsBefore = recipes.getReadCount();
+
+        FavouritePage page = loadPage(null);
+
+        assertEquals(favouriteIds.subList(0, PAGE_SIZE), TestRecipes.ids(page.getRecipes()));
+        assertEquals(PAGE_SIZE, recipes.getReadCount() - readsBefore);
+    }
+
+    @Test
+    public void pagesContinueAfterTheLastKey() throws Exception {
+        List<String> loaded = new ArrayList<>();
+        String lastKey = null;
+        FavouritePage page;
+        do {
+            page = loadPage(lastKey);
+            loaded.addAll(TestRecipes.ids(page.getRecipes()));
+            lastKey = page.getLastKey();
+        } while (page.hasMore());
+
+        assertEquals(favouriteIds, loaded);
+    }
+
+    @Test
+    public void pagesFollowUnconfirmedToggles() throws Exception {
+        // Removed within the first page, added within it, and added after it
+        favourites.toggleLocally(TestRecipes.id(2), false);
+        favourites.toggleLocally(TestRecipes.id(5), true);
+        favourites.toggleLocally(TestRecipes.id(49), true);
+        List<String> expected = new ArrayList<>(favouriteIds);
+        expected.remove(TestRecipes.id(2));
+        expected.add(2, TestRecipes.id(5));
+        expected.add(TestRecipes.id(49));
+
+        FavouritePage first = loadPage(null);
+        List<String> loaded = new ArrayList<>(TestRecipes.ids(first.getRecipes()));
+        FavouritePage page = first;
+        while (page.hasMore()) {
+            page = loadPage(page.getLastKey());
+            loaded.addAll(TestRecipes.ids(page.getRecipes()));
+        }
+
+        assertEquals(expected.subList(0, PAGE_SIZE), TestRecipes.ids(first.getRecipes()));
+        assertEquals(expected, loaded);
+    }
+
+    @Test
+    public void toggleUpdatesStatusAndRevision() {
+        String recipeId = TestRecipes.id(1);
+        LiveData<Boolean> status = repository.observeFavorite(recipeId);
+        int revision = repository.getRevision();
+        assertFalse(status.getValue());
+
+        repository.toggleFavorite(recipeId, true);
+
+        assertTrue(status.getValue());
+        assertTrue(repository.isFavorite(recipeId));
+        assertNotEquals(revision, repository.getRevision());
+    }
+
+    private void storeCatalog() throws Exception {
+        Map<String, String> hashes = new HashMap<>();
+        List<RecipeSummary> summaries = new ArrayList<>();
+        for (Recipe recipe : TestRecipes.recipes(CATALOG_SIZE)) {
+            summaries.add(RecipeSummary.of(recipe));
+            hashes.put(recipe.getId(), "1");
+        }
+        store.replaceAll(1, hashes, summaries);
+    }
+
+    /**
+     * Favourites whose local toggles haven't reached the stored keys yet, as with a write
+     * the server hasn't confirmed.
+     */
+    private static final class UnsyncedFavourites extends InMemoryFavouriteDataSource {
+        private final Map<String, Boolean> unconfirmed = new HashMap<>();
+
+        void toggleLocally(String recipeId, boolean favourite) {
+            unconfirmed.put(recipeId, favourite);
+        }
+
+        @Override
+        public synchronized boolean isFavourite(String userId, String recipeId) {
+            Boolean local = unconfirmed.get(recipeId);
+            return local != null ? local : super.isFavourite(userId, recipeId);
+        }
+
+        @Override
+        public Set<String> getUnconfirmed(String userId) {
+            return unconfirmed.keySet();
+        }
+    }
+
+    private FavouritePage loadPage(String afterKey) throws Exception {
+        CapturedLiveData<FavouritePage> page = new CapturedLiveData<>();
+        repository.getFavouritesPage(afterKey, PAGE_SIZE, page);
+        return page.await();
+    }
+}
@@ -0,0 +1,93 @@
+package myrecipes.app;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Observer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import myrecipes.app.datasources.DataSources;
+import myrecipes.app.datasources.InMemoryCatalogChangeFeed;
+import myrecipes.app.datasources.InMemoryFavouriteDataSource;
+import myrecipes.app.datasources.InMemoryRecipeDataSource;
+import myrecipes.app.datasources.InMemoryUserDataSource;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.repositories.CatalogIndexCache;
+import myrecipes.app.repositories.CatalogStore;
+import myrecipes.app.viewmodels.FavouriteViewModel;
+import myrecipes.app.viewmodels.RecipesViewModelFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The favourites screen state built by RecipesViewModelFactory on installed in-memory
+ * data sources, the way the app builds it on Firebase.
+ */
+public class FavouriteViewModelTest {
+    private static final String USER_ID = "user-1";
+
+    @Rule
+    public InstantTaskExecutorRule liveData = new InstantTaskExecutorRule();
+
+    private InMemoryFavouriteDataSource favourites;
+
+    @Before
+    public void setUp() {
+        InMemoryRecipeDataSource recipes = new InMemoryRecipeDataSource();
+        recipes.putRecipes(TestRecipes.recipes(30));
+        favourites = new InMemoryFavouriteDataSource();
+        InMemoryUserDataSource users = new InMemoryUserDataSource();
+        users.signIn(USER_ID);
+        DataSources.install(new DataSources(recipes, favourites, users, CatalogStore.inMemory(),
+                CatalogIndexCache.inMemory(), new InMemoryCatalogChangeFeed()));
+    }
+
+    @After
+    public void tearDown() {
+        DataSources.install(null);
+    }
+
+    @Test
+    public void firstPageListsTheFavourites() throws Exception {
+        favourites.setFavourite(USER_ID, TestRecipes.id(4), true);
+        favourites.setFavourite(USER_ID, TestRecipes.id(2), true);
+        FavouriteViewModel viewModel = RecipesViewModelFactory.getInstance().create(FavouriteViewModel.class);
+
+        List<RecipeSummary> shown = awaitList(viewModel);
+
+        assertEquals(2, shown.size());
+        assertEquals(TestRecipes.id(2), shown.get(0).getId());
+        assertEquals(TestRecipes.id(4), shown.get(1).getId());
+    }
+
+    @Test
+    public void noFavouritesShowsAnEmptyList() throws Exception {
+        FavouriteViewModel viewModel = RecipesViewModelFactory.getInstance().create(FavouriteViewModel.class);
+
+        assertTrue(awaitList(viewModel).isEmpty());
+    }
+
+    private static List<RecipeSummary> awaitList(FavouriteViewModel viewModel) throws InterruptedException {
+        CountDownLatch shown = new CountDownLatch(1);
+        AtomicReference<List<RecipeSummary>> value = new AtomicReference<>();
+        Observer<List<RecipeSummary>> observer = list -> {
+            value.set(list);
+            shown.countDown();
+        };
+        viewModel.getRecipeLiveData().observeForever(observer);
+        try {
+            assertTrue("No list shown", shown.await(10, TimeUnit.SECONDS));
+            return value.get();
+        } finally {
+            viewModel.getRecipeLiveData().removeObserver(observer);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package myrecipes.app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
+
+/**
+ * Small recipes for the repository tests, with IDs that sort in the order they are created.
+ */
+final class TestRecipes {
+    private TestRecipes() {
+    }
+
+    static Recipe recipe(String id, String title) {
+        List<List<Object>> ingredients = Collections.singletonList(Arrays.<Object>asList("Sal", 1, "pizca"));
+        return new Recipe(id, title, "Descripción de " + title, null, 250, ingredients,
+                Collections.singletonList("Mezclar"));
+    }
+
+    /**
+     * Recipes recipe_000 to recipe_{count - 1}.
+     */
+    static List<Recipe> recipes(int count) {
+        List<Recipe> recipes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            recipes.add(recipe(id(i), "Receta " + i));
+        }
+        return recipes;
+    }
+
+    static String id(int index) {
+        return String.format("recipe_%03d", index);
+    }
+
+    static List<String> ids(List<RecipeSummary> summaries) {
+        List<String> ids = new ArrayList<>(summaries.size());
+        for (RecipeSummary summary : summaries) {
+            ids.add(summary.getId());
+        }
+        return ids;
+    }
+}
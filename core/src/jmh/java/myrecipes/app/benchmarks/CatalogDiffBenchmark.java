@@ -0,0 +1,53 @@
+package myrecipes.app.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import myrecipes.app.models.CatalogDiff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Comparing the stored catalog hashes with the published ones when about 1% of the
+ * recipes changed, which decides what a sync downloads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogDiffBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    public int size;
+
+    private List<String> storedIds;
+    private Map<String, String> storedHashes;
+    private Map<String, String> remoteHashes;
+
+    @Setup
+    public void setUp() {
+        storedHashes = new HashMap<>();
+        CatalogFixtures.recipesJson(size, CatalogFixtures.SEED, storedHashes);
+        storedIds = new ArrayList<>(storedHashes.keySet());
+        remoteHashes = new HashMap<>(storedHashes);
+        Random random = new Random(CatalogFixtures.SEED);
+        int changes = Math.max(1, size / 100);
+        for (int i = 0; i < changes; i++) {
+            remoteHashes.put(storedIds.get(random.nextInt(size)), "changed" + i);
+        }
+        remoteHashes.put("added_recipe", "added");
+        remoteHashes.remove(storedIds.get(0));
+    }
+
+    @Benchmark
+    public CatalogDiff compute() {
+        return CatalogDiff.compute(storedIds, storedHashes, remoteHashes);
+    }
+}
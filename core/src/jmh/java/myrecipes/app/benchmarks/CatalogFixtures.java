@@ -0,0 +1,67 @@
+package myrecipes.app.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import myrecipes.app.generator.CatalogGenerator;
+import myrecipes.app.generator.SeedCatalog;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.parsers.CatalogJsonParser;
+import myrecipes.app.parsers.JsonReader;
+
+/**
+ * Synthetic catalogs shared by the benchmarks, generated from the checked-in recipes.json,
+ * identical for the same size and seed.
+ */
+final class CatalogFixtures {
+    static final long SEED = 42;
+    private static final String SEED_RESOURCE = "/recipes.json";
+
+    private static SeedCatalog seedCatalog;
+
+    private CatalogFixtures() {
+    }
+
+    /**
+     * Recipes node of a catalog with the given number of recipes, as compact JSON.
+     *
+     * @param hashes Filled with the catalog_meta hash of every recipe, or null
+     */
+    static String recipesJson(int size, long seed, Map<String, String> hashes) {
+        StringBuilder json = new StringBuilder();
+        new CatalogGenerator(seedCatalog(), seed).writeRecipes(size, json, false, 0, hashes);
+        return json.toString();
+    }
+
+    static String recipesJson(int size, long seed) {
+        return recipesJson(size, seed, null);
+    }
+
+    static List<RecipeSummary> summaries(int size, long seed) {
+        return CatalogJsonParser.parseSummaries(new JsonReader(recipesJson(size, seed)));
+    }
+
+    private static synchronized SeedCatalog seedCatalog() {
+        if (seedCatalog == null) {
+            try (InputStream in = CatalogFixtures.class.getResourceAsStream(SEED_RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException(SEED_RESOURCE + " is not on the benchmark classpath");
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    bytes.write(buffer, 0, read);
+                }
+                seedCatalog = SeedCatalog.learn(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return seedCatalog;
+    }
+}
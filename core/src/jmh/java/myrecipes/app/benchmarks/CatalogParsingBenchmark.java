@@ -0,0 +1,46 @@
+package myrecipes.app.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.parsers.CatalogJsonParser;
+import myrecipes.app.parsers.JsonReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Decoding a downloaded catalog: summaries only (list screens) versus complete recipes.
+ * The JSON is read into the same kind of tree the Firebase client builds, and the recipes
+ * are decoded by RecipeDecoder, the code the app runs on snapshots.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogParsingBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    public int size;
+
+    private String json;
+
+    @Setup
+    public void setUp() {
+        json = CatalogFixtures.recipesJson(size, CatalogFixtures.SEED);
+    }
+
+    @Benchmark
+    public List<RecipeSummary> parseSummaries() {
+        return CatalogJsonParser.parseSummaries(new JsonReader(json));
+    }
+
+    @Benchmark
+    public List<Recipe> parseRecipes() {
+        return CatalogJsonParser.parseRecipes(new JsonReader(json));
+    }
+}
@@ -0,0 +1,108 @@
+package myrecipes.app.benchmarks;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import myrecipes.app.models.CatalogIndex;
+import myrecipes.app.models.RecipeFacet;
+import myrecipes.app.models.RecipeSummary;
+import myrecipes.app.models.SortOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Queries over the columnar catalog. The dashboard runs facet filtering and the filtered or
+ * sorted view on every filter or sort change. Title search has no screen yet; it is measured
+ * so a search box can be judged before it is added.
+ * The *List methods run the same queries over the object list with predicates and
+ * comparators, as the screens did before the columnar catalog, for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogQueryBenchmark {
+    private static final long FACETS = RecipeFacet.SWEET.bit() | RecipeFacet.CALORIES_100_500.bit();
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int size;
+
+    private static final Comparator<RecipeSummary> BY_TITLE =
+            Comparator.comparing(RecipeSummary::getTitle, String.CASE_INSENSITIVE_ORDER);
+    private static final Comparator<RecipeSummary> BY_CALORIES =
+            Comparator.comparingInt(RecipeSummary::getCalories);
+
+    private List<RecipeSummary> summaries;
+    private CatalogIndex index;
+
+    @Setup
+    public void setUp() {
+        summaries = CatalogFixtures.summaries(size, CatalogFixtures.SEED);
+        index = CatalogIndex.build(1, summaries);
+    }
+
+    @Benchmark
+    public BitSet searchTitles() {
+        return index.getCatalog().searchTitles("choco");
+    }
+
+    @Benchmark
+    public BitSet filterByFacets() {
+        return index.getCatalog().filterByFacets(FACETS);
+    }
+
+    @Benchmark
+    public List<RecipeSummary> filteredSortedView() {
+        return index.view(SortOrder.TITLE, index.getCatalog().filterByFacets(FACETS));
+    }
+
+    @Benchmark
+    public List<RecipeSummary> sortedView() {
+        return index.view(SortOrder.CALORIES_ASCENDING, null);
+    }
+
+    @Benchmark
+    public List<RecipeSummary> searchTitlesList() {
+        String query = "choco";
+        return filter(summaries, summary -> summary.getTitle().toLowerCase(Locale.ROOT).contains(query));
+    }
+
+    @Benchmark
+    public List<RecipeSummary> filterByFacetsList() {
+        return filter(summaries, summary -> summary.hasFacet(RecipeFacet.SWEET)
+                && summary.hasFacet(RecipeFacet.CALORIES_100_500));
+    }
+
+    @Benchmark
+    public List<RecipeSummary> filteredSortedList() {
+        List<RecipeSummary> result = filterByFacetsList();
+        result.sort(BY_TITLE);
+        return result;
+    }
+
+    @Benchmark
+    public List<RecipeSummary> sortedList() {
+        List<RecipeSummary> result = new ArrayList<>(summaries);
+        result.sort(BY_CALORIES);
+        return result;
+    }
+
+    private static List<RecipeSummary> filter(List<RecipeSummary> summaries, Predicate<RecipeSummary> predicate) {
+        List<RecipeSummary> result = new ArrayList<>();
+        for (RecipeSummary summary : summaries) {
+            if (predicate.test(summary)) {
+                result.add(summary);
+            }
+        }
+        return result;
+    }
+}
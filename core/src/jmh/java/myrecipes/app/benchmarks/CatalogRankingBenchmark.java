@@ -0,0 +1,50 @@
+package myrecipes.app.benchmarks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import myrecipes.app.models.CatalogIndex;
+import myrecipes.app.models.RecipeSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Re-ranking the catalog when a new popularity ranking arrives.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogRankingBenchmark {
+    // Same size as the ranking the popularity job publishes
+    private static final int TOP_N = 50;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int size;
+
+    private CatalogIndex index;
+    private Map<String, Integer> counts;
+
+    @Setup
+    public void setUp() {
+        List<RecipeSummary> summaries = CatalogFixtures.summaries(size, CatalogFixtures.SEED);
+        index = CatalogIndex.build(1, summaries);
+        Random random = new Random(CatalogFixtures.SEED);
+        counts = new HashMap<>();
+        for (int i = 0; i < TOP_N; i++) {
+            counts.put(summaries.get(random.nextInt(summaries.size())).getId(), 1 + random.nextInt(10_000));
+        }
+    }
+
+    @Benchmark
+    public CatalogIndex withPopularity() {
+        return index.withPopularity(2, counts);
+    }
+}
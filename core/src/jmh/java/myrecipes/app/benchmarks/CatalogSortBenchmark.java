@@ -0,0 +1,110 @@
+package myrecipes.app.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import myrecipes.app.models.CatalogChangeSet;
+import myrecipes.app.models.CatalogIndex;
+import myrecipes.app.models.ColumnarCatalog;
+import myrecipes.app.models.RecipeSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Building every sort permutation of a new catalog, against patching them for a small
+ * live change set and for the largest change set patched before update falls back to a
+ * full build (a quarter of the catalog).
+ * The columnar sorts are compared with sorting the object list with comparators.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogSortBenchmark {
+    private static final int CHANGES = 10;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int size;
+
+    private List<RecipeSummary> summaries;
+    private ColumnarCatalog catalog;
+    private CatalogIndex index;
+    private CatalogChangeSet changes;
+    private CatalogChangeSet quarterChanges;
+
+    @Setup
+    public void setUp() {
+        summaries = CatalogFixtures.summaries(size, CatalogFixtures.SEED);
+        catalog = ColumnarCatalog.build(summaries);
+        index = CatalogIndex.build(1, summaries);
+        Random random = new Random(CatalogFixtures.SEED);
+        List<RecipeSummary> changed = new ArrayList<>(CHANGES);
+        for (int i = 0; i < CHANGES; i++) {
+            changed.add(edit(summaries.get(random.nextInt(summaries.size()))));
+        }
+        changes = new CatalogChangeSet(Collections.<RecipeSummary>emptyList(), changed,
+                Collections.<String>emptyList());
+
+        List<RecipeSummary> shuffled = new ArrayList<>(summaries);
+        Collections.shuffle(shuffled, random);
+        List<RecipeSummary> quarter = new ArrayList<>(size / 4);
+        for (RecipeSummary summary : shuffled.subList(0, size / 4)) {
+            quarter.add(edit(summary));
+        }
+        quarterChanges = new CatalogChangeSet(Collections.<RecipeSummary>emptyList(), quarter,
+                Collections.<String>emptyList());
+    }
+
+    private static RecipeSummary edit(RecipeSummary summary) {
+        return new RecipeSummary(summary.getId(), summary.getTitle() + " casero",
+                summary.getCalories() + 50, summary.getThumbnailUrl(), summary.getFacets(),
+                summary.getIngredientCount() + 1, summary.getStepCount());
+    }
+
+    @Benchmark
+    public CatalogIndex buildIndex() {
+        return CatalogIndex.build(2, summaries);
+    }
+
+    @Benchmark
+    public CatalogIndex updateIndex() {
+        return index.update(2, changes, Comparator.<String>naturalOrder());
+    }
+
+    @Benchmark
+    public CatalogIndex updateIndexQuarter() {
+        return index.update(2, quarterChanges, Comparator.<String>naturalOrder());
+    }
+
+    @Benchmark
+    public int[] sortByTitle() {
+        return catalog.sortByTitle();
+    }
+
+    @Benchmark
+    public int[] sortByCalories() {
+        return catalog.sortByCalories(true);
+    }
+
+    @Benchmark
+    public List<RecipeSummary> sortByTitleList() {
+        List<RecipeSummary> sorted = new ArrayList<>(summaries);
+        sorted.sort(Comparator.comparing(RecipeSummary::getTitle, String.CASE_INSENSITIVE_ORDER));
+        return sorted;
+    }
+
+    @Benchmark
+    public List<RecipeSummary> sortByCaloriesList() {
+        List<RecipeSummary> sorted = new ArrayList<>(summaries);
+        sorted.sort(Comparator.comparingInt(RecipeSummary::getCalories));
+        return sorted;
+    }
+}
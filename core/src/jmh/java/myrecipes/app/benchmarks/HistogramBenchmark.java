@@ -0,0 +1,64 @@
+package myrecipes.app.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import myrecipes.app.metrics.LogLinearHistogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Cost the repository instrumentation adds to each call: recording a latency, alone and with
+ * the callbacks of several threads recording into the same histogram, and reading a percentile
+ * as the debug screen does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HistogramBenchmark {
+    // Latencies between 100 us and about 1 s, like the repository calls
+    private static final int VALUE_COUNT = 4096;
+
+    private final LogLinearHistogram histogram = new LogLinearHistogram();
+    private long[] values;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(CatalogFixtures.SEED);
+        values = new long[VALUE_COUNT];
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            values[i] = (long) (100 * Math.pow(10_000, random.nextDouble()));
+            histogram.record(values[i]);
+        }
+    }
+
+    /**
+     * Position of each thread in the value array.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public void record(Cursor cursor) {
+        histogram.record(values[cursor.next++ & (VALUE_COUNT - 1)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended(Cursor cursor) {
+        histogram.record(values[cursor.next++ & (VALUE_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public long percentile99() {
+        return histogram.getValueAtPercentile(99);
+    }
+}
@@ -0,0 +1,67 @@
+package myrecipes.app.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.Locale;
+import myrecipes.app.models.IngredientDictionary;
+import myrecipes.app.models.Recipe;
+import myrecipes.app.parsers.CatalogJsonParser;
+import myrecipes.app.parsers.JsonReader;
+
+/**
+ * Heap retained by a decoded synthetic catalog, with the ingredient triples as decoded
+ * (one String per occurrence, like Firebase deserialization) and interned into a dictionary.
+ * Not a JMH benchmark: JMH measures time, this measures what stays reachable, from the used
+ * heap after repeated full collections. Run with a serial collector for stable numbers:
+ * ./gradlew :core:ingredientHeap -PcatalogSize=10000
+ */
+public final class IngredientHeapFootprint {
+    private static final int GC_ROUNDS = 5;
+
+    private IngredientHeapFootprint() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        String json = CatalogFixtures.recipesJson(size, CatalogFixtures.SEED);
+
+        long baseline = usedHeap();
+        List<Recipe> raw = CatalogJsonParser.parseRecipes(new JsonReader(json), null);
+        long rawBytes = usedHeap() - baseline;
+        int ingredients = countIngredients(raw);
+        raw = null;
+
+        baseline = usedHeap();
+        IngredientDictionary dictionary = new IngredientDictionary();
+        List<Recipe> interned = CatalogJsonParser.parseRecipes(new JsonReader(json), dictionary);
+        long internedBytes = usedHeap() - baseline;
+
+        System.out.println(String.format(Locale.ROOT,
+                "%d recipes, %d ingredients, %d distinct ingredient strings", interned.size(),
+                ingredients, dictionary.size()));
+        System.out.println(String.format(Locale.ROOT, "as decoded: %,d bytes (%,d per recipe)",
+                rawBytes, rawBytes / interned.size()));
+        System.out.println(String.format(Locale.ROOT,
+                "interned:   %,d bytes (%,d per recipe), %.1f%% less",
+                internedBytes, internedBytes / interned.size(),
+                100.0 * (rawBytes - internedBytes) / rawBytes));
+    }
+
+    private static int countIngredients(List<Recipe> recipes) {
+        int count = 0;
+        for (Recipe recipe : recipes) {
+            count += recipe.getIngredientCount();
+        }
+        return count;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
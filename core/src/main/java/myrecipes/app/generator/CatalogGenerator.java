@@ -0,0 +1,299 @@
+package myrecipes.app.generator;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import myrecipes.app.parsers.JsonWriter;
+
+/**
+ * Generates synthetic catalogs of any size in the schema of the real one, drawing every field
+ * from the distributions of a {@link SeedCatalog}.
+ * Recipe i only depends on the generator seed and i, so the same seed always gives the same
+ * catalog, and a catalog of 10000 recipes starts with the 1000 recipes of the smaller one.
+ * Like in the seed, the total calories are the sum of the ingredients and the calorie range
+ * in the category follows the total.
+ */
+public final class CatalogGenerator {
+    // Spreads consecutive recipe indexes over unrelated random streams
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final String TEXT_CALORIES_SUFFIX = " calorías";
+
+    private final SeedCatalog seed;
+    private final long randomSeed;
+
+    public CatalogGenerator(SeedCatalog seed, long randomSeed) {
+        this.seed = seed;
+        this.randomSeed = randomSeed;
+    }
+
+    /**
+     * Recipe ID of recipe i: a slug of its title, made unique by the index.
+     */
+    public String recipeId(int index, Map<String, Object> recipe) {
+        String slug = Normalizer.normalize((String) recipe.get("title"), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9]+", "_")
+                .replaceAll("^_|_$", "");
+        return slug + "_" + index;
+    }
+
+    /**
+     * Recipe i of the catalog, with its fields in the order of the seed file.
+     */
+    public Map<String, Object> recipe(int index) {
+        SplittableRandom random = new SplittableRandom(randomSeed + index * GOLDEN_GAMMA);
+
+        // Ingredients are drawn without repeating one within a recipe
+        int ingredientCount = Math.min(pick(random, seed.ingredientCounts), seed.ingredients.size());
+        List<List<Object>> ingredients = new ArrayList<>(ingredientCount);
+        List<String> names = new ArrayList<>(ingredientCount);
+        int calories = 0;
+        for (int position : distinct(random, seed.ingredients.size(), ingredientCount)) {
+            List<Object> source = seed.ingredients.get(position);
+            int ingredientCalories = caloriesOf(source.get(1));
+            calories += ingredientCalories;
+            List<Object> ingredient = new ArrayList<>(3);
+            ingredient.add(source.get(0));
+            ingredient.add(random.nextDouble() < seed.textCalorieRate
+                    ? ingredientCalories + TEXT_CALORIES_SUFFIX : (Object) ingredientCalories);
+            ingredient.add(source.get(2));
+            ingredients.add(ingredient);
+            names.add((String) source.get(0));
+        }
+
+        int stepCount = Math.min(pick(random, seed.stepCounts), seed.steps.size());
+        List<String> steps = new ArrayList<>(stepCount);
+        for (int position : distinct(random, seed.steps.size(), stepCount)) {
+            steps.add(seed.steps.get(position));
+        }
+
+        StringBuilder category = new StringBuilder(SeedCatalog.calorieLabel(calories));
+        for (Map.Entry<String, Double> tag : seed.tagRates.entrySet()) {
+            if (random.nextDouble() < tag.getValue()) {
+                category.append(", ").append(tag.getKey());
+            }
+        }
+
+        Map<String, Object> image = pick(random, seed.images);
+        Map<String, Object> recipe = new LinkedHashMap<>();
+        recipe.put("calorias_totales", calories);
+        recipe.put("category", category.toString());
+        recipe.put("description", pick(random, seed.descriptions));
+        recipe.put("imageUrl", image.get("imageUrl"));
+        recipe.put("ingredients", ingredients);
+        recipe.put("steps", steps);
+        recipe.put("title", title(random, names));
+        if (image.containsKey("imageBlurHash")) {
+            recipe.put("imageBlurHash", image.get("imageBlurHash"));
+            recipe.put("imageAspectRatio", image.get("imageAspectRatio"));
+        }
+        return recipe;
+    }
+
+    /**
+     * The first recipes of the catalog by recipe ID, in order. Keeps them all in memory;
+     * large catalogs are better streamed with {@link #writeCatalog}.
+     */
+    public Map<String, Map<String, Object>> recipes(int size) {
+        Map<String, Map<String, Object>> recipes = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> recipe = recipe(i);
+            recipes.put(recipeId(i, recipe), recipe);
+        }
+        return recipes;
+    }
+
+    /**
+     * Writes the recipes node alone, as an object of recipe ID -> recipe.
+     *
+     * @param hashes Filled with the hash of every recipe written, or null
+     */
+    public void writeRecipes(int size, Appendable out, boolean pretty, int depth, Map<String, String> hashes) {
+        Layout layout = new Layout(out, pretty);
+        layout.append("{");
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> recipe = recipe(i);
+            String id = recipeId(i, recipe);
+            if (hashes != null) {
+                hashes.put(id, JsonWriter.hash(recipe));
+            }
+            layout.key(depth + 1, id);
+            JsonWriter.write(recipe, out, pretty, depth + 1);
+            layout.append(i < size - 1 ? "," : "");
+        }
+        layout.close(depth, "}", size > 0);
+    }
+
+    /**
+     * Writes a whole database: the recipes and their catalog_meta, like utils/recipes.json
+     * after generateCatalogMeta ran.
+     *
+     * @param version Catalog version stored in catalog_meta
+     * @param pretty True for the layout of the checked-in file, false for compact JSON
+     */
+    public void writeCatalog(int size, long version, Appendable out, boolean pretty) {
+        Layout layout = new Layout(out, pretty);
+        Map<String, String> hashes = new TreeMap<>();
+        layout.append("{");
+        layout.key(1, "recipes");
+        writeRecipes(size, out, pretty, 1, hashes);
+        layout.append(",");
+        layout.key(1, "catalog_meta");
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("version", version);
+        meta.put("hashes", hashes);
+        JsonWriter.write(meta, out, pretty, 1);
+        layout.close(0, "}", true);
+        layout.append(pretty ? "\n" : "");
+    }
+
+    /**
+     * Writes the catalog as a directory the Firebase emulators can start from with
+     * {@code firebase emulators:start --import <dir>}: the export metadata and the
+     * Realtime Database content of one database instance.
+     *
+     * @param namespace Database instance, e.g. demo-myrecipes-default-rtdb
+     */
+    public void writeEmulatorImport(int size, long version, File directory, String namespace) throws IOException {
+        File databaseDir = new File(directory, "database_export");
+        Files.createDirectories(databaseDir.toPath());
+        try (Writer out = writer(new File(directory, "firebase-export-metadata.json"))) {
+            out.write("{\"version\":\"13.0.0\",\"database\":{\"version\":\"4.11.2\",\"path\":\"database_export\"}}\n");
+        }
+        try (Writer out = writer(new File(databaseDir, namespace + ".json"))) {
+            writeCatalog(size, version, out, false);
+        }
+    }
+
+    /**
+     * Command line entry point, run by the generateCatalog Gradle task.
+     * Arguments: seed file, size, random seed, catalog version, output directory, emulator namespace.
+     * Writes recipes.json in the layout of the checked-in file and emulator/ for the emulators.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 6) {
+            System.err.println("Usage: CatalogGenerator <seed.json> <size> <seed> <version> <out dir> <namespace>");
+            System.exit(2);
+        }
+        String seedJson = new String(Files.readAllBytes(new File(args[0]).toPath()), StandardCharsets.UTF_8);
+        int size = Integer.parseInt(args[1]);
+        long version = Long.parseLong(args[3]);
+        File outDir = new File(args[4]);
+        CatalogGenerator generator = new CatalogGenerator(SeedCatalog.learn(seedJson), Long.parseLong(args[2]));
+
+        Files.createDirectories(outDir.toPath());
+        File catalogFile = new File(outDir, "recipes.json");
+        try (Writer out = writer(catalogFile)) {
+            generator.writeCatalog(size, version, out, true);
+        }
+        File emulatorDir = new File(outDir, "emulator");
+        generator.writeEmulatorImport(size, version, emulatorDir, args[5]);
+        System.out.println(size + " recipes written to " + catalogFile + " and " + emulatorDir);
+    }
+
+    private String title(SplittableRandom random, List<String> ingredientNames) {
+        // "<dish> de <ingredient>" or "<dish> de <ingredient> y <ingredient>", like most seed titles
+        StringBuilder title = new StringBuilder(pick(random, seed.dishes))
+                .append(" de ").append(lowerFirst(ingredientNames.get(0)));
+        if (ingredientNames.size() > 1 && random.nextBoolean()) {
+            title.append(" y ").append(lowerFirst(ingredientNames.get(1)));
+        }
+        return title.toString();
+    }
+
+    private static String lowerFirst(String text) {
+        return text.isEmpty() ? text : Character.toLowerCase(text.charAt(0)) + text.substring(1);
+    }
+
+    /**
+     * Calories of a seed ingredient: a number, or text starting with one ("170 calorías").
+     */
+    private static int caloriesOf(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        String text = String.valueOf(value);
+        int end = 0;
+        while (end < text.length() && Character.isDigit(text.charAt(end))) {
+            end++;
+        }
+        return end > 0 ? Integer.parseInt(text.substring(0, end)) : 0;
+    }
+
+    private static <T> T pick(SplittableRandom random, List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    /**
+     * Count distinct positions in [0, bound), in draw order (partial Fisher-Yates shuffle).
+     */
+    private static int[] distinct(SplittableRandom random, int bound, int count) {
+        int[] positions = new int[bound];
+        for (int i = 0; i < bound; i++) {
+            positions[i] = i;
+        }
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(bound - i);
+            int swap = positions[i];
+            positions[i] = positions[j];
+            positions[j] = swap;
+        }
+        int[] drawn = new int[count];
+        System.arraycopy(positions, 0, drawn, 0, count);
+        return drawn;
+    }
+
+    private static Writer writer(File file) throws IOException {
+        return new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Line breaks and indentation of a document written piece by piece.
+     */
+    private static final class Layout {
+        private final Appendable out;
+        private final boolean pretty;
+
+        Layout(Appendable out, boolean pretty) {
+            this.out = out;
+            this.pretty = pretty;
+        }
+
+        void append(String text) {
+            try {
+                out.append(text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void key(int depth, String name) {
+            if (pretty) {
+                append("\n" + JsonWriter.indent(depth));
+            }
+            JsonWriter.writeString(name, out);
+            append(pretty ? ": " : ":");
+        }
+
+        void close(int depth, String bracket, boolean hasChildren) {
+            if (pretty && hasChildren) {
+                append("\n" + JsonWriter.indent(depth));
+            }
+            append(bracket);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package myrecipes.app.generator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import myrecipes.app.models.RecipeFacet;
+import myrecipes.app.parsers.CatalogJsonParser;
+import myrecipes.app.parsers.JsonReader;
+
+/**
+ * What the generator learns from a real catalog: the empirical distributions of every field,
+ * kept as plain lists so sampling one uniformly reproduces the seed frequencies.
+ * Ingredients keep their own calories and quantity, because a total is the sum of its
+ * ingredients, and images keep their placeholder, because both come from the same file.
+ */
+public final class SeedCatalog {
+    final List<List<Object>> ingredients = new ArrayList<>();
+    final List<Integer> ingredientCounts = new ArrayList<>();
+    final List<String> steps = new ArrayList<>();
+    final List<Integer> stepCounts = new ArrayList<>();
+    final List<String> dishes = new ArrayList<>();
+    final List<String> descriptions = new ArrayList<>();
+    final List<Map<String, Object>> images = new ArrayList<>();
+    // Share of recipes carrying each non-calorie category
+    final Map<String, Double> tagRates = new LinkedHashMap<>();
+    // Share of ingredients whose calories are text ("170 calorías") instead of a number
+    double textCalorieRate;
+
+    private SeedCatalog() {
+    }
+
+    /**
+     * Learns the distributions of a database export such as utils/recipes.json.
+     *
+     * @param exportJson Whole database as JSON, with the recipes node at the top level
+     * @throws IllegalArgumentException If the export has no recipes
+     */
+    @SuppressWarnings("unchecked")
+    public static SeedCatalog learn(String exportJson) {
+        Map<String, Object> recipes = (Map<String, Object>) CatalogJsonParser.openExport(exportJson).nextValue();
+        SeedCatalog seed = new SeedCatalog();
+        int recipeCount = 0;
+        int textCalories = 0;
+        Map<String, Integer> tagCounts = new LinkedHashMap<>();
+        for (Object value : recipes.values()) {
+            if (!(value instanceof Map) || !(((Map<String, Object>) value).get("title") instanceof String)) {
+                continue;
+            }
+            Map<String, Object> recipe = (Map<String, Object>) value;
+            recipeCount++;
+
+            String title = (String) recipe.get("title");
+            seed.dishes.add(title.split(" ")[0]);
+            if (recipe.get("description") instanceof String) {
+                seed.descriptions.add((String) recipe.get("description"));
+            }
+
+            List<Object> ingredients = asList(recipe.get("ingredients"));
+            seed.ingredientCounts.add(ingredients.size());
+            for (Object ingredient : ingredients) {
+                List<Object> triple = asList(ingredient);
+                if (triple.size() == 3 && triple.get(0) instanceof String) {
+                    seed.ingredients.add(triple);
+                    if (triple.get(1) instanceof String) {
+                        textCalories++;
+                    }
+                }
+            }
+
+            List<Object> steps = asList(recipe.get("steps"));
+            seed.stepCounts.add(steps.size());
+            for (Object step : steps) {
+                if (step instanceof String) {
+                    seed.steps.add((String) step);
+                }
+            }
+
+            Map<String, Object> image = new LinkedHashMap<>();
+            image.put("imageUrl", recipe.get("imageUrl"));
+            if (recipe.get("imageBlurHash") != null) {
+                image.put("imageBlurHash", recipe.get("imageBlurHash"));
+                image.put("imageAspectRatio", recipe.get("imageAspectRatio"));
+            }
+            seed.images.add(image);
+
+            Object category = recipe.get("category");
+            if (category instanceof String) {
+                for (String label : ((String) category).split(",")) {
+                    String tag = label.trim();
+                    if (!tag.isEmpty() && !isCalorieLabel(tag)) {
+                        Integer count = tagCounts.get(tag);
+                        tagCounts.put(tag, count == null ? 1 : count + 1);
+                    }
+                }
+            }
+        }
+        if (recipeCount == 0 || seed.ingredients.isEmpty() || seed.steps.isEmpty()) {
+            throw new IllegalArgumentException("The seed catalog has no usable recipes");
+        }
+        for (Map.Entry<String, Integer> tag : tagCounts.entrySet()) {
+            seed.tagRates.put(tag.getKey(), tag.getValue() / (double) recipeCount);
+        }
+        seed.textCalorieRate = textCalories / (double) seed.ingredients.size();
+        return seed;
+    }
+
+    /**
+     * Calorie range label of a total, as the catalog uses it in the category field.
+     */
+    static String calorieLabel(int calories) {
+        if (calories <= 500) {
+            return RecipeFacet.CALORIES_100_500.getLabel();
+        }
+        if (calories <= 1000) {
+            return RecipeFacet.CALORIES_500_1000.getLabel();
+        }
+        if (calories <= 1500) {
+            return RecipeFacet.CALORIES_1000_1500.getLabel();
+        }
+        return RecipeFacet.CALORIES_OVER_1500.getLabel();
+    }
+
+    private static boolean isCalorieLabel(String label) {
+        return label.equals(RecipeFacet.CALORIES_100_500.getLabel())
+                || label.equals(RecipeFacet.CALORIES_500_1000.getLabel())
+                || label.equals(RecipeFacet.CALORIES_1000_1500.getLabel())
+                || label.equals(RecipeFacet.CALORIES_OVER_1500.getLabel());
+    }
+
+    /**
+     * Firebase stores arrays as lists, or as objects keyed by index when they have gaps.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Object> asList(Object value) {
+        if (value instanceof List) {
+            return (List<Object>) value;
+        }
+        if (value instanceof Map) {
+            return new ArrayList<>(((Map<String, Object>) value).values());
+        }
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,108 @@
+package myrecipes.app.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of non-negative values (latencies in microseconds, payloads in bytes) laid out
+ * like HdrHistogram: values below 32 have a bucket each, and every power of two above is
+ * split into 32 equal buckets, so a reported value is within about 3% of the recorded ones.
+ * The footprint is fixed (1024 counters) whatever is recorded, and values above
+ * {@link #MAX_VALUE} are counted as MAX_VALUE.
+ *
+ * Recording is lock-free: a few atomic updates and no allocation, so repository callbacks on
+ * any thread can record while the debug screen reads. The counters aren't read together
+ * atomically; a snapshot taken during recording may miss the values being recorded.
+ */
+public final class LogLinearHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // About 19 hours in microseconds, 64 GB in bytes
+    public static final long MAX_VALUE = (1L << 36) - 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(clamped));
+        sum.addAndGet(clamped);
+        max.accumulateAndGet(clamped, Math::max);
+        // Counted last, so a reader that sees the count also sees the bucket
+        count.incrementAndGet();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long recorded = count.get();
+        return recorded == 0 ? 0 : (double) sum.get() / recorded;
+    }
+
+    /**
+     * Value at or below which the given percentage of the recorded values fall, reported as
+     * the highest value of its bucket (never above the maximum recorded). 0 when empty.
+     *
+     * @param percentile Between 0 and 100, e.g. 99.9
+     */
+    public long getValueAtPercentile(double percentile) {
+        long recorded = count.get();
+        if (recorded == 0) {
+            return 0;
+        }
+        double clamped = Math.min(Math.max(percentile, 0), 100);
+        long rank = Math.max(1, (long) Math.ceil(clamped / 100 * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        // A value recorded while scanning was counted before its bucket was read
+        return max.get();
+    }
+
+    /**
+     * Clears the counters. Values recorded at the same time may be partly kept.
+     */
+    public void reset() {
+        count.set(0);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowest = (long) (index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
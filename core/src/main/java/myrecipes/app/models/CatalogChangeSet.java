@@ -0,0 +1,110 @@
+package myrecipes.app.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Recipes added, changed and removed by one catalog sync step.
+ * Only recipes whose summary actually differs are included, so observers can update
+ * their lists and indexes without comparing the whole catalog.
+ */
+public final class CatalogChangeSet {
+    private final List<RecipeSummary> added;
+    private final List<RecipeSummary> changed;
+    private final List<String> removed;
+
+    public CatalogChangeSet(List<RecipeSummary> added, List<RecipeSummary> changed, List<String> removed) {
+        this.added = Collections.unmodifiableList(new ArrayList<>(added));
+        this.changed = Collections.unmodifiableList(new ArrayList<>(changed));
+        this.removed = Collections.unmodifiableList(new ArrayList<>(removed));
+    }
+
+    public List<RecipeSummary> getAdded() {
+        return added;
+    }
+
+    public List<RecipeSummary> getChanged() {
+        return changed;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+
+    public int size() {
+        return added.size() + changed.size() + removed.size();
+    }
+
+    /**
+     * IDs of every recipe touched by the change set.
+     */
+    public Set<String> getTouchedIds() {
+        Set<String> ids = new HashSet<>(size() * 2);
+        for (RecipeSummary summary : added) {
+            ids.add(summary.getId());
+        }
+        for (RecipeSummary summary : changed) {
+            ids.add(summary.getId());
+        }
+        ids.addAll(removed);
+        return ids;
+    }
+
+    /**
+     * Returns a new list with the changes applied. Recipes already in the list are replaced
+     * in place, the others are inserted where the key order puts them, so applying a change
+     * set to a list that already contains part of it is safe.
+     *
+     * @param summaries Current list, sorted by key order
+     * @param keyOrder Order of the recipe keys
+     * @return The updated list, still sorted by key order
+     */
+    public List<RecipeSummary> applyTo(List<RecipeSummary> summaries, Comparator<String> keyOrder) {
+        Map<String, RecipeSummary> upserts = new HashMap<>((added.size() + changed.size()) * 2);
+        for (RecipeSummary summary : added) {
+            upserts.put(summary.getId(), summary);
+        }
+        for (RecipeSummary summary : changed) {
+            upserts.put(summary.getId(), summary);
+        }
+        Set<String> removedIds = new HashSet<>(removed);
+
+        List<RecipeSummary> result = new ArrayList<>(summaries.size() + added.size());
+        for (RecipeSummary summary : summaries) {
+            if (removedIds.contains(summary.getId())) {
+                continue;
+            }
+            RecipeSummary replacement = upserts.remove(summary.getId());
+            result.add(replacement != null ? replacement : summary);
+        }
+        if (upserts.isEmpty()) {
+            return result;
+        }
+
+        // Whatever is left is new: merge it in by key
+        List<RecipeSummary> inserted = new ArrayList<>(upserts.values());
+        Collections.sort(inserted, (a, b) -> keyOrder.compare(a.getId(), b.getId()));
+        List<RecipeSummary> merged = new ArrayList<>(result.size() + inserted.size());
+        int next = 0;
+        for (RecipeSummary summary : result) {
+            while (next < inserted.size() && keyOrder.compare(inserted.get(next).getId(), summary.getId()) < 0) {
+                merged.add(inserted.get(next++));
+            }
+            merged.add(summary);
+        }
+        while (next < inserted.size()) {
+            merged.add(inserted.get(next++));
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,82 @@
+package myrecipes.app.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Difference between a stored catalog and a published version, from their per-recipe hashes.
+ */
+public final class CatalogDiff {
+    private final List<String> changedIds;
+    private final int addedCount;
+    private final List<String> removedIds;
+    private final boolean storeEmpty;
+    private final int remoteSize;
+
+    private CatalogDiff(List<String> changedIds, int addedCount, List<String> removedIds,
+                        boolean storeEmpty, int remoteSize) {
+        this.changedIds = changedIds;
+        this.addedCount = addedCount;
+        this.removedIds = removedIds;
+        this.storeEmpty = storeEmpty;
+        this.remoteSize = remoteSize;
+    }
+
+    /**
+     * Compares published hashes with the stored ones. Linear in the size of both catalogs.
+     *
+     * @param storedIds Recipes in the stored catalog
+     * @param storedHashes Hash of every stored recipe
+     * @param remoteHashes Hash of every published recipe, from catalog_meta
+     * @return The recipes to fetch and the ones to drop
+     */
+    public static CatalogDiff compute(Collection<String> storedIds, Map<String, String> storedHashes,
+                                      Map<String, String> remoteHashes) {
+        List<String> changedIds = new ArrayList<>();
+        int addedCount = 0;
+        for (Map.Entry<String, String> entry : remoteHashes.entrySet()) {
+            String storedHash = storedHashes.get(entry.getKey());
+            if (!Objects.equals(entry.getValue(), storedHash)) {
+                changedIds.add(entry.getKey());
+                if (storedHash == null && !storedIds.contains(entry.getKey())) {
+                    addedCount++;
+                }
+            }
+        }
+        List<String> removedIds = new ArrayList<>();
+        for (String id : storedIds) {
+            if (!remoteHashes.containsKey(id)) {
+                removedIds.add(id);
+            }
+        }
+        return new CatalogDiff(changedIds, addedCount, removedIds, storedIds.isEmpty(), remoteHashes.size());
+    }
+
+    /**
+     * Recipes that are new or whose hash differs.
+     */
+    public List<String> getChangedIds() {
+        return changedIds;
+    }
+
+    /**
+     * How many of the changed recipes are not stored at all.
+     */
+    public int getAddedCount() {
+        return addedCount;
+    }
+
+    public List<String> getRemovedIds() {
+        return removedIds;
+    }
+
+    /**
+     * True when one download of the whole catalog is cheaper than a request per recipe.
+     */
+    public boolean shouldDownloadAll() {
+        return storeEmpty || changedIds.size() * 2 > remoteSize;
+    }
+}
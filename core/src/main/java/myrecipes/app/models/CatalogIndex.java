@@ -0,0 +1,316 @@
+package myrecipes.app.models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sort permutations precomputed for one version of the catalog.
+ * Every {@link SortOrder} is resolved once, when the catalog version changes, into an int array
+ * of row indexes. Switching the order afterwards only swaps which array backs the list view,
+ * and filters are applied by walking that array and testing a BitSet of matching rows.
+ * Small catalog changes are applied with {@link #update}, which patches the permutations
+ * instead of sorting everything again.
+ */
+public final class CatalogIndex {
+    private final int version;
+    private final List<RecipeSummary> summaries;
+    private final ColumnarCatalog catalog;
+    private final Map<SortOrder, int[]> permutations = new EnumMap<>(SortOrder.class);
+    // Favourite count per recipe ID, from the popularity ranking; empty until it is loaded
+    private Map<String, Integer> popularity = Collections.emptyMap();
+
+    private CatalogIndex(int version, List<RecipeSummary> summaries, ColumnarCatalog catalog) {
+        this.version = version;
+        this.summaries = summaries;
+        this.catalog = catalog;
+    }
+
+    /**
+     * Builds the columnar catalog and every sort permutation for a list of summaries.
+     * This is the expensive step and should run off the main thread.
+     *
+     * @param version Version of the catalog the summaries belong to
+     * @param summaries Summaries in catalog order
+     * @return The ready to use index
+     */
+    public static CatalogIndex build(int version, List<RecipeSummary> summaries) {
+        ColumnarCatalog catalog = ColumnarCatalog.build(summaries);
+        CatalogIndex index = new CatalogIndex(version, summaries, catalog);
+        int[] identity = new int[catalog.size()];
+        for (int row = 0; row < identity.length; row++) {
+            identity[row] = row;
+        }
+        index.permutations.put(SortOrder.CATALOG, identity);
+        index.permutations.put(SortOrder.TITLE, catalog.sortByTitle());
+        index.permutations.put(SortOrder.CALORIES_ASCENDING, catalog.sortByCalories(true));
+        index.permutations.put(SortOrder.CALORIES_DESCENDING, catalog.sortByCalories(false));
+        index.permutations.put(SortOrder.INGREDIENT_COUNT, catalog.sortByIngredientCount());
+        index.permutations.put(SortOrder.STEP_COUNT, catalog.sortByStepCount());
+        index.permutations.put(SortOrder.MOST_POPULAR, rankByPopularity(catalog, index.popularity));
+        return index;
+    }
+
+    /**
+     * Rebuilds an index from permutations computed earlier for the same summaries,
+     * e.g. by the background sync. Only the columns are built, which is linear; no sorting.
+     *
+     * @param version Version of the catalog the summaries belong to
+     * @param summaries Summaries in catalog order, the same the permutations were computed for
+     * @param stored Permutation of every sort order
+     * @return The index, or null if a permutation is missing or doesn't fit the summaries
+     */
+    public static CatalogIndex restore(int version, List<RecipeSummary> summaries,
+                                       Map<SortOrder, int[]> stored) {
+        for (SortOrder order : SortOrder.values()) {
+            if (!isPermutation(stored.get(order), summaries.size())) {
+                return null;
+            }
+        }
+        CatalogIndex index = new CatalogIndex(version, summaries, ColumnarCatalog.build(summaries));
+        index.permutations.putAll(stored);
+        // The ranking isn't stored with the permutations; it is applied with withPopularity
+        index.permutations.put(SortOrder.MOST_POPULAR, rankByPopularity(index.catalog, index.popularity));
+        return index;
+    }
+
+    /**
+     * Returns this index with the most popular order computed from new favourite counts.
+     * The other permutations are shared. Recipes with a count come first, highest first,
+     * then every other recipe in catalog order: O(n + k log k) for k ranked recipes.
+     *
+     * @param newVersion Version of the new index
+     * @param counts Favourite count per recipe ID; recipes outside the ranking can be missing
+     * @return A new index; this one is left untouched
+     */
+    public CatalogIndex withPopularity(int newVersion, Map<String, Integer> counts) {
+        CatalogIndex index = new CatalogIndex(newVersion, summaries, catalog);
+        index.permutations.putAll(permutations);
+        index.popularity = counts;
+        index.permutations.put(SortOrder.MOST_POPULAR, rankByPopularity(catalog, counts));
+        return index;
+    }
+
+    /**
+     * Orders ranked rows by count, highest first, ties in catalog order, followed by the others.
+     */
+    private static int[] rankByPopularity(ColumnarCatalog catalog, Map<String, Integer> counts) {
+        int size = catalog.size();
+        int[] order = new int[size];
+        long[] ranked = new long[Math.min(size, counts.size())];
+        int rankedCount = 0;
+        int count = 0;
+        // Unranked rows go to the end, in catalog order
+        int[] unranked = new int[size];
+        int unrankedCount = 0;
+        for (int row = 0; row < size; row++) {
+            Integer favourites = counts.isEmpty() ? null : counts.get(catalog.getId(row));
+            if (favourites != null && favourites > 0 && rankedCount < ranked.length) {
+                // Count in the high bits (negated for highest first), row in the low bits
+                ranked[rankedCount++] = ((long) -favourites << 32) | row;
+            } else {
+                unranked[unrankedCount++] = row;
+            }
+        }
+        Arrays.sort(ranked, 0, rankedCount);
+        for (int i = 0; i < rankedCount; i++) {
+            order[count++] = (int) ranked[i];
+        }
+        System.arraycopy(unranked, 0, order, count, unrankedCount);
+        return order;
+    }
+
+    private static boolean isPermutation(int[] permutation, int size) {
+        if (permutation == null || permutation.length != size) {
+            return false;
+        }
+        BitSet seen = new BitSet(size);
+        for (int row : permutation) {
+            if (row < 0 || row >= size || seen.get(row)) {
+                return false;
+            }
+            seen.set(row);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the catalog after a change set.
+     * The columns are rebuilt (linear), but each permutation is patched: untouched rows keep
+     * their relative order, so only the touched rows are sorted and merged in, which costs
+     * O(n + k log k) per order instead of O(n log n). Large change sets fall back to {@link #build}.
+     *
+     * @param newVersion Version of the updated catalog
+     * @param changes Changes to apply
+     * @param keyOrder Order of the recipe keys, which is the catalog order
+     * @return A new index; this one is left untouched
+     */
+    public CatalogIndex update(int newVersion, CatalogChangeSet changes, Comparator<String> keyOrder) {
+        List<RecipeSummary> newSummaries = changes.applyTo(summaries, keyOrder);
+        if (changes.size() * 4 > newSummaries.size()) {
+            return build(newVersion, newSummaries).withPopularity(newVersion, popularity);
+        }
+        ColumnarCatalog newCatalog = ColumnarCatalog.build(newSummaries);
+        Map<String, Integer> newRows = new HashMap<>(newSummaries.size() * 2);
+        for (int row = 0; row < newCatalog.size(); row++) {
+            newRows.put(newCatalog.getId(row), row);
+        }
+
+        // Untouched rows move to their new row number; touched rows are dropped
+        Set<String> touched = changes.getTouchedIds();
+        int[] oldToNew = new int[catalog.size()];
+        for (int row = 0; row < oldToNew.length; row++) {
+            String id = catalog.getId(row);
+            oldToNew[row] = touched.contains(id) ? -1 : newRows.get(id);
+        }
+        int[] touchedRows = new int[changes.getAdded().size() + changes.getChanged().size()];
+        int count = 0;
+        for (RecipeSummary summary : changes.getAdded()) {
+            touchedRows[count++] = newRows.get(summary.getId());
+        }
+        for (RecipeSummary summary : changes.getChanged()) {
+            touchedRows[count++] = newRows.get(summary.getId());
+        }
+
+        CatalogIndex index = new CatalogIndex(newVersion, newSummaries, newCatalog);
+        for (SortOrder order : SortOrder.values()) {
+            if (order != SortOrder.MOST_POPULAR) {
+                index.permutations.put(order,
+                        patch(permutations.get(order), oldToNew, touchedRows, newCatalog, order));
+            }
+        }
+        index.popularity = popularity;
+        index.permutations.put(SortOrder.MOST_POPULAR, rankByPopularity(newCatalog, popularity));
+        return index;
+    }
+
+    /**
+     * Merges the re-sorted touched rows into the remapped untouched rows of a permutation.
+     */
+    private static int[] patch(int[] permutation, int[] oldToNew, int[] touchedRows,
+                               ColumnarCatalog catalog, SortOrder order) {
+        int[] inserted = touchedRows.clone();
+        // Change sets up to a quarter of the catalog end up here, so this has to be O(k log k)
+        sortRows(inserted, new int[inserted.length], 0, inserted.length, catalog, order);
+
+        int[] result = new int[catalog.size()];
+        int count = 0;
+        int next = 0;
+        for (int oldRow : permutation) {
+            int row = oldToNew[oldRow];
+            if (row < 0) {
+                continue;
+            }
+            while (next < inserted.length && catalog.compareRows(order, inserted[next], row) < 0) {
+                result[count++] = inserted[next++];
+            }
+            result[count++] = row;
+        }
+        while (next < inserted.length) {
+            result[count++] = inserted[next++];
+        }
+        return result;
+    }
+
+    /**
+     * Merge-sorts rows by an order, in the order's permutation. compareRows breaks ties by row,
+     * so no two rows compare equal and stability doesn't matter.
+     */
+    private static void sortRows(int[] rows, int[] buffer, int from, int to,
+                                 ColumnarCatalog catalog, SortOrder order) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortRows(rows, buffer, from, middle, catalog, order);
+        sortRows(rows, buffer, middle, to, catalog, order);
+        if (catalog.compareRows(order, rows[middle - 1], rows[middle]) < 0) {
+            return;
+        }
+        System.arraycopy(rows, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && catalog.compareRows(order, buffer[left], buffer[right]) < 0)) {
+                rows[i] = buffer[left++];
+            } else {
+                rows[i] = buffer[right++];
+            }
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public ColumnarCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Returns the precomputed permutation for an order. The array must not be modified.
+     */
+    public int[] getPermutation(SortOrder order) {
+        return permutations.get(order);
+    }
+
+    /**
+     * Returns the summaries in the requested order, keeping only the rows in the filter.
+     * Without a filter this is O(1): the returned list reads through the cached permutation.
+     *
+     * @param order Sort order to apply
+     * @param filter Rows to keep, or null to keep every row
+     * @return Read-only list view of the summaries
+     */
+    public List<RecipeSummary> view(SortOrder order, BitSet filter) {
+        int[] permutation = getPermutation(order);
+        if (filter != null) {
+            permutation = filter(permutation, filter);
+        }
+        return new OrderedView(summaries, permutation);
+    }
+
+    /**
+     * Keeps the rows of the permutation present in the filter, preserving their order.
+     */
+    static int[] filter(int[] permutation, BitSet rows) {
+        int[] result = new int[rows.cardinality()];
+        int count = 0;
+        for (int row : permutation) {
+            if (rows.get(row)) {
+                result[count++] = row;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * List view that maps positions through a permutation of row indexes.
+     */
+    private static final class OrderedView extends AbstractList<RecipeSummary> {
+        private final List<RecipeSummary> summaries;
+        private final int[] order;
+
+        OrderedView(List<RecipeSummary> summaries, int[] order) {
+            this.summaries = summaries;
+            this.order = order;
+        }
+
+        @Override
+        public RecipeSummary get(int position) {
+            return summaries.get(order[position]);
+        }
+
+        @Override
+        public int size() {
+            return order.length;
+        }
+    }
+}
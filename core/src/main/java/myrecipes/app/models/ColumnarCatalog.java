@@ -0,0 +1,326 @@
+package myrecipes.app.models;
+
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Struct-of-arrays view of the recipe catalog.
+ * Each recipe is a row index; every field lives in its own primitive column, so
+ * scans, filters and sorts walk contiguous arrays instead of chasing pointers through
+ * a list of objects with boxed fields. It is built alongside the {@link RecipeSummary} list
+ * and is immutable once built.
+ */
+public final class ColumnarCatalog {
+    // Titles are in Spanish: accented letters sort next to their base letter and ñ after n
+    private static final Locale COLLATION_LOCALE = new Locale("es");
+
+    private final String[] ids;
+    private final int[] calories;
+    private final int[] ingredientCounts;
+    private final int[] stepCounts;
+    private final long[] facetMasks;
+    // All titles concatenated into one buffer; row i spans [titleOffsets[i], titleOffsets[i + 1])
+    private final char[] titleChars;
+    private final int[] titleOffsets;
+    // Lower-cased copy of titleChars used by search
+    private final char[] foldedTitleChars;
+    // Collation keys of the titles used by the title sort, concatenated into one buffer;
+    // row i spans [titleKeyOffsets[i], titleKeyOffsets[i + 1]) and keys compare as unsigned bytes
+    private final byte[] titleKeys;
+    private final int[] titleKeyOffsets;
+
+    private ColumnarCatalog(String[] ids, int[] calories, int[] ingredientCounts, int[] stepCounts,
+                            long[] facetMasks, char[] titleChars, int[] titleOffsets,
+                            char[] foldedTitleChars, byte[] titleKeys, int[] titleKeyOffsets) {
+        this.ids = ids;
+        this.calories = calories;
+        this.ingredientCounts = ingredientCounts;
+        this.stepCounts = stepCounts;
+        this.facetMasks = facetMasks;
+        this.titleChars = titleChars;
+        this.titleOffsets = titleOffsets;
+        this.foldedTitleChars = foldedTitleChars;
+        this.titleKeys = titleKeys;
+        this.titleKeyOffsets = titleKeyOffsets;
+    }
+
+    /**
+     * Builds the columns from a list of summaries. Row i corresponds to summaries.get(i).
+     *
+     * @param summaries Summaries in catalog order
+     * @return A new columnar catalog
+     */
+    public static ColumnarCatalog build(List<RecipeSummary> summaries) {
+        int size = summaries.size();
+        String[] ids = new String[size];
+        int[] calories = new int[size];
+        int[] ingredientCounts = new int[size];
+        int[] stepCounts = new int[size];
+        long[] facetMasks = new long[size];
+        int[] titleOffsets = new int[size + 1];
+
+        int totalChars = 0;
+        for (RecipeSummary summary : summaries) {
+            totalChars += summary.getTitle() != null ? summary.getTitle().length() : 0;
+        }
+        char[] titleChars = new char[totalChars];
+
+        // Case is ignored; accents only break ties between otherwise equal titles
+        Collator collator = Collator.getInstance(COLLATION_LOCALE);
+        collator.setStrength(Collator.SECONDARY);
+        byte[][] keys = new byte[size][];
+        int totalKeyBytes = 0;
+
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            RecipeSummary summary = summaries.get(i);
+            ids[i] = summary.getId();
+            calories[i] = summary.getCalories();
+            ingredientCounts[i] = summary.getIngredientCount();
+            stepCounts[i] = summary.getStepCount();
+            facetMasks[i] = summary.getFacets();
+            titleOffsets[i] = offset;
+            String title = summary.getTitle();
+            if (title != null) {
+                title.getChars(0, title.length(), titleChars, offset);
+                offset += title.length();
+            }
+            keys[i] = collator.getCollationKey(title != null ? title : "").toByteArray();
+            totalKeyBytes += keys[i].length;
+        }
+        titleOffsets[size] = offset;
+
+        byte[] titleKeys = new byte[totalKeyBytes];
+        int[] titleKeyOffsets = new int[size + 1];
+        int keyOffset = 0;
+        for (int i = 0; i < size; i++) {
+            titleKeyOffsets[i] = keyOffset;
+            System.arraycopy(keys[i], 0, titleKeys, keyOffset, keys[i].length);
+            keyOffset += keys[i].length;
+        }
+        titleKeyOffsets[size] = keyOffset;
+
+        char[] foldedTitleChars = new String(titleChars).toLowerCase(Locale.ROOT).toCharArray();
+        // Lower-casing can change the length for a few scripts; fall back to per-char folding then
+        if (foldedTitleChars.length != titleChars.length) {
+            foldedTitleChars = new char[titleChars.length];
+            for (int i = 0; i < titleChars.length; i++) {
+                foldedTitleChars[i] = Character.toLowerCase(titleChars[i]);
+            }
+        }
+        return new ColumnarCatalog(ids, calories, ingredientCounts, stepCounts, facetMasks,
+                titleChars, titleOffsets, foldedTitleChars, titleKeys, titleKeyOffsets);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public String getId(int row) {
+        return ids[row];
+    }
+
+    public int getCalories(int row) {
+        return calories[row];
+    }
+
+    public int getIngredientCount(int row) {
+        return ingredientCounts[row];
+    }
+
+    public int getStepCount(int row) {
+        return stepCounts[row];
+    }
+
+    public long getFacetMask(int row) {
+        return facetMasks[row];
+    }
+
+    public String getTitle(int row) {
+        return new String(titleChars, titleOffsets[row], titleOffsets[row + 1] - titleOffsets[row]);
+    }
+
+    /**
+     * Selects the rows that have all the requested facets.
+     *
+     * @param requiredMask Facet bits that must all be present; 0 selects every row
+     * @return Bit set of matching rows
+     */
+    public BitSet filterByFacets(long requiredMask) {
+        BitSet result = new BitSet(size());
+        for (int row = 0; row < facetMasks.length; row++) {
+            if ((facetMasks[row] & requiredMask) == requiredMask) {
+                result.set(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Selects the rows whose total calories fall inside the inclusive range.
+     */
+    public BitSet filterByCalories(int minCalories, int maxCalories) {
+        BitSet result = new BitSet(size());
+        for (int row = 0; row < calories.length; row++) {
+            int value = calories[row];
+            if (value >= minCalories && value <= maxCalories) {
+                result.set(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Selects the rows whose title contains the query, ignoring case.
+     * Scans the shared title buffer directly without creating any String per row.
+     *
+     * @param query Text to look for; an empty query selects every row
+     * @return Bit set of matching rows
+     */
+    public BitSet searchTitles(String query) {
+        BitSet result = new BitSet(size());
+        char[] needle = query.toLowerCase(Locale.ROOT).toCharArray();
+        for (int row = 0; row < ids.length; row++) {
+            if (containsAt(titleOffsets[row], titleOffsets[row + 1], needle)) {
+                result.set(row);
+            }
+        }
+        return result;
+    }
+
+    private boolean containsAt(int start, int end, char[] needle) {
+        int last = end - needle.length;
+        outer:
+        for (int i = start; i <= last; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (foldedTitleChars[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the row order sorted by calories.
+     * Each row is packed with its value into one long so the sort runs on primitives only.
+     *
+     * @param ascending true for lowest calories first
+     * @return Permutation of row indexes
+     */
+    public int[] sortByCalories(boolean ascending) {
+        return sortByColumn(calories, ascending);
+    }
+
+    public int[] sortByIngredientCount() {
+        return sortByColumn(ingredientCounts, true);
+    }
+
+    public int[] sortByStepCount() {
+        return sortByColumn(stepCounts, true);
+    }
+
+    /**
+     * Sorts the rows by an int column.
+     * The value goes in the high 32 bits and the row in the low 32 bits, so a single
+     * primitive sort orders by value and keeps ties in catalog order.
+     */
+    private static int[] sortByColumn(int[] column, boolean ascending) {
+        long[] keys = new long[column.length];
+        for (int row = 0; row < column.length; row++) {
+            int value = ascending ? column[row] : -column[row];
+            keys[row] = ((long) value << 32) | row;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    /**
+     * Returns the row order sorted alphabetically by title, ignoring case, with Spanish
+     * collation rules so "Ñoquis" follows "Nutella" and "Árbol" sorts among the A's.
+     * The collation keys are compared in place inside their shared buffer and the rows are
+     * merge-sorted as plain ints, so no String or boxed Integer is created. The sort is stable.
+     */
+    public int[] sortByTitle() {
+        int[] order = new int[ids.length];
+        for (int row = 0; row < order.length; row++) {
+            order[row] = row;
+        }
+        mergeSortByTitle(order, new int[order.length], 0, order.length);
+        return order;
+    }
+
+    private void mergeSortByTitle(int[] order, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSortByTitle(order, buffer, from, middle);
+        mergeSortByTitle(order, buffer, middle, to);
+        if (compareTitles(order[middle - 1], order[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && compareTitles(buffer[left], buffer[right]) <= 0)) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Compares two rows the way the permutation of an order sorts them:
+     * by the order's value, then by row so ties keep catalog order.
+     */
+    int compareRows(SortOrder order, int rowA, int rowB) {
+        int result;
+        switch (order) {
+            case TITLE:
+                result = compareTitles(rowA, rowB);
+                break;
+            case CALORIES_ASCENDING:
+                result = Integer.compare(calories[rowA], calories[rowB]);
+                break;
+            case CALORIES_DESCENDING:
+                result = Integer.compare(-calories[rowA], -calories[rowB]);
+                break;
+            case INGREDIENT_COUNT:
+                result = Integer.compare(ingredientCounts[rowA], ingredientCounts[rowB]);
+                break;
+            case STEP_COUNT:
+                result = Integer.compare(stepCounts[rowA], stepCounts[rowB]);
+                break;
+            default:
+                result = 0;
+        }
+        return result != 0 ? result : Integer.compare(rowA, rowB);
+    }
+
+    private int compareTitles(int rowA, int rowB) {
+        int startA = titleKeyOffsets[rowA];
+        int lengthA = titleKeyOffsets[rowA + 1] - startA;
+        int startB = titleKeyOffsets[rowB];
+        int lengthB = titleKeyOffsets[rowB + 1] - startB;
+        int length = Math.min(lengthA, lengthB);
+        for (int i = 0; i < length; i++) {
+            int a = titleKeys[startA + i] & 0xFF;
+            int b = titleKeys[startB + i] & 0xFF;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return lengthA - lengthB;
+    }
+}
@@ -0,0 +1,48 @@
+package myrecipes.app.models;
+
+import java.util.List;
+
+/**
+ * One page of a user's favourite recipes, in key order.
+ * The next page starts after {@link #getLastKey()}, so pages stay correct when favourites
+ * before the current position are added or removed, unlike offset based paging.
+ */
+public class FavouritePage {
+    private final String afterKey;
+    private final List<RecipeSummary> recipes;
+    private final String lastKey;
+    private final boolean hasMore;
+
+    public FavouritePage(String afterKey, List<RecipeSummary> recipes, String lastKey, boolean hasMore) {
+        this.afterKey = afterKey;
+        this.recipes = recipes;
+        this.lastKey = lastKey;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Key the page was requested after, null for the first page.
+     */
+    public String getAfterKey() {
+        return afterKey;
+    }
+
+    /**
+     * Recipes of the page. Favourites whose recipe no longer exists are left out,
+     * so this can be shorter than the page size even when more pages follow.
+     */
+    public List<RecipeSummary> getRecipes() {
+        return recipes;
+    }
+
+    /**
+     * Last favourite key of the page, where the next page starts.
+     */
+    public String getLastKey() {
+        return lastKey;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,65 @@
+package myrecipes.app.models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalog-wide table of ingredient names and quantity strings.
+ * The same values ("Avena", "15 gramos", ...) repeat across many recipes, so each
+ * distinct string is stored once and recipes keep only its int ID (flyweight pattern).
+ * The table only grows; it is sized by the catalog, not by the number of screens opened.
+ */
+public final class IngredientDictionary {
+    private static final IngredientDictionary INSTANCE = new IngredientDictionary();
+
+    // String -> ID lookup used while interning
+    private final Map<String, Integer> ids = new HashMap<>();
+    // ID -> String table used while reading
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Shared dictionary used by all recipes of the catalog.
+     */
+    public static IngredientDictionary getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the ID of the given value, adding it to the table the first time it is seen.
+     * Synchronized because recipes can be decoded on Firebase and background threads.
+     *
+     * @param value String to intern, may be null
+     * @return ID of the value, or -1 for null
+     */
+    public synchronized int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            values.add(value);
+            ids.put(value, id);
+        }
+        return id;
+    }
+
+    /**
+     * Resolves an ID returned by {@link #intern(String)}.
+     *
+     * @param id ID of the value
+     * @return The interned string, or null for -1
+     */
+    public synchronized String get(int id) {
+        return id < 0 ? null : values.get(id);
+    }
+
+    /**
+     * Number of distinct strings stored in the table.
+     */
+    public synchronized int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,198 @@
+package myrecipes.app.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Recipe {
+    private static final int INGREDIENT_STRIDE = 3;
+
+    private String id;
+    private String title;
+    private String description;
+    private String category;
+    private String imageUrl;
+    // Precomputed placeholder of the image, generated by the catalog tooling
+    private String imageBlurHash;
+    private Double imageAspectRatio;
+    // Raw [name, calories, quantity] triples as decoded; released once interned
+    public List<List<Object>> ingredients;
+    // Interned ingredients: INGREDIENT_STRIDE ints per ingredient (name ID, calories, quantity ID)
+    private int[] ingredientTable;
+    // Dictionary the table IDs refer to
+    private IngredientDictionary ingredientDictionary;
+    private List<String> steps;
+    private Integer calories;
+
+    public Recipe() {
+    }
+
+    public Recipe(String id, String title, String description, String imageUrl, int calories, List<List<Object>> ingredients, List<String> steps) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.imageUrl = imageUrl;
+        this.calories = calories;
+        this.ingredients = ingredients;
+        this.steps = steps;
+    }
+
+    /**
+     * Creates a recipe with every field, as decoded by the snapshot and JSON parsers.
+     * Calories are stored in the calorias_totales field of the catalog.
+     */
+    public Recipe(String id, String title, String description, String category, String imageUrl,
+                  String imageBlurHash, Double imageAspectRatio, Integer calories,
+                  List<List<Object>> ingredients, List<String> steps) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.category = category;
+        this.imageUrl = imageUrl;
+        this.imageBlurHash = imageBlurHash;
+        this.imageAspectRatio = imageAspectRatio;
+        this.calories = calories;
+        this.ingredients = ingredients;
+        this.steps = steps;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String setId(String id) {
+        this.id = id;
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public String getImageBlurHash() {
+        return imageBlurHash;
+    }
+
+    /**
+     * Image width divided by height, or 0 when unknown.
+     */
+    public Double getImageAspectRatio() {
+        return imageAspectRatio != null ? imageAspectRatio : 0d;
+    }
+
+    public Integer getCalories() {
+        return calories != null ? calories : 0;
+    }
+
+    public void setCalories(Integer calories) {
+        this.calories = calories;
+    }
+
+    /**
+     * Returns the ingredients as [name, calories, quantity] triples.
+     * Interned recipes rebuild the triples on each call, so prefer the indexed
+     * accessors below when only reading.
+     */
+    public List<List<Object>> getIngredients() {
+        if (ingredients != null || ingredientTable == null) {
+            return ingredients;
+        }
+        List<List<Object>> triples = new ArrayList<>(getIngredientCount());
+        for (int i = 0; i < getIngredientCount(); i++) {
+            triples.add(Arrays.<Object>asList(
+                    getIngredientName(i), (long) getIngredientCalories(i), getIngredientQuantity(i)));
+        }
+        return triples;
+    }
+
+    public int getIngredientCount() {
+        if (ingredientTable != null) {
+            return ingredientTable.length / INGREDIENT_STRIDE;
+        }
+        return ingredients != null ? ingredients.size() : 0;
+    }
+
+    public String getIngredientName(int index) {
+        if (ingredientTable != null) {
+            return ingredientDictionary.get(ingredientTable[index * INGREDIENT_STRIDE]);
+        }
+        return String.valueOf(ingredients.get(index).get(0));
+    }
+
+    public int getIngredientCalories(int index) {
+        if (ingredientTable != null) {
+            return ingredientTable[index * INGREDIENT_STRIDE + 1];
+        }
+        return parseCalories(ingredients.get(index).get(1));
+    }
+
+    public String getIngredientQuantity(int index) {
+        if (ingredientTable != null) {
+            return ingredientDictionary.get(ingredientTable[index * INGREDIENT_STRIDE + 2]);
+        }
+        return String.valueOf(ingredients.get(index).get(2));
+    }
+
+    /**
+     * Moves the ingredient strings into the shared dictionary and keeps only their IDs.
+     * Called once after decoding; the raw triples are released afterwards, and the
+     * ingredients are read back from the same dictionary.
+     *
+     * @param dictionary Catalog-wide dictionary to intern into
+     */
+    public void internIngredients(IngredientDictionary dictionary) {
+        if (ingredients == null) {
+            return;
+        }
+        int[] table = new int[ingredients.size() * INGREDIENT_STRIDE];
+        for (int i = 0; i < ingredients.size(); i++) {
+            List<Object> ingredient = ingredients.get(i);
+            table[i * INGREDIENT_STRIDE] = dictionary.intern(valueAt(ingredient, 0));
+            table[i * INGREDIENT_STRIDE + 1] = parseCalories(ingredient.size() > 1 ? ingredient.get(1) : null);
+            table[i * INGREDIENT_STRIDE + 2] = dictionary.intern(valueAt(ingredient, 2));
+        }
+        ingredientTable = table;
+        ingredientDictionary = dictionary;
+        ingredients = null;
+    }
+
+    private static String valueAt(List<Object> ingredient, int index) {
+        return index < ingredient.size() && ingredient.get(index) != null
+                ? String.valueOf(ingredient.get(index)) : null;
+    }
+
+    /**
+     * Ingredient calories are stored either as numbers (60) or as text ("170 calorías").
+     * Both forms are reduced to their numeric value.
+     */
+    private static int parseCalories(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value == null) {
+            return 0;
+        }
+        String text = value.toString();
+        int end = 0;
+        while (end < text.length() && Character.isDigit(text.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? 0 : Integer.parseInt(text.substring(0, end));
+    }
+
+    public List<String> getSteps() {
+        return steps;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package myrecipes.app.models;
+
+/**
+ * Known recipe categories, each mapped to a single bit.
+ * The catalog stores categories as a comma separated label ("100-500cal, Dulce"),
+ * which is parsed once into a bit mask so list screens can filter without string work.
+ */
+public enum RecipeFacet {
+    CALORIES_100_500("100-500cal"),
+    CALORIES_500_1000("500-1000cal"),
+    CALORIES_1000_1500("1000-1500cal"),
+    CALORIES_OVER_1500(">1500cal"),
+    HIGH_PROTEIN("Alto en proteína"),
+    SWEET("Dulce"),
+    PROTEIN_POWDER_FRIENDLY("Protein Powder Friendly"),
+    LOW_CALORIE_SNACK("low calorie snack"),
+    DINNER("Cena");
+
+    private final String label;
+
+    RecipeFacet(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Bit representing this facet inside a facet mask.
+     */
+    public long bit() {
+        return 1L << ordinal();
+    }
+
+    /**
+     * Parses a category label into a facet mask.
+     * Unknown labels are ignored.
+     *
+     * @param category Comma separated category label, may be null
+     * @return Bit mask with one bit set per recognised facet
+     */
+    public static long maskOf(String category) {
+        if (category == null) {
+            return 0L;
+        }
+        long mask = 0L;
+        for (String part : category.split(",")) {
+            String label = part.trim();
+            for (RecipeFacet facet : values()) {
+                if (facet.label.equalsIgnoreCase(label)) {
+                    mask |= facet.bit();
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+}
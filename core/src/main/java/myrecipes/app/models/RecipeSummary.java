@@ -0,0 +1,103 @@
+package myrecipes.app.models;
+
+import java.util.Objects;
+
+/**
+ * Lightweight projection of a {@link Recipe} used by list screens.
+ * Holds only what a row needs; ingredients and steps are loaded lazily
+ * when the recipe detail is opened.
+ */
+public class RecipeSummary {
+    private final String id;
+    private final String title;
+    private final int calories;
+    private final String thumbnailUrl;
+    // Bit mask of RecipeFacet values parsed from the category label
+    private final long facets;
+    private final int ingredientCount;
+    private final int stepCount;
+
+    public RecipeSummary(String id, String title, int calories, String thumbnailUrl,
+                         long facets, int ingredientCount, int stepCount) {
+        this.id = id;
+        this.title = title;
+        this.calories = calories;
+        this.thumbnailUrl = thumbnailUrl;
+        this.facets = facets;
+        this.ingredientCount = ingredientCount;
+        this.stepCount = stepCount;
+    }
+
+    /**
+     * Builds a summary from an already loaded full recipe.
+     */
+    public static RecipeSummary of(Recipe recipe) {
+        return new RecipeSummary(
+                recipe.getId(),
+                recipe.getTitle(),
+                recipe.getCalories(),
+                recipe.getImageUrl(),
+                RecipeFacet.maskOf(recipe.getCategory()),
+                recipe.getIngredientCount(),
+                recipe.getSteps() != null ? recipe.getSteps().size() : 0);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getCalories() {
+        return calories;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public long getFacets() {
+        return facets;
+    }
+
+    public boolean hasFacet(RecipeFacet facet) {
+        return (facets & facet.bit()) != 0;
+    }
+
+    public int getIngredientCount() {
+        return ingredientCount;
+    }
+
+    public int getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Two summaries are equal when every field is; used to tell real catalog changes
+     * from events that deliver an unchanged recipe again.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RecipeSummary)) {
+            return false;
+        }
+        RecipeSummary other = (RecipeSummary) o;
+        return calories == other.calories
+                && facets == other.facets
+                && ingredientCount == other.ingredientCount
+                && stepCount == other.stepCount
+                && Objects.equals(id, other.id)
+                && Objects.equals(title, other.title)
+                && Objects.equals(thumbnailUrl, other.thumbnailUrl);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, calories, thumbnailUrl, facets, ingredientCount, stepCount);
+    }
+}
@@ -0,0 +1,16 @@
+package myrecipes.app.models;
+
+/**
+ * Orders in which the dashboard can list recipes.
+ * Each value has a precomputed permutation in {@link CatalogIndex}.
+ */
+public enum SortOrder {
+    CATALOG,
+    TITLE,
+    CALORIES_ASCENDING,
+    CALORIES_DESCENDING,
+    INGREDIENT_COUNT,
+    STEP_COUNT,
+    // Most favourited first, from the popularity ranking; recomputed when the ranking changes
+    MOST_POPULAR
+}
@@ -0,0 +1,143 @@
+package myrecipes.app.parsers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import myrecipes.app.models.IngredientDictionary;
+import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeSummary;
+
+/**
+ * Decodes the recipes node of the catalog from JSON on the JVM, for benchmarks and tooling.
+ * Each recipe is read into a tree of maps and lists, like the Firebase client builds the tree
+ * behind a DataSnapshot, and then decoded by {@link RecipeDecoder}, the same code the app runs
+ * on snapshots. Recipes are returned in document order.
+ */
+public final class CatalogJsonParser {
+
+    private CatalogJsonParser() {
+    }
+
+    /**
+     * Positions a reader on the recipes node of a database export, such as utils/recipes.json.
+     *
+     * @param exportJson Whole database as JSON, with the recipes node at the top level
+     * @return Reader whose next value is the recipes object
+     */
+    public static JsonReader openExport(String exportJson) {
+        JsonReader reader = new JsonReader(exportJson);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("recipes".equals(reader.nextName())) {
+                return reader;
+            }
+            reader.skipValue();
+        }
+        throw new IllegalArgumentException("No recipes node in the export");
+    }
+
+    /**
+     * Decodes the fields needed by list rows from a recipes object (recipe ID -> recipe).
+     * Recipes without a title are left out.
+     */
+    public static List<RecipeSummary> parseSummaries(JsonReader reader) {
+        List<RecipeSummary> summaries = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            RecipeNode node = nextNode(reader);
+            RecipeSummary summary = node != null ? RecipeDecoder.decodeSummary(node) : null;
+            if (summary != null) {
+                summaries.add(summary);
+            }
+        }
+        reader.endObject();
+        return summaries;
+    }
+
+    /**
+     * Decodes complete recipes from a recipes object (recipe ID -> recipe).
+     * Recipes without a title are left out.
+     */
+    public static List<Recipe> parseRecipes(JsonReader reader) {
+        return parseRecipes(reader, IngredientDictionary.getInstance());
+    }
+
+    /**
+     * Decodes complete recipes, interning their ingredients into the given dictionary.
+     *
+     * @param dictionary Dictionary to intern into, or null to keep the decoded triples
+     *                   as they are (for footprint comparisons)
+     */
+    public static List<Recipe> parseRecipes(JsonReader reader, IngredientDictionary dictionary) {
+        List<Recipe> recipes = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            RecipeNode node = nextNode(reader);
+            Recipe recipe = node != null ? RecipeDecoder.decodeRecipe(node, dictionary) : null;
+            if (recipe != null) {
+                recipes.add(recipe);
+            }
+        }
+        reader.endObject();
+        return recipes;
+    }
+
+    /**
+     * Reads the next recipe of a recipes object, or null if its value isn't an object.
+     */
+    @SuppressWarnings("unchecked")
+    private static RecipeNode nextNode(JsonReader reader) {
+        String id = reader.nextName();
+        if (reader.peek() != JsonReader.Token.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        return new MapNode(id, (Map<String, Object>) reader.nextValue());
+    }
+
+    /**
+     * Recipe read from JSON into maps and lists.
+     */
+    private static final class MapNode implements RecipeNode {
+        private final String key;
+        private final Map<String, Object> fields;
+
+        MapNode(String key, Map<String, Object> fields) {
+            this.key = key;
+            this.fields = fields;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public Object get(String field) {
+            return fields.get(field);
+        }
+
+        @Override
+        public int countChildren(String field) {
+            Object value = fields.get(field);
+            if (value instanceof List) {
+                return ((List<?>) value).size();
+            }
+            return value instanceof Map ? ((Map<?, ?>) value).size() : 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Iterable<Object> getChildren(String field) {
+            Object value = fields.get(field);
+            if (value instanceof List) {
+                return (List<Object>) value;
+            }
+            if (value instanceof Map) {
+                return ((Map<String, Object>) value).values();
+            }
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package myrecipes.app.parsers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal pull parser over a JSON document held in memory.
+ * Values are read in document order, as a tree only when asked with {@link #nextValue()},
+ * and values that aren't needed are skipped without allocating, e.g. the nodes of an export
+ * around the recipes node. Numbers without a fraction or exponent are read as
+ * Long, others as Double, like the Firebase client does. Separating commas are not validated.
+ */
+public final class JsonReader {
+    public enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END }
+
+    private final String json;
+    private int pos;
+    // True when the next string in the current object is a name
+    private boolean expectName;
+    // Open containers: true for objects, false for arrays
+    private boolean[] stack = new boolean[32];
+    private int depth;
+
+    public JsonReader(String json) {
+        this.json = json;
+    }
+
+    public Token peek() {
+        skipSeparators();
+        if (pos >= json.length()) {
+            return Token.END;
+        }
+        char c = json.charAt(pos);
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '}':
+                return Token.END_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case ']':
+                return Token.END_ARRAY;
+            case '"':
+                return expectName ? Token.NAME : Token.STRING;
+            case 't':
+            case 'f':
+                return Token.BOOLEAN;
+            case 'n':
+                return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return Token.NUMBER;
+                }
+                throw error("Unexpected character '" + c + "'");
+        }
+    }
+
+    public boolean hasNext() {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END;
+    }
+
+    public void beginObject() {
+        expect(Token.BEGIN_OBJECT);
+        pos++;
+        push(true);
+    }
+
+    public void endObject() {
+        expect(Token.END_OBJECT);
+        pos++;
+        pop();
+    }
+
+    public void beginArray() {
+        expect(Token.BEGIN_ARRAY);
+        pos++;
+        push(false);
+    }
+
+    public void endArray() {
+        expect(Token.END_ARRAY);
+        pos++;
+        pop();
+    }
+
+    public String nextName() {
+        expect(Token.NAME);
+        String name = readString();
+        skipSeparators();
+        if (pos >= json.length() || json.charAt(pos) != ':') {
+            throw error("Expected ':'");
+        }
+        pos++;
+        expectName = false;
+        return name;
+    }
+
+    public String nextString() {
+        expect(Token.STRING);
+        String value = readString();
+        valueRead();
+        return value;
+    }
+
+    public Number nextNumber() {
+        expect(Token.NUMBER);
+        int start = pos;
+        boolean integral = true;
+        pos++;
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c == '.' || c == 'e' || c == 'E') {
+                integral = false;
+            } else if (!(c >= '0' && c <= '9') && c != '-' && c != '+') {
+                break;
+            }
+            pos++;
+        }
+        String text = json.substring(start, pos);
+        valueRead();
+        return integral ? (Number) Long.parseLong(text) : (Number) Double.parseDouble(text);
+    }
+
+    public boolean nextBoolean() {
+        expect(Token.BOOLEAN);
+        boolean value = json.startsWith("true", pos);
+        pos += value ? 4 : 5;
+        valueRead();
+        return value;
+    }
+
+    public void nextNull() {
+        expect(Token.NULL);
+        pos += 4;
+        valueRead();
+    }
+
+    /**
+     * Reads any value: String, Long, Double, Boolean, null, or a List / Map of those.
+     */
+    public Object nextValue() {
+        switch (peek()) {
+            case BEGIN_ARRAY: {
+                List<Object> list = new ArrayList<>();
+                beginArray();
+                while (hasNext()) {
+                    list.add(nextValue());
+                }
+                endArray();
+                return list;
+            }
+            case BEGIN_OBJECT: {
+                Map<String, Object> map = new LinkedHashMap<>();
+                beginObject();
+                while (hasNext()) {
+                    String name = nextName();
+                    map.put(name, nextValue());
+                }
+                endObject();
+                return map;
+            }
+            case STRING:
+                return nextString();
+            case NUMBER:
+                return nextNumber();
+            case BOOLEAN:
+                return nextBoolean();
+            case NULL:
+                nextNull();
+                return null;
+            default:
+                throw error("Expected a value");
+        }
+    }
+
+    /**
+     * Skips the next value, including everything nested in it, without allocating.
+     */
+    public void skipValue() {
+        int startDepth = depth;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    break;
+                case NAME:
+                    skipString();
+                    nextNameSeparator();
+                    break;
+                case STRING:
+                    skipString();
+                    valueRead();
+                    break;
+                case NUMBER:
+                    nextNumber();
+                    break;
+                case BOOLEAN:
+                    nextBoolean();
+                    break;
+                case NULL:
+                    nextNull();
+                    break;
+                default:
+                    throw error("Unexpected end of document");
+            }
+        } while (depth > startDepth);
+    }
+
+    private void nextNameSeparator() {
+        skipSeparators();
+        pos++;
+        expectName = false;
+    }
+
+    private void push(boolean object) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = object;
+        expectName = object;
+    }
+
+    private void pop() {
+        depth--;
+        valueRead();
+    }
+
+    /**
+     * After a value inside an object the next string is a name again.
+     */
+    private void valueRead() {
+        expectName = depth > 0 && stack[depth - 1];
+    }
+
+    private void skipSeparators() {
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ',') {
+                pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void expect(Token expected) {
+        Token token = peek();
+        if (token != expected) {
+            throw error("Expected " + expected + " but was " + token);
+        }
+    }
+
+    private void skipString() {
+        pos++;
+        while (pos < json.length()) {
+            char c = json.charAt(pos++);
+            if (c == '\\') {
+                pos++;
+            } else if (c == '"') {
+                return;
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private String readString() {
+        int start = ++pos;
+        // Fast path: no escapes, the string is a substring of the document
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c == '"') {
+                return json.substring(start, pos++);
+            }
+            if (c == '\\') {
+                break;
+            }
+            pos++;
+        }
+        StringBuilder out = new StringBuilder(json.substring(start, pos));
+        while (pos < json.length()) {
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                return out.toString();
+            }
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            char escaped = json.charAt(pos++);
+            switch (escaped) {
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 't':
+                    out.append('\t');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                case 'b':
+                    out.append('\b');
+                    break;
+                case 'f':
+                    out.append('\f');
+                    break;
+                case 'u':
+                    out.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                    pos += 4;
+                    break;
+                default:
+                    out.append(escaped);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private IllegalStateException error(String message) {
+        return new IllegalStateException(message + " at offset " + pos);
+    }
+}
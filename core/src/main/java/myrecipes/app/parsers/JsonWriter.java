@@ -0,0 +1,194 @@
+package myrecipes.app.parsers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes String, Number, Boolean, null, List and Map values as JSON.
+ * The pretty layout is the one of the checked-in catalog file and of the catalog Gradle tasks
+ * (two-space indentation, key order preserved, non-ASCII characters kept as is), so
+ * {@link #hash(Object)} gives the same per-recipe hashes as generateCatalogMeta for the files
+ * written here. Numbers are written with toString: a 0.7500 read from another file comes out as 0.75.
+ */
+public final class JsonWriter {
+
+    private JsonWriter() {
+    }
+
+    public static String write(Object value, boolean pretty) {
+        StringBuilder out = new StringBuilder();
+        write(value, out, pretty);
+        return out.toString();
+    }
+
+    /**
+     * Appends a value to a writer or a builder, so large documents can be streamed to a file.
+     */
+    public static void write(Object value, Appendable out, boolean pretty) {
+        write(value, out, pretty, 0);
+    }
+
+    /**
+     * Appends a value nested in a document that is written piece by piece.
+     *
+     * @param depth Nesting level the value starts at, for the indentation of its lines
+     */
+    public static void write(Object value, Appendable out, boolean pretty, int depth) {
+        try {
+            writeValue(value, out, pretty ? indent(depth) : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends a string value or object key, quoted and escaped.
+     */
+    public static void writeString(String text, Appendable out) {
+        try {
+            quote(text, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Indentation of a line at the given nesting level in the pretty layout.
+     */
+    public static String indent(int depth) {
+        StringBuilder indent = new StringBuilder(depth * 2);
+        for (int i = 0; i < depth; i++) {
+            indent.append("  ");
+        }
+        return indent.toString();
+    }
+
+    /**
+     * First 16 hex chars of the SHA-256 of a value written with sorted keys,
+     * so the hash doesn't depend on key order. Used for the hashes of catalog_meta.
+     */
+    public static String hash(Object value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(write(sortKeys(value), true).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) {
+                hex.append(Character.forDigit((bytes[i] >> 4) & 0xF, 16))
+                        .append(Character.forDigit(bytes[i] & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object sortKeys(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                sorted.put(String.valueOf(entry.getKey()), sortKeys(entry.getValue()));
+            }
+            return sorted;
+        }
+        if (value instanceof List) {
+            List<Object> sorted = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                sorted.add(sortKeys(item));
+            }
+            return sorted;
+        }
+        return value;
+    }
+
+    /**
+     * @param indent Indentation of the current line, or null for compact output
+     */
+    private static void writeValue(Object value, Appendable out, String indent) throws IOException {
+        String inner = indent != null ? indent + "  " : null;
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            if (map.isEmpty()) {
+                out.append("{}");
+                return;
+            }
+            out.append('{');
+            int index = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                newLine(out, inner);
+                quote(String.valueOf(entry.getKey()), out);
+                out.append(inner != null ? ": " : ":");
+                writeValue(entry.getValue(), out, inner);
+                if (++index < map.size()) {
+                    out.append(',');
+                }
+            }
+            newLine(out, indent);
+            out.append('}');
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            if (list.isEmpty()) {
+                out.append("[]");
+                return;
+            }
+            out.append('[');
+            for (int i = 0; i < list.size(); i++) {
+                newLine(out, inner);
+                writeValue(list.get(i), out, inner);
+                if (i < list.size() - 1) {
+                    out.append(',');
+                }
+            }
+            newLine(out, indent);
+            out.append(']');
+        } else if (value instanceof String) {
+            quote((String) value, out);
+        } else {
+            out.append(String.valueOf(value));
+        }
+    }
+
+    private static void newLine(Appendable out, String indent) throws IOException {
+        if (indent != null) {
+            out.append('\n').append(indent);
+        }
+    }
+
+    private static void quote(String text, Appendable out) throws IOException {
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,100 @@
+package myrecipes.app.parsers;
+
+import java.util.ArrayList;
+import java.util.List;
+import myrecipes.app.models.IngredientDictionary;
+import myrecipes.app.models.Recipe;
+import myrecipes.app.models.RecipeFacet;
+import myrecipes.app.models.RecipeSummary;
+
+/**
+ * Decoding rules of a recipe node, shared by every parser so the app and the JVM tooling
+ * read the catalog the same way: the recipe ID is the node key, a recipe without a title is
+ * skipped, calories come from calorias_totales, and values of the wrong type are ignored.
+ * Summaries only count ingredients and steps; full recipes intern their ingredient strings.
+ */
+public final class RecipeDecoder {
+    public static final String TITLE = "title";
+    public static final String DESCRIPTION = "description";
+    public static final String CATEGORY = "category";
+    public static final String IMAGE_URL = "imageUrl";
+    public static final String IMAGE_BLUR_HASH = "imageBlurHash";
+    public static final String IMAGE_ASPECT_RATIO = "imageAspectRatio";
+    public static final String CALORIES = "calorias_totales";
+    public static final String INGREDIENTS = "ingredients";
+    public static final String STEPS = "steps";
+
+    private RecipeDecoder() {
+    }
+
+    /**
+     * Decodes only the fields needed by list rows.
+     *
+     * @return The summary, or null if the node has no title
+     */
+    public static RecipeSummary decodeSummary(RecipeNode node) {
+        String title = string(node.get(TITLE));
+        if (title == null) {
+            return null;
+        }
+        Integer calories = integer(node.get(CALORIES));
+        return new RecipeSummary(
+                node.getKey(),
+                title,
+                calories != null ? calories : 0,
+                string(node.get(IMAGE_URL)),
+                RecipeFacet.maskOf(string(node.get(CATEGORY))),
+                node.countChildren(INGREDIENTS),
+                node.countChildren(STEPS));
+    }
+
+    /**
+     * Decodes the full recipe, including ingredients and steps.
+     *
+     * @param dictionary Dictionary to intern the ingredients into, or null to keep the
+     *                   decoded triples as they are (for footprint comparisons)
+     * @return The recipe, or null if the node has no title
+     */
+    @SuppressWarnings("unchecked")
+    public static Recipe decodeRecipe(RecipeNode node, IngredientDictionary dictionary) {
+        String title = string(node.get(TITLE));
+        if (title == null) {
+            return null;
+        }
+        List<List<Object>> ingredients = new ArrayList<>(node.countChildren(INGREDIENTS));
+        for (Object ingredient : node.getChildren(INGREDIENTS)) {
+            if (ingredient instanceof List) {
+                ingredients.add((List<Object>) ingredient);
+            }
+        }
+        List<String> steps = new ArrayList<>(node.countChildren(STEPS));
+        for (Object step : node.getChildren(STEPS)) {
+            steps.add(step != null ? step.toString() : null);
+        }
+        Object aspectRatio = node.get(IMAGE_ASPECT_RATIO);
+        Recipe recipe = new Recipe(
+                node.getKey(),
+                title,
+                string(node.get(DESCRIPTION)),
+                string(node.get(CATEGORY)),
+                string(node.get(IMAGE_URL)),
+                string(node.get(IMAGE_BLUR_HASH)),
+                aspectRatio instanceof Number ? ((Number) aspectRatio).doubleValue() : null,
+                integer(node.get(CALORIES)),
+                ingredients,
+                steps);
+        if (dictionary != null) {
+            // Share repeated ingredient strings across the whole catalog
+            recipe.internIngredients(dictionary);
+        }
+        return recipe;
+    }
+
+    private static String string(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static Integer integer(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+}
@@ -0,0 +1,31 @@
+package myrecipes.app.parsers;
+
+/**
+ * Read access to one child of the recipes node, whatever it was decoded into:
+ * a Firebase DataSnapshot in the app, a map read from JSON on the JVM.
+ * Values are the types the Firebase client produces: String, Long, Double, Boolean,
+ * and List or Map for nested values.
+ */
+public interface RecipeNode {
+    /**
+     * Key of the node in the recipes object, which is the recipe ID.
+     */
+    String getKey();
+
+    /**
+     * Value of a field, or null when the field is missing.
+     */
+    Object get(String field);
+
+    /**
+     * Number of children of a list or object field, 0 when it is missing or a plain value.
+     * Implementations count without materializing the children.
+     */
+    int countChildren(String field);
+
+    /**
+     * Values of the children of a list or object field in order; empty when it is missing.
+     * Firebase returns arrays with gaps as objects keyed by index, so both are accepted.
+     */
+    Iterable<Object> getChildren(String field);
+}